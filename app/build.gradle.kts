@@ -31,6 +31,14 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // JVM tests exercise plain-Java classes; android.util.Log calls in them become no-ops
+        unitTests.isReturnDefaultValues = true
+        unitTests.all {
+            // PerformanceBenchmarkTest only runs when asked for with -Pbenchmarks
+            it.systemProperty("benchmarks", project.hasProperty("benchmarks"))
+        }
+    }
 }
 
 dependencies {
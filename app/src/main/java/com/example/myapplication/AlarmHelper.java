@@ -4,19 +4,25 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Build;
 import android.util.Log;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.Locale;
 
 public class AlarmHelper {
     private static final String TAG = "AlarmHelper";
+    static final String ACTION_CHAINED_ALARM = "com.example.myapplication.ACTION_CHAINED_ALARM";
+    static final String EXTRA_REMINDER_ID = "reminder_id";
+    static final String EXTRA_STAMP = "stamp";
+    static final String EXTRA_REMINDER = "reminder";
+    private static final String ALARM_SCHEME = "reminder";
+    // The reminder dialogs allow at most 24 hours of notice
+    static final int MAX_MINUTES_BEFORE = 24 * 60;
 
     /**
-     * Set alarm for reminder
+     * Set alarm for reminder.
+     * Called by {@link ReminderManager} on the repository thread once the reminder is saved, so the
+     * alarm record is never ahead of the store and a reconcile pass never holds up the UI.
      * @return true if alarm was set successfully, false if alarm time is in the past
      */
     public static boolean setAlarm(Context context, Reminder reminder) {
@@ -28,66 +34,26 @@ public class AlarmHelper {
             return false;
         }
 
-        try {
-            // Parse reminder date and time
-            String dateStr = reminder.getDate(); // Format: yyyy-MM-dd
-            String timeStr = reminder.getStartTime(); // Format: HH:mm
-
-            if (dateStr == null || dateStr.isEmpty() || timeStr == null || timeStr.isEmpty()) {
-                Log.e(TAG, "Reminder date or time is empty");
-                return false;
-            }
-
-            // Parse date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date date = dateFormat.parse(dateStr);
-            if (date == null) {
-                Log.e(TAG, "Failed to parse date: " + dateStr);
-                return false;
-            }
+        if (reminder.isRecurring()) {
+            // A series has an alarm for its next occurrence only, reconcile works out which one that is
+            AlarmScheduler.reconcile(context);
+            return true;
+        }
 
-            // Parse time string (HH:mm)
-            String[] timeParts = timeStr.split(":");
-            if (timeParts.length != 2) {
-                Log.e(TAG, "Invalid time format: " + timeStr);
+        try {
+            long alarmTime = getTriggerAtMillis(reminder);
+            if (alarmTime < 0) {
+                Log.e(TAG, "Invalid reminder date/time: " + reminder.getDate() + " " + reminder.getStartTime());
                 return false;
             }
-
-            int hour = Integer.parseInt(timeParts[0]);
-            int minute = Integer.parseInt(timeParts[1]);
-
-            // Combine date and time
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(date);
-            calendar.set(Calendar.HOUR_OF_DAY, hour);
-            calendar.set(Calendar.MINUTE, minute);
-            calendar.set(Calendar.SECOND, 0);
-            calendar.set(Calendar.MILLISECOND, 0);
-
-            // Subtract notification minutes
-            int minutesBefore = reminder.getNotificationMinutesBefore();
-            calendar.add(Calendar.MINUTE, -minutesBefore);
-
-            long alarmTime = calendar.getTimeInMillis();
             long currentTime = System.currentTimeMillis();
 
             // Check if the alarm time is in the past
             if (alarmTime <= currentTime) {
-                Log.w(TAG, "Alarm time is in the past, skipping. Alarm time: " + calendar.getTime() + ", Current: " + new Date(currentTime));
+                Log.w(TAG, "Alarm time is in the past, skipping. Alarm time: " + new Date(alarmTime) + ", Current: " + new Date(currentTime));
                 return false;
             }
 
-            // Create intent for AlarmReceiver
-            Intent intent = new Intent(context, AlarmReceiver.class);
-            intent.putExtra("reminder_id", reminder.getId());
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    context,
-                    reminder.getId().hashCode(),
-                    intent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
             // Set alarm
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
             if (alarmManager == null) {
@@ -95,51 +61,138 @@ public class AlarmHelper {
                 return false;
             }
 
-            // Check if AlarmManager can schedule exact alarms (Android 12+)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                if (!alarmManager.canScheduleExactAlarms()) {
-                    Log.e(TAG, "Cannot schedule exact alarms. User needs to grant permission in settings.");
-                    // You might want to show a dialog here to guide user to settings
-                    return false;
-                }
+            if (AlarmScheduler.isChainedMode(context)) {
+                // The single chained alarm is moved if this reminder is now the earliest one
+                AlarmScheduler.reconcile(context);
+                return true;
+            }
+
+            if (!canScheduleExactAlarms(alarmManager)) {
+                Log.e(TAG, "Cannot schedule exact alarms. User needs to grant permission in settings.");
+                // You might want to show a dialog here to guide user to settings
+                return false;
+            }
+
+            if (AlarmScheduler.isDelivered(context, reminder.getId(), alarmTime)) {
+                // Already shown with an earlier alarm's window; reconcile leaves it out the same way
+                return true;
             }
 
-            // Since minSdk is 27 (Android 8.1), setExactAndAllowWhileIdle is always available
-            // This method is available from API 23 (Android 6.0)
-            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, calendar.getTimeInMillis(), pendingIntent);
+            ScheduledAlarm alarm = ScheduledAlarm.of(reminder, alarmTime);
+            setExact(context, alarmManager, reminder.getId(), alarm);
+            AlarmScheduler.recordScheduled(context, reminder.getId(), alarm);
             return true;
-        } catch (ParseException e) {
-            Log.e(TAG, "Failed to parse reminder date/time", e);
-            return false;
         } catch (Exception e) {
             Log.e(TAG, "Failed to set alarm", e);
             return false;
         }
     }
 
+    /**
+     * Cancel the alarm of a reminder; on the repository thread, like {@link #setAlarm(Context, Reminder)}
+     */
     public static void cancelAlarm(Context context, Reminder reminder) {
         if (context == null || reminder == null) {
             return;
         }
+        if (reminder.isRecurring()) {
+            // The alarm belongs to an occurrence, reconcile drops it once the series is gone
+            AlarmScheduler.reconcile(context);
+            return;
+        }
+        cancelAlarm(context, reminder.getId());
+    }
 
-        try {
-            Intent intent = new Intent(context, AlarmReceiver.class);
-            intent.putExtra("reminder_id", reminder.getId());
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    context,
-                    reminder.getId().hashCode(),
-                    intent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
+    static void cancelAlarm(Context context, String reminderId) {
+        if (context == null || reminderId == null) {
+            return;
+        }
 
+        try {
+            if (AlarmScheduler.isChainedMode(context)) {
+                AlarmScheduler.reconcile(context);
+                return;
+            }
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
             if (alarmManager != null) {
-                alarmManager.cancel(pendingIntent);
+                cancel(context, alarmManager, reminderId);
             }
+            AlarmScheduler.recordCancelled(context, reminderId);
         } catch (Exception e) {
             Log.e(TAG, "Failed to cancel alarm", e);
         }
     }
-}
 
+    /**
+     * Time the reminder's notification should fire, in epoch millis
+     * @return -1 if the reminder has no notification or no valid date and start time
+     */
+    static long getTriggerAtMillis(Reminder reminder) {
+        if (!reminder.isEnableNotification()) {
+            return -1;
+        }
+        // Date and time are parsed once when the reminder is created
+        int epochDay = reminder.getEpochDay();
+        int startMinute = reminder.getStartMinute();
+        if (epochDay == ReminderDates.INVALID_DAY || startMinute == ReminderDates.INVALID_MINUTE) {
+            return -1;
+        }
+        // Subtract notification minutes
+        return ReminderDates.toEpochMillis(epochDay, startMinute)
+                - Math.min(reminder.getNotificationMinutesBefore(), MAX_MINUTES_BEFORE) * 60_000L;
+    }
+
+    /**
+     * Check if AlarmManager can schedule exact alarms (Android 12+)
+     */
+    static boolean canScheduleExactAlarms(AlarmManager alarmManager) {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms();
+    }
+
+    static void setExact(Context context, AlarmManager alarmManager, String reminderId, ScheduledAlarm alarm) {
+        // Since minSdk is 27 (Android 8.1), setExactAndAllowWhileIdle is always available
+        alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, alarm.triggerAt,
+                createPendingIntent(context, reminderId, alarm.stamp, alarm.payload()));
+    }
+
+    static void cancel(Context context, AlarmManager alarmManager, String reminderId) {
+        // Extras are not part of PendingIntent identity, so the stamp does not matter here
+        alarmManager.cancel(createPendingIntent(context, reminderId, 0, null));
+    }
+
+    static void setChain(Context context, AlarmManager alarmManager, long triggerAtMillis) {
+        alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis,
+                createChainPendingIntent(context));
+    }
+
+    static void cancelChain(Context context, AlarmManager alarmManager) {
+        alarmManager.cancel(createChainPendingIntent(context));
+    }
+
+    private static PendingIntent createChainPendingIntent(Context context) {
+        // The action keeps it apart from the per-reminder intents, whatever their request codes
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(ACTION_CHAINED_ALARM);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static PendingIntent createPendingIntent(Context context, String reminderId, long stamp, String payload) {
+        // Create intent for AlarmReceiver
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        // The id in the data is part of PendingIntent identity, so two reminders never share an alarm
+        // however their request codes collide
+        intent.setData(Uri.fromParts(ALARM_SCHEME, reminderId, null));
+        intent.putExtra(EXTRA_REMINDER_ID, reminderId);
+        intent.putExtra(EXTRA_STAMP, stamp);
+        // The reminder as it was when the alarm was set, so the receiver need not load the store
+        intent.putExtra(EXTRA_REMINDER, payload);
+
+        return PendingIntent.getBroadcast(
+                context,
+                reminderId.hashCode(),
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+}
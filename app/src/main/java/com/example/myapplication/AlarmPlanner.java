@@ -0,0 +1,256 @@
+package com.example.myapplication;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The decisions behind {@link AlarmScheduler}: which reminders need an alarm, which are due when one fires,
+ * and how far chained delivery has got. State comes in as plain values read from the alarm record and the
+ * outcome goes back the same way, so the scheduler is left with reading and writing preferences and talking
+ * to AlarmManager.
+ * Has no Android dependencies, time comes from the given clock.
+ */
+final class AlarmPlanner {
+    private final Clock clock;
+    private final ReminderRepository repository;
+
+    AlarmPlanner(Clock clock, ReminderRepository repository) {
+        this.clock = clock;
+        this.repository = repository;
+    }
+
+    long now() {
+        return clock.millis();
+    }
+
+    /**
+     * The alarms a reconcile pass should leave registered
+     * @param deliveredThrough chained mode: reminders due at or before this time have been delivered
+     * @param delivered reminders already delivered ahead of their time, mapped to that time
+     * @param maxAlarms per-reminder mode registers at most this many alarms
+     */
+    Plan plan(boolean chained, long deliveredThrough, Map<String, Long> delivered, int maxAlarms) {
+        Plan plan = new Plan();
+        if (chained) {
+            // Only the head is armed, so no reminders past it are needed
+            plan.chainAt = chainedQueue(deliveredThrough, delivered, 0).nextTriggerAt();
+            return plan;
+        }
+        long now = clock.millis();
+        List<Reminder> upcoming = upcomingAlarms(repository, ReminderDates.epochDayOf(now), now, delivered,
+                maxAlarms + 1);
+        plan.truncated = upcoming.size() > maxAlarms;
+        for (int i = 0; i < upcoming.size() && i < maxAlarms; i++) {
+            Reminder reminder = upcoming.get(i);
+            plan.alarms.put(reminder.getId(), ScheduledAlarm.of(reminder, AlarmHelper.getTriggerAtMillis(reminder)));
+        }
+        return plan;
+    }
+
+    /**
+     * The chained alarm fired: take everything due within the window from now, earliest first
+     * @param firedReminderId reminder of a per-reminder alarm left over from before the switch, or null
+     */
+    Delivery deliverChained(long deliveredThrough, Map<String, Long> delivered, long window, String firedReminderId) {
+        long now = clock.millis();
+        AlarmQueue queue = chainedQueue(deliveredThrough, delivered, window);
+        List<String> dueIds = queue.pollDue(window);
+        if (firedReminderId != null && !dueIds.contains(firedReminderId)) {
+            dueIds.add(0, firedReminderId);
+        }
+        Delivery delivery = new Delivery(queue.getDeliveredThrough());
+        for (String reminderId : dueIds) {
+            Reminder reminder = repository.getById(reminderId);
+            if (reminder == null) {
+                continue;
+            }
+            delivery.due.add(reminder);
+            long triggerAt = AlarmHelper.getTriggerAtMillis(reminder);
+            if (triggerAt > now) {
+                delivery.early.put(reminderId, triggerAt);
+            }
+        }
+        return delivery;
+    }
+
+    /**
+     * A per-reminder alarm fired: take it, if it is still current, and the recorded alarms due within the window.
+     * Only the fired alarm's reminder comes with its intent, the store is read for the others.
+     * @param record the registered alarms by reminder id
+     * @param firedStamp version stamp carried by the alarm that fired
+     * @param firedPayload reminder carried by the alarm that fired, as JSON, or null
+     */
+    Delivery deliverFired(Map<String, ScheduledAlarm> record, String firedReminderId, long firedStamp,
+                          String firedPayload, long window) {
+        long now = clock.millis();
+        List<Map.Entry<String, ScheduledAlarm>> due = new ArrayList<>();
+        for (Map.Entry<String, ScheduledAlarm> entry : record.entrySet()) {
+            // Older entries belong to alarms that fired on their own
+            long triggerAt = entry.getValue().triggerAt;
+            if (triggerAt > now - window && triggerAt <= now + window && !entry.getKey().equals(firedReminderId)) {
+                due.add(entry);
+            }
+        }
+        Collections.sort(due, (a, b) -> Long.compare(a.getValue().triggerAt, b.getValue().triggerAt));
+
+        Delivery delivery = new Delivery(-1);
+        // Without a matching entry the reminder was completed, deleted or changed since the alarm was set
+        ScheduledAlarm fired = firedReminderId != null ? record.get(firedReminderId) : null;
+        if (fired != null && fired.stamp == firedStamp) {
+            Reminder reminder = ScheduledAlarm.readPayload(firedPayload);
+            if (reminder == null) {
+                reminder = repository.getById(firedReminderId);
+            }
+            if (reminder != null) {
+                delivery.due.add(reminder);
+            }
+            delivery.taken.add(firedReminderId);
+        }
+        for (Map.Entry<String, ScheduledAlarm> entry : due) {
+            Reminder reminder = repository.getById(entry.getKey());
+            if (reminder == null) {
+                continue;
+            }
+            delivery.due.add(reminder);
+            delivery.taken.add(entry.getKey());
+            if (entry.getValue().triggerAt > now) {
+                // Delivered early, its alarm is still pending and must not be set again
+                delivery.early.put(entry.getKey(), entry.getValue().triggerAt);
+            }
+        }
+        return delivery;
+    }
+
+    /**
+     * Queue of the reminders still to be delivered in chained mode, up to the earliest one
+     * and everything due within the window from now
+     */
+    AlarmQueue chainedQueue(long deliveredThrough, Map<String, Long> delivered, long window) {
+        long now = clock.millis();
+        AlarmQueue queue = new AlarmQueue(clock, deliveredThrough);
+        // Start from the day of the last delivery so reminders missed while the alarm was late are kept
+        int fromDay = Math.min(ReminderDates.epochDayOf(deliveredThrough), ReminderDates.epochDayOf(now));
+        for (Reminder reminder : chainedAlarms(repository, fromDay, deliveredThrough, delivered, now + window)) {
+            queue.schedule(reminder.getId(), AlarmHelper.getTriggerAtMillis(reminder));
+        }
+        return queue;
+    }
+
+    /**
+     * Reminders that need an alarm in per-reminder mode, earliest trigger first, at most limit
+     * @param delivered reminders already delivered ahead of their time, mapped to that time
+     */
+    static List<Reminder> upcomingAlarms(ReminderRepository repository, int fromDay, long now,
+                                         Map<String, Long> delivered, int limit) {
+        Predicate<Reminder> pending = reminder -> isPending(reminder, AlarmHelper.getTriggerAtMillis(reminder),
+                now, delivered);
+        // A reminder dated before today fires before now, so only today onwards is needed.
+        // The index is ordered by start time, so the walk stops after the earliest reminders that fit.
+        List<Reminder> upcoming = repository.getActiveFrom(fromDay, pending, limit);
+        if (upcoming.size() >= limit) {
+            // An alarm fires its lead time before the start, so a later reminder with a longer lead
+            // can fire before some of these. The earliest triggers are all at or before the latest one
+            // found so far, a second walk collects every reminder that fires by then.
+            // Leads are capped, so the walk ends on the day that cap after the latest trigger.
+            long latest = 0;
+            for (Reminder reminder : upcoming) {
+                latest = Math.max(latest, AlarmHelper.getTriggerAtMillis(reminder));
+            }
+            long bound = latest;
+            int lastDay = ReminderDates.epochDayOf(latest + AlarmHelper.MAX_MINUTES_BEFORE * 60_000L);
+            upcoming = repository.getActiveFrom(fromDay, lastDay, reminder -> {
+                long triggerAt = AlarmHelper.getTriggerAtMillis(reminder);
+                return triggerAt <= bound && isPending(reminder, triggerAt, now, delivered);
+            }, Integer.MAX_VALUE);
+        }
+        // Each trigger time is worked out once, not on every comparison
+        Map<Reminder, Long> triggers = new IdentityHashMap<>(upcoming.size() * 2);
+        for (Reminder reminder : upcoming) {
+            triggers.put(reminder, AlarmHelper.getTriggerAtMillis(reminder));
+        }
+        upcoming.sort(Comparator.comparingLong((Reminder reminder) -> triggers.get(reminder))
+                .thenComparing(Reminder::getId));
+        return upcoming.size() > limit ? new ArrayList<>(upcoming.subList(0, limit)) : upcoming;
+    }
+
+    /**
+     * Reminders the chained queue needs, in no particular order: the one that fires first after
+     * deliveredThrough, and every other one that fires by then or by until, whichever is later.
+     * Each series adds its first occurrence that is still to be delivered.
+     * @param delivered reminders already delivered ahead of their time, mapped to that time
+     */
+    static List<Reminder> chainedAlarms(ReminderRepository repository, int fromDay, long deliveredThrough,
+                                        Map<String, Long> delivered, long until) {
+        Predicate<Reminder> pending = reminder -> isPending(reminder, AlarmHelper.getTriggerAtMillis(reminder),
+                deliveredThrough, delivered);
+        // The earliest start gives a trigger to beat; the index is ordered by start time, so this stops at once
+        List<Reminder> first = repository.getActiveFrom(fromDay, pending, 1);
+        if (first.isEmpty()) {
+            return first;
+        }
+        long bound = Math.max(AlarmHelper.getTriggerAtMillis(first.get(0)), until);
+        // A reminder that fires by the bound starts at most the longest lead after it
+        int lastDay = ReminderDates.epochDayOf(bound + AlarmHelper.MAX_MINUTES_BEFORE * 60_000L);
+        return repository.getActiveFrom(fromDay, lastDay, reminder -> {
+            long triggerAt = AlarmHelper.getTriggerAtMillis(reminder);
+            return triggerAt <= bound && isPending(reminder, triggerAt, deliveredThrough, delivered);
+        }, Integer.MAX_VALUE);
+    }
+
+    private static boolean isPending(Reminder reminder, long triggerAt, long now, Map<String, Long> delivered) {
+        if (reminder.getId() == null || triggerAt <= now) {
+            return false;
+        }
+        Long deliveredAt = delivered.get(reminder.getId());
+        return deliveredAt == null || deliveredAt != triggerAt;
+    }
+
+    /**
+     * Alarms to keep registered: one per reminder, or the single chained alarm
+     */
+    static final class Plan {
+        // Per-reminder mode, in trigger order so the soonest alarms are registered first
+        final Map<String, ScheduledAlarm> alarms = new LinkedHashMap<>();
+        // Chained mode: time of the head of the queue, or -1 if nothing is left
+        long chainAt = -1;
+        // Some reminders did not fit under the alarm limit
+        boolean truncated;
+    }
+
+    /**
+     * What an alarm hands out and what it leaves behind in the record
+     */
+    static final class Delivery {
+        // The due reminders, earliest first
+        final List<Reminder> due = new ArrayList<>();
+        // Per-reminder mode: record entries that were delivered
+        final List<String> taken = new ArrayList<>();
+        // Reminders delivered before their trigger time, mapped to that time
+        final Map<String, Long> early = new LinkedHashMap<>();
+        // Chained mode: the new delivered position, -1 in per-reminder mode
+        final long deliveredThrough;
+
+        Delivery(long deliveredThrough) {
+            this.deliveredThrough = deliveredThrough;
+        }
+
+        /**
+         * Whether an occurrence of a series was delivered; its series then needs an alarm for the next one
+         */
+        boolean hasOccurrence() {
+            for (Reminder reminder : due) {
+                if (Recurrence.seriesIdOf(reminder.getId()) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.myapplication;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Upcoming reminder fire times, earliest first, for the chained alarm mode.
+ * Only the head is armed with AlarmManager; when it fires, {@link #pollDue(long)} hands out
+ * every reminder due in that window and the new head is armed next.
+ * A queue is filled from the reminder set for one pass and then dropped, so entries are never moved or removed.
+ * Has no Android dependencies, time comes from the given clock.
+ */
+final class AlarmQueue {
+    private final Clock clock;
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+    private long deliveredThrough;
+
+    /**
+     * @param deliveredThrough reminders due at or before this time have already been delivered
+     */
+    AlarmQueue(Clock clock, long deliveredThrough) {
+        this.clock = clock;
+        this.deliveredThrough = deliveredThrough;
+    }
+
+    /**
+     * Add a reminder; each reminder is added once per queue.
+     * Times that have already been delivered are ignored.
+     */
+    void schedule(String reminderId, long triggerAtMillis) {
+        if (reminderId == null || triggerAtMillis <= deliveredThrough) {
+            return;
+        }
+        heap.add(new Entry(triggerAtMillis, reminderId));
+    }
+
+    /**
+     * Time of the earliest queued reminder, or -1 if the queue is empty
+     */
+    long nextTriggerAt() {
+        Entry head = heap.peek();
+        return head != null ? head.triggerAt : -1;
+    }
+
+    /**
+     * Remove and return the reminders due at or before now + windowMillis, earliest first.
+     * Reminders that were missed because the alarm fired late are included.
+     * The delivered position moves to now, never ahead of it: reminders handed out before their
+     * time are not covered by it and have to be noted by the caller.
+     */
+    List<String> pollDue(long windowMillis) {
+        long now = clock.millis();
+        long until = now + windowMillis;
+        List<String> due = new ArrayList<>();
+        Entry head;
+        while ((head = heap.peek()) != null && head.triggerAt <= until) {
+            heap.poll();
+            due.add(head.reminderId);
+        }
+        deliveredThrough = Math.max(deliveredThrough, now);
+        return due;
+    }
+
+    /**
+     * Reminders due at or before this time have been delivered
+     */
+    long getDeliveredThrough() {
+        return deliveredThrough;
+    }
+
+    int size() {
+        return heap.size();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final long triggerAt;
+        final String reminderId;
+
+        Entry(long triggerAt, String reminderId) {
+            this.triggerAt = triggerAt;
+            this.reminderId = reminderId;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(triggerAt, other.triggerAt);
+            return byTime != 0 ? byTime : reminderId.compareTo(other.reminderId);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.example.myapplication;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AlarmReceiver extends BroadcastReceiver {
     private static final String TAG = "AlarmReceiver";
@@ -16,34 +19,50 @@ public class AlarmReceiver extends BroadcastReceiver {
             return;
         }
 
-        String reminderId = intent.getStringExtra("reminder_id");
-        if (reminderId == null || reminderId.isEmpty()) {
-            Log.e(TAG, "Reminder ID is missing");
-            return;
-        }
-
-        // Load reminder from storage
-        ReminderManager reminderManager = new ReminderManager(context);
-        Reminder reminder = null;
-        for (Reminder r : reminderManager.getAllReminders()) {
-            if (r != null && reminderId.equals(r.getId())) {
-                reminder = r;
-                break;
+        long receivedAt = SystemClock.elapsedRealtime();
+        String reminderId = null;
+        long stamp = 0;
+        String payload = null;
+        if (!AlarmHelper.ACTION_CHAINED_ALARM.equals(intent.getAction())) {
+            reminderId = intent.getStringExtra(AlarmHelper.EXTRA_REMINDER_ID);
+            if (reminderId == null || reminderId.isEmpty()) {
+                Log.e(TAG, "Reminder ID is missing");
+                return;
             }
+            stamp = intent.getLongExtra(AlarmHelper.EXTRA_STAMP, 0);
+            payload = intent.getStringExtra(AlarmHelper.EXTRA_REMINDER);
         }
+        deliver(context.getApplicationContext(), reminderId, stamp, payload, receivedAt);
+    }
 
-        if (reminder == null) {
-            Log.e(TAG, "Reminder not found: " + reminderId);
-            return;
-        }
-
-        // Check if reminder is still active
-        if (reminder.isCompleted() || reminder.isDeleted()) {
-            return;
-        }
-
-        // Show notification
-        NotificationHelper.showReminderNotification(context, reminder);
+    /**
+     * Show every reminder due in the window of the alarm that fired, as one notification group
+     * @param reminderId reminder of the alarm that fired, or null for the chained alarm
+     * @param stamp version stamp the alarm was set with, checked against the alarm record
+     * @param payload the reminder as JSON when the alarm was set, or null
+     */
+    private void deliver(Context context, String reminderId, long stamp, String payload, long receivedAt) {
+        // The alarm record is read on the repository thread, keep the receiver alive until that is done
+        PendingResult pendingResult = goAsync();
+        ReminderRepository.getInstance(context).getExecutor().execute(() -> {
+            try {
+                List<Reminder> due = AlarmScheduler.deliverDue(context, reminderId, stamp, payload);
+                List<Reminder> active = new ArrayList<>(due.size());
+                for (Reminder reminder : due) {
+                    // Check if reminder is still active
+                    if (!reminder.isCompleted() && !reminder.isDeleted()) {
+                        active.add(reminder);
+                    }
+                }
+                if (!active.isEmpty()) {
+                    NotificationHelper.showReminderNotifications(context, active);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to deliver reminders", e);
+            } finally {
+                pendingResult.finish();
+                Log.d(TAG, "Alarm handled in " + (SystemClock.elapsedRealtime() - receivedAt) + " ms");
+            }
+        });
     }
 }
-
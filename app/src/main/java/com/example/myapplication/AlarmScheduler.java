@@ -0,0 +1,428 @@
+package com.example.myapplication;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.provider.Settings;
+import android.util.Log;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the alarms registered with AlarmManager in line with the reminder set.
+ * A record of what has been scheduled (reminder id and trigger time) is kept in preferences,
+ * so {@link #reconcile(Context)} only sets or cancels the alarms that differ from it.
+ * Alarms do not survive a reboot, so the record is dropped when the boot count changes.
+ * <p>
+ * In chained mode a single alarm is armed for the earliest upcoming reminder instead of one
+ * per reminder; when it fires, {@link #deliverDue(Context, String, long, String)} returns everything due
+ * and arms the next one.
+ * In both modes reminders due within the delivery window of the alarm that fired are delivered
+ * together, so a busy minute wakes the device once. Those delivered ahead of their time are noted
+ * with the trigger time they had, and no alarm is set for them again unless that time changes.
+ * Per-reminder mode registers only the earliest {@value #MAX_SCHEDULED_ALARMS} alarms.
+ * <p>
+ * What to arm and what is due is worked out by {@link AlarmPlanner}; this class reads and writes the record
+ * and registers the alarms.
+ */
+public class AlarmScheduler {
+    private static final String TAG = "AlarmScheduler";
+    private static final String PREFS_NAME = "alarm_schedule";
+    private static final String KEY_BOOT_COUNT = "boot_count";
+    private static final String KEY_ALARM_PREFIX = "alarm:";
+    private static final String KEY_CHAINED_MODE = "chained_mode";
+    private static final String KEY_CHAIN_AT = "chain_at";
+    // Chained mode: time of the last delivery, reminders due before it have been handled
+    private static final String KEY_DELIVERED_THROUGH = "delivered_through";
+    // Reminders delivered before their trigger time, mapped to that time
+    private static final String KEY_DELIVERED_PREFIX = "delivered:";
+    private static final String KEY_DELIVERY_WINDOW = "delivery_window";
+    private static final String KEY_TRUNCATED = "truncated";
+    private static final int UNKNOWN_BOOT_COUNT = -1;
+    // Reminders due this soon after an alarm fires are delivered with it, unless the user chose otherwise
+    private static final long DEFAULT_DELIVERY_WINDOW_MILLIS = 60_000L;
+    // A longer window would show reminders well ahead of their time
+    private static final long MAX_DELIVERY_WINDOW_MILLIS = 15 * 60_000L;
+    // Android 12+ refuses more than 500 pending alarms per app, later reminders are armed as earlier ones fire
+    private static final int MAX_SCHEDULED_ALARMS = 400;
+    // The record is saved after every batch, so a pass cut short keeps what it already registered
+    private static final int SET_BATCH_SIZE = 100;
+
+    private static final Clock CLOCK = Clock.systemDefaultZone();
+
+    // The boot count cannot change while the process is alive
+    private static Integer bootCount;
+
+    /**
+     * Bring the registered alarms in line with the stored reminders, on the repository thread
+     */
+    public static void reconcile(Context context) {
+        reconcile(context, (Runnable) null);
+    }
+
+    /**
+     * Same as {@link #reconcile(Context)}, onComplete runs on the repository thread when the pass is over
+     */
+    public static void reconcile(Context context, Runnable onComplete) {
+        if (context == null) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        ReminderRepository repository = ReminderRepository.getInstance(appContext);
+        repository.getExecutor().execute(() -> {
+            try {
+                reconcile(appContext, repository);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to reconcile alarms", e);
+            }
+            if (onComplete != null) {
+                onComplete.run();
+            }
+        });
+    }
+
+    /**
+     * The wall clock or the time zone changed.
+     * Trigger times in the new zone no longer match their stamps, so the next reconcile moves those alarms;
+     * the delivery position is pulled back in case the clock went backwards.
+     */
+    static synchronized void onClockChanged(Context context) {
+        SharedPreferences prefs = getPrefs(context);
+        long now = CLOCK.millis();
+        if (prefs.getLong(KEY_DELIVERED_THROUGH, 0) > now) {
+            prefs.edit().putLong(KEY_DELIVERED_THROUGH, now).apply();
+        }
+    }
+
+    public static boolean isChainedMode(Context context) {
+        return getPrefs(context).getBoolean(KEY_CHAINED_MODE, false);
+    }
+
+    /**
+     * Switch between one alarm per reminder and a single chained alarm, as chosen in the alarm settings.
+     * Per-reminder mode is the default. The switch and the reconcile that cancels the alarms of the
+     * previous mode run on the repository thread, so the caller never waits for a pass in progress.
+     */
+    public static void setChainedMode(Context context, boolean enabled) {
+        if (context == null) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        ReminderRepository repository = ReminderRepository.getInstance(appContext);
+        repository.getExecutor().execute(() -> {
+            try {
+                synchronized (AlarmScheduler.class) {
+                    SharedPreferences prefs = getPrefs(appContext);
+                    if (prefs.getBoolean(KEY_CHAINED_MODE, false) == enabled) {
+                        return;
+                    }
+                    SharedPreferences.Editor editor = prefs.edit().putBoolean(KEY_CHAINED_MODE, enabled);
+                    if (enabled) {
+                        // Reminders that were due before the switch were handled by their own alarms
+                        editor.putLong(KEY_DELIVERED_THROUGH, CLOCK.millis());
+                    }
+                    editor.apply();
+                    reconcile(appContext, repository);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to switch alarm mode", e);
+            }
+        });
+    }
+
+    public static long getDeliveryWindowMillis(Context context) {
+        return getDeliveryWindowMillis(getPrefs(context));
+    }
+
+    /**
+     * How far ahead of a firing alarm other reminders are delivered with it, as chosen in the alarm settings.
+     * Read when an alarm fires, so no alarm needs to be moved.
+     */
+    public static void setDeliveryWindowMillis(Context context, long windowMillis) {
+        if (context == null || windowMillis < 0 || windowMillis > MAX_DELIVERY_WINDOW_MILLIS) {
+            return;
+        }
+        getPrefs(context).edit().putLong(KEY_DELIVERY_WINDOW, windowMillis).apply();
+    }
+
+    private static long getDeliveryWindowMillis(SharedPreferences prefs) {
+        long window = prefs.getLong(KEY_DELIVERY_WINDOW, DEFAULT_DELIVERY_WINDOW_MILLIS);
+        return Math.max(0, Math.min(window, MAX_DELIVERY_WINDOW_MILLIS));
+    }
+
+    /**
+     * Take the reminders due now, in chained mode, arm the alarm for the next one.
+     * Alarms of reminders delivered early are cancelled so they do not wake the device again.
+     * Must be called on the repository thread.
+     * In per-reminder mode the fired reminder comes with its alarm intent, so the store is only read
+     * when other reminders share its window or the record cannot be trusted.
+     * @param firedReminderId reminder of the per-reminder alarm that fired, or null for the chained alarm
+     * @param firedStamp version stamp carried by the alarm that fired
+     * @param firedPayload reminder carried by the alarm that fired, as JSON, or null
+     * @return the due reminders, earliest first
+     */
+    static List<Reminder> deliverDue(Context context, String firedReminderId, long firedStamp, String firedPayload) {
+        ReminderRepository repository = ReminderRepository.getInstance(context);
+        AlarmPlanner planner = new AlarmPlanner(CLOCK, repository);
+        synchronized (AlarmScheduler.class) {
+            SharedPreferences prefs = getPrefs(context);
+            long window = getDeliveryWindowMillis(prefs);
+            if (prefs.getBoolean(KEY_CHAINED_MODE, false)) {
+                AlarmPlanner.Delivery delivery = planner.deliverChained(
+                        prefs.getLong(KEY_DELIVERED_THROUGH, planner.now()), readDelivered(prefs.getAll()),
+                        window, firedReminderId);
+                SharedPreferences.Editor editor = prefs.edit()
+                        .putLong(KEY_DELIVERED_THROUGH, delivery.deliveredThrough);
+                noteEarly(editor, delivery);
+                if (firedReminderId == null) {
+                    // The fired alarm is gone, so the next one has to be armed even if its time matches
+                    editor.remove(KEY_CHAIN_AT);
+                }
+                editor.apply();
+                reconcile(context, repository);
+                return delivery.due;
+            }
+            if (!isRecordCurrent(context, prefs)) {
+                Reminder fired = firedReminderId != null ? repository.getById(firedReminderId) : null;
+                return fired != null ? new ArrayList<>(Collections.singletonList(fired)) : new ArrayList<>();
+            }
+            AlarmPlanner.Delivery delivery = planner.deliverFired(readRecord(prefs.getAll()), firedReminderId,
+                    firedStamp, firedPayload, window);
+            SharedPreferences.Editor editor = prefs.edit();
+            for (String reminderId : delivery.taken) {
+                editor.remove(KEY_ALARM_PREFIX + reminderId);
+            }
+            noteEarly(editor, delivery);
+            editor.apply();
+            if (!delivery.early.isEmpty()) {
+                // Their alarms are still pending, so they would wake the device again
+                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+                if (alarmManager != null) {
+                    for (String reminderId : delivery.early.keySet()) {
+                        AlarmHelper.cancel(context, alarmManager, reminderId);
+                    }
+                }
+            }
+            if (prefs.getBoolean(KEY_TRUNCATED, false) || delivery.hasOccurrence()) {
+                // Room was freed for reminders that did not fit under the alarm limit,
+                // or a series needs the alarm for its next occurrence
+                reconcile(context, repository);
+            }
+            return delivery.due;
+        }
+    }
+
+    /**
+     * Note the reminders delivered ahead of their time, so no alarm is set for them again unless that time changes
+     */
+    private static void noteEarly(SharedPreferences.Editor editor, AlarmPlanner.Delivery delivery) {
+        for (Map.Entry<String, Long> entry : delivery.early.entrySet()) {
+            editor.putLong(KEY_DELIVERED_PREFIX + entry.getKey(), entry.getValue());
+        }
+    }
+
+    static synchronized void reconcile(Context context, ReminderRepository repository) {
+        AlarmPlanner planner = new AlarmPlanner(CLOCK, repository);
+        long now = planner.now();
+        SharedPreferences prefs = getPrefs(context);
+        // Every scan below works on this one copy of the preferences
+        Map<String, ?> values = prefs.getAll();
+        AlarmPlanner.Plan plan = planner.plan(prefs.getBoolean(KEY_CHAINED_MODE, false),
+                prefs.getLong(KEY_DELIVERED_THROUGH, now), readDelivered(values), MAX_SCHEDULED_ALARMS);
+        Map<String, ScheduledAlarm> desired = plan.alarms;
+        long desiredChainAt = plan.chainAt;
+
+        SharedPreferences.Editor editor = prefs.edit();
+        boolean changed = removeDeliveredBefore(values, editor, now);
+        if (prefs.getBoolean(KEY_TRUNCATED, false) != plan.truncated) {
+            editor.putBoolean(KEY_TRUNCATED, plan.truncated);
+            changed = true;
+        }
+        Map<String, ScheduledAlarm> scheduled;
+        long scheduledChainAt;
+        if (isRecordCurrent(context, prefs)) {
+            scheduled = readRecord(values);
+            scheduledChainAt = prefs.getLong(KEY_CHAIN_AT, -1);
+        } else {
+            scheduled = new HashMap<>();
+            scheduledChainAt = -1;
+            startNewRecord(context, values, editor);
+            changed = true;
+        }
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager is null");
+            return;
+        }
+
+        int cancelled = 0;
+        for (Map.Entry<String, ScheduledAlarm> entry : scheduled.entrySet()) {
+            String reminderId = entry.getKey();
+            if (desired.containsKey(reminderId)) {
+                continue;
+            }
+            // An alarm whose time has passed has already fired, only the record needs cleaning up
+            if (entry.getValue().triggerAt > now) {
+                AlarmHelper.cancel(context, alarmManager, reminderId);
+                cancelled++;
+            }
+            editor.remove(KEY_ALARM_PREFIX + reminderId);
+            changed = true;
+        }
+        if (desiredChainAt < 0 && scheduledChainAt >= 0) {
+            AlarmHelper.cancelChain(context, alarmManager);
+            editor.remove(KEY_CHAIN_AT);
+            cancelled++;
+            changed = true;
+        }
+
+        // A changed stamp means a new time or new text, either way the alarm intent is replaced
+        List<Map.Entry<String, ScheduledAlarm>> toSet = new ArrayList<>();
+        for (Map.Entry<String, ScheduledAlarm> entry : desired.entrySet()) {
+            ScheduledAlarm current = scheduled.get(entry.getKey());
+            if (current == null || current.stamp != entry.getValue().stamp) {
+                toSet.add(entry);
+            }
+        }
+        boolean armChain = desiredChainAt >= 0 && desiredChainAt != scheduledChainAt;
+
+        int set = 0;
+        if (!toSet.isEmpty() || armChain) {
+            // Checked once per pass, and only if there is something to set
+            if (AlarmHelper.canScheduleExactAlarms(alarmManager)) {
+                for (Map.Entry<String, ScheduledAlarm> entry : toSet) {
+                    ScheduledAlarm alarm = entry.getValue();
+                    AlarmHelper.setExact(context, alarmManager, entry.getKey(), alarm);
+                    editor.putString(KEY_ALARM_PREFIX + entry.getKey(), alarm.encode());
+                    set++;
+                    if (set % SET_BATCH_SIZE == 0) {
+                        editor.apply();
+                        editor = prefs.edit();
+                    }
+                }
+                if (armChain) {
+                    // A time already in the past fires right away and delivers what was missed
+                    AlarmHelper.setChain(context, alarmManager, desiredChainAt);
+                    editor.putLong(KEY_CHAIN_AT, desiredChainAt);
+                    set++;
+                }
+                changed |= set > 0;
+            } else {
+                Log.e(TAG, "Cannot schedule exact alarms. User needs to grant permission in settings.");
+            }
+        }
+
+        if (changed) {
+            editor.apply();
+        }
+        if (set > 0 || cancelled > 0) {
+            Log.d(TAG, "Reconciled alarms: " + set + " set, " + cancelled + " cancelled");
+        }
+    }
+
+    /**
+     * Note an alarm registered outside of {@link #reconcile(Context)}.
+     * Callers are on the repository thread, the same one reconcile runs on, so the lock is not contended.
+     */
+    static synchronized void recordScheduled(Context context, String reminderId, ScheduledAlarm alarm) {
+        SharedPreferences prefs = getPrefs(context);
+        SharedPreferences.Editor editor = prefs.edit();
+        if (!isRecordCurrent(context, prefs)) {
+            startNewRecord(context, prefs.getAll(), editor);
+        }
+        editor.putString(KEY_ALARM_PREFIX + reminderId, alarm.encode()).apply();
+    }
+
+    /**
+     * Whether the reminder was already delivered ahead of this trigger time; such an alarm is not set again
+     */
+    static synchronized boolean isDelivered(Context context, String reminderId, long triggerAtMillis) {
+        return getPrefs(context).getLong(KEY_DELIVERED_PREFIX + reminderId, -1) == triggerAtMillis;
+    }
+
+    private static Map<String, Long> readDelivered(Map<String, ?> values) {
+        Map<String, Long> delivered = new HashMap<>();
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(KEY_DELIVERED_PREFIX) && entry.getValue() instanceof Long) {
+                delivered.put(entry.getKey().substring(KEY_DELIVERED_PREFIX.length()), (Long) entry.getValue());
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Drop the notes of early deliveries whose trigger time has passed
+     * @return true if any were removed
+     */
+    private static boolean removeDeliveredBefore(Map<String, ?> values, SharedPreferences.Editor editor, long now) {
+        boolean removed = false;
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(KEY_DELIVERED_PREFIX)
+                    && (!(entry.getValue() instanceof Long) || (Long) entry.getValue() <= now)) {
+                editor.remove(entry.getKey());
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Note an alarm cancelled outside of {@link #reconcile(Context)}
+     */
+    static synchronized void recordCancelled(Context context, String reminderId) {
+        SharedPreferences prefs = getPrefs(context);
+        if (prefs.contains(KEY_ALARM_PREFIX + reminderId)) {
+            prefs.edit().remove(KEY_ALARM_PREFIX + reminderId).apply();
+        }
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static boolean isRecordCurrent(Context context, SharedPreferences prefs) {
+        int current = getBootCount(context);
+        // Without a boot count there is no way to tell whether the alarms are still registered
+        return current != UNKNOWN_BOOT_COUNT && prefs.getInt(KEY_BOOT_COUNT, UNKNOWN_BOOT_COUNT) == current;
+    }
+
+    /**
+     * Forget every recorded alarm; the mode, the chained delivery position and the early deliveries are kept
+     */
+    private static void startNewRecord(Context context, Map<String, ?> values, SharedPreferences.Editor editor) {
+        for (String key : values.keySet()) {
+            if (key.startsWith(KEY_ALARM_PREFIX)) {
+                editor.remove(key);
+            }
+        }
+        editor.remove(KEY_CHAIN_AT);
+        editor.putInt(KEY_BOOT_COUNT, getBootCount(context));
+    }
+
+    private static Map<String, ScheduledAlarm> readRecord(Map<String, ?> values) {
+        Map<String, ScheduledAlarm> record = new HashMap<>();
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (!entry.getKey().startsWith(KEY_ALARM_PREFIX)) {
+                continue;
+            }
+            ScheduledAlarm alarm = ScheduledAlarm.decode(entry.getValue());
+            if (alarm != null) {
+                record.put(entry.getKey().substring(KEY_ALARM_PREFIX.length()), alarm);
+            }
+        }
+        return record;
+    }
+
+    private static int getBootCount(Context context) {
+        if (bootCount == null) {
+            bootCount = Settings.Global.getInt(context.getContentResolver(),
+                    Settings.Global.BOOT_COUNT, UNKNOWN_BOOT_COUNT);
+        }
+        return bootCount;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.myapplication;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Shared main-thread clock for on-screen times.
+ * Ticks land just after wall-clock second or minute boundaries, and only as often as the finest
+ * subscriber needs; with only minute subscribers that is one wakeup a minute instead of sixty.
+ * Subscriptions follow their lifecycle: ticking while started, stopped when stopped, gone when destroyed.
+ * One {@link Tick} is reused for every delivery, so a tick allocates nothing.
+ */
+final class ClockTicker {
+    private static final long SECOND_MILLIS = 1000;
+    private static final long MINUTE_MILLIS = 60 * SECOND_MILLIS;
+    private static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+    // Land a little after the boundary, a tick at x:59.999 would show the old minute
+    private static final long BOUNDARY_SLACK_MILLIS = 20;
+
+    private static final ClockTicker INSTANCE = new ClockTicker();
+
+    enum Precision {
+        SECOND(SECOND_MILLIS),
+        MINUTE(MINUTE_MILLIS);
+
+        final long unitMillis;
+
+        Precision(long unitMillis) {
+            this.unitMillis = unitMillis;
+        }
+    }
+
+    interface Listener {
+        /**
+         * Called on the main thread; the tick is reused, read it during the call only
+         */
+        void onTick(Tick tick);
+    }
+
+    /**
+     * Local wall-clock time of a tick
+     */
+    static final class Tick {
+        long nowMillis;
+        int epochDay;
+        int minuteOfDay;
+        int second;
+        private long localMillis;
+
+        private void set(long nowMillis, int offsetMillis) {
+            this.nowMillis = nowMillis;
+            long local = nowMillis + offsetMillis;
+            localMillis = local;
+            epochDay = (int) Math.floorDiv(local, DAY_MILLIS);
+            long millisOfDay = Math.floorMod(local, DAY_MILLIS);
+            minuteOfDay = (int) (millisOfDay / MINUTE_MILLIS);
+            second = (int) (millisOfDay / SECOND_MILLIS % 60);
+        }
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Subscription> active = new ArrayList<>();
+    private final Tick tick = new Tick();
+    private final Runnable tickRunnable = this::onTick;
+    // Refreshed once a minute, picks up time zone changes without a clone per tick
+    private TimeZone zone = TimeZone.getDefault();
+    private long zoneCheckedMinute = Long.MIN_VALUE;
+
+    private final class Subscription implements DefaultLifecycleObserver {
+        final Precision precision;
+        final Listener listener;
+        // Last second or minute delivered, so minute subscribers skip the ticks in between
+        long lastUnit = Long.MIN_VALUE;
+
+        Subscription(Precision precision, Listener listener) {
+            this.precision = precision;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onStart(@NonNull LifecycleOwner owner) {
+            lastUnit = Long.MIN_VALUE;
+            active.add(this);
+            // Show the current time right away, then follow the boundaries
+            deliver(this, now());
+            reschedule();
+        }
+
+        @Override
+        public void onStop(@NonNull LifecycleOwner owner) {
+            active.remove(this);
+            reschedule();
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            owner.getLifecycle().removeObserver(this);
+        }
+    }
+
+    private ClockTicker() {
+    }
+
+    static ClockTicker get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Deliver ticks at the given precision to listener while owner is started; must be called on the main thread
+     */
+    void subscribe(LifecycleOwner owner, Precision precision, Listener listener) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        lifecycle.addObserver(new Subscription(precision, listener));
+    }
+
+    /**
+     * Append the tick's time as HH:mm or HH:mm:ss, without formatter or string allocations
+     */
+    static void appendTime(StringBuilder out, Tick tick, boolean withSeconds) {
+        appendTwoDigits(out, tick.minuteOfDay / 60);
+        out.append(':');
+        appendTwoDigits(out, tick.minuteOfDay % 60);
+        if (withSeconds) {
+            out.append(':');
+            appendTwoDigits(out, tick.second);
+        }
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private void onTick() {
+        Tick current = now();
+        // Walk backwards by index: no iterator, and a listener that stops its own lifecycle is harmless
+        for (int i = active.size() - 1; i >= 0; i--) {
+            if (i < active.size()) {
+                deliver(active.get(i), current);
+            }
+        }
+        reschedule();
+    }
+
+    private void deliver(Subscription subscription, Tick current) {
+        long unit = Math.floorDiv(current.localMillis, subscription.precision.unitMillis);
+        if (unit == subscription.lastUnit) {
+            return;
+        }
+        subscription.lastUnit = unit;
+        subscription.listener.onTick(current);
+    }
+
+    private Tick now() {
+        long nowMillis = System.currentTimeMillis();
+        long minute = Math.floorDiv(nowMillis, MINUTE_MILLIS);
+        if (minute != zoneCheckedMinute) {
+            zone = TimeZone.getDefault();
+            zoneCheckedMinute = minute;
+        }
+        tick.set(nowMillis, zone.getOffset(nowMillis));
+        return tick;
+    }
+
+    private void reschedule() {
+        handler.removeCallbacks(tickRunnable);
+        if (active.isEmpty()) {
+            return;
+        }
+        long unitMillis = MINUTE_MILLIS;
+        for (int i = 0; i < active.size(); i++) {
+            unitMillis = Math.min(unitMillis, active.get(i).precision.unitMillis);
+        }
+        long delay = unitMillis - Math.floorMod(now().localMillis, unitMillis) + BOUNDARY_SLACK_MILLIS;
+        handler.postAtTime(tickRunnable, SystemClock.uptimeMillis() + delay);
+    }
+}
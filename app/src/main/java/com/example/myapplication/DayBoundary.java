@@ -0,0 +1,69 @@
+package com.example.myapplication;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * Moves "today" forward at local midnight and when the clock or time zone changes.
+ * One non-wakeup alarm is kept at the next midnight; when the day moves, the widgets are refreshed once.
+ * Screens that are showing follow the day through {@link ClockTicker}. The active index needs no work:
+ * its today partition is a range view chosen by day at query time.
+ */
+final class DayBoundary {
+    private static final String TAG = "DayBoundary";
+    static final String ACTION_DAY_CHANGED = "com.example.myapplication.ACTION_DAY_CHANGED";
+    // Non-wakeup, so a short window lets the system batch it with other alarms
+    private static final long WINDOW_MILLIS = 60 * 1000;
+    // Unknown in a fresh process, so the first check always refreshes (cheap when nothing is stale)
+    private static volatile int lastKnownDay = ReminderDates.INVALID_DAY;
+
+    private DayBoundary() {
+    }
+
+    /**
+     * Arm the alarm for the next local midnight, replacing any earlier one
+     */
+    static void schedule(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        long nextMidnight = ReminderDates.toEpochMillis(ReminderDates.todayEpochDay() + 1, 0);
+        try {
+            alarmManager.setWindow(AlarmManager.RTC, nextMidnight, WINDOW_MILLIS, createPendingIntent(context));
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to schedule day boundary alarm", e);
+        }
+    }
+
+    /**
+     * Check whether the day moved, refresh what depends on it and re-arm the alarm.
+     * @param onComplete run on the repository thread once the widgets are refreshed, may be null
+     */
+    static void update(Context context, Runnable onComplete) {
+        Context appContext = context.getApplicationContext();
+        schedule(appContext);
+
+        int today = ReminderDates.todayEpochDay();
+        if (today == lastKnownDay) {
+            if (onComplete != null) {
+                onComplete.run();
+            }
+            return;
+        }
+        lastKnownDay = today;
+        Log.d(TAG, "Day changed to " + ReminderDates.formatEpochDay(today));
+        // Widget snapshots from another day are rebuilt, each widget is told once
+        ReminderChangeBus.refreshNow(appContext, onComplete);
+    }
+
+    private static PendingIntent createPendingIntent(Context context) {
+        Intent intent = new Intent(context, RescheduleReceiver.class);
+        intent.setAction(ACTION_DAY_CHANGED);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
@@ -1,21 +1,20 @@
 package com.example.myapplication;
 
+import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import androidx.appcompat.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.CalendarView;
 import android.widget.LinearLayout;
+import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
@@ -27,22 +26,34 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.android.material.textfield.TextInputEditText;
-import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
     private static final int PERMISSION_REQUEST_CODE = 1001;
+    private static final int DUE_SOON_MINUTES = 60;
+    // Choices of the repeat picker, in the order of repeatLabels()
+    private static final int REPEAT_NEVER = 0;
+    private static final int REPEAT_DAILY = 1;
+    private static final int REPEAT_WEEKDAYS = 2;
+    private static final int REPEAT_WEEKLY = 3;
+    private static final int REPEAT_MONTHLY = 4;
+    private static final int REPEAT_CUSTOM = 5;
+    private static final int MAX_REPEAT_INTERVAL = 99;
     private CalendarView calendarView;
     private TextView selectedDateText;
     private TextView currentDateTimeDisplay;
@@ -53,16 +64,16 @@ public class MainActivity extends AppCompatActivity {
     private MaterialButton viewRemindersButton;
     private ReminderManager reminderManager;
     private String selectedDate;
-    private SimpleDateFormat dateFormat;
-    private SimpleDateFormat timeFormat;
-    private SimpleDateFormat displayDateFormat;
-    private SimpleDateFormat indicatorDateFormat;
-    private SimpleDateFormat currentDateTimeFormat;
-    private SimpleDateFormat monthFormat; // Cache month format to avoid repeated creation
-    private android.os.Handler timeHandler;
-    private Runnable timeRunnable;
+    private TextView dueSoonText;
     private String todayDate;
     private String[] notificationDisplayOptions; // Cache notification display options
+    // Clock line is rebuilt in place each minute; the date part only changes with the day
+    private final StringBuilder clockText = new StringBuilder(32);
+    private int clockDay = ReminderDates.INVALID_DAY;
+    private String clockDatePrefix = "";
+    private int clockMinute;
+    private List<Reminder> todayReminders = Collections.emptyList();
+    private String dueSoonShownFor;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -84,6 +95,14 @@ public class MainActivity extends AppCompatActivity {
                     );
                     return insets;
                 });
+                toolbar.inflateMenu(R.menu.menu_main);
+                toolbar.setOnMenuItemClickListener(item -> {
+                    if (item.getItemId() == R.id.action_alarm_settings) {
+                        showAlarmSettingsDialog();
+                        return true;
+                    }
+                    return false;
+                });
             }
             
             View mainView = findViewById(R.id.main);
@@ -121,6 +140,7 @@ public class MainActivity extends AppCompatActivity {
         calendarView = findViewById(R.id.calendarView);
         selectedDateText = findViewById(R.id.selectedDateText);
         currentDateTimeDisplay = findViewById(R.id.currentDateTimeDisplay);
+        dueSoonText = findViewById(R.id.dueSoonText);
         reminderIndicatorText = findViewById(R.id.reminderIndicatorText);
         yearText = findViewById(R.id.yearText);
         monthText = findViewById(R.id.monthText);
@@ -131,12 +151,6 @@ public class MainActivity extends AppCompatActivity {
 
     private void initData() {
         reminderManager = new ReminderManager(this);
-        dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault()); // Display seconds
-        displayDateFormat = new SimpleDateFormat("EEEE, MMMM dd, yyyy", Locale.ENGLISH);
-        indicatorDateFormat = new SimpleDateFormat("MMM dd", Locale.ENGLISH);
-        currentDateTimeFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.ENGLISH);
-        monthFormat = new SimpleDateFormat("MMM", Locale.ENGLISH); // Cache month format
         
         // Pre-build notification display options to avoid repeated String.format calls
         notificationDisplayOptions = new String[]{
@@ -147,8 +161,7 @@ public class MainActivity extends AppCompatActivity {
             String.format(Locale.getDefault(), getString(R.string.minutes_before_hint), "30"),
             String.format(Locale.getDefault(), getString(R.string.minutes_before_hint), "60")
         };
-        Date today = new Date();
-        selectedDate = dateFormat.format(today);
+        selectedDate = ReminderDates.formatEpochDay(ReminderDates.todayEpochDay());
         todayDate = selectedDate;
         updateSelectedDateText();
         
@@ -159,7 +172,8 @@ public class MainActivity extends AppCompatActivity {
         
         updateYearText();
         updateMonthText();
-        startTimeUpdates();
+        // Minutes are enough for the clock line, due-soon and midnight; the ticker stops with the activity
+        ClockTicker.get().subscribe(this, ClockTicker.Precision.MINUTE, this::onClockTick);
     }
 
 
@@ -179,12 +193,12 @@ public class MainActivity extends AppCompatActivity {
             calendarView.setMinDate(oneYearAgo.getTimeInMillis());
             
             calendarView.setOnDateChangeListener((view, year, month, dayOfMonth) -> {
-                String selectedDateStr = String.format(Locale.getDefault(), "%04d-%02d-%02d", year, month + 1, dayOfMonth);
+                String selectedDateStr = ReminderDates.formatDate(year, month + 1, dayOfMonth);
                 
                 if (isDateInPast(selectedDateStr)) {
                     Toast.makeText(MainActivity.this, getString(R.string.cannot_select_past_dates), Toast.LENGTH_SHORT).show();
-                    calendarView.setDate(today.getTimeInMillis(), false, true);
-                    selectedDate = dateFormat.format(today.getTime());
+                    highlightToday();
+                    selectedDate = todayDate;
                 } else {
                     selectedDate = selectedDateStr;
                 }
@@ -238,17 +252,13 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void updateSelectedDateText() {
-        if (selectedDateText == null || selectedDate == null || displayDateFormat == null) {
+        if (selectedDateText == null || selectedDate == null) {
             return;
         }
-        try {
-            Date date = dateFormat.parse(selectedDate);
-            if (date != null) {
-                selectedDateText.setText(displayDateFormat.format(date));
-            } else {
-                selectedDateText.setText(selectedDate);
-            }
-        } catch (Exception e) {
+        int day = ReminderDates.parseEpochDay(selectedDate);
+        if (day != ReminderDates.INVALID_DAY) {
+            selectedDateText.setText(ReminderDates.formatDay(day, ReminderDates.DayStyle.FULL, Locale.ENGLISH));
+        } else {
             selectedDateText.setText(selectedDate);
         }
     }
@@ -267,9 +277,38 @@ public class MainActivity extends AppCompatActivity {
         SwitchMaterial notificationSwitch = dialogView.findViewById(R.id.notificationSwitch);
         LinearLayout notificationTimeLayout = dialogView.findViewById(R.id.notificationTimeLayout);
         TextInputEditText notificationTimeEdit = dialogView.findViewById(R.id.notificationTimeEdit);
+        View repeatLayout = dialogView.findViewById(R.id.repeatLayout);
+        TextInputEditText repeatEdit = dialogView.findViewById(R.id.repeatEdit);
 
         final Reminder finalReminder = reminder;
         boolean isEdit = finalReminder != null;
+        // Selected repeat choice; a new reminder can become a series, an edit changes one reminder or occurrence
+        int[] repeatChoice = {REPEAT_NEVER};
+        // Rule set up in the custom repeat dialog, kept so it opens with it again
+        Recurrence[] customRule = {null};
+        if (!isEdit && repeatLayout != null && repeatEdit != null) {
+            repeatLayout.setVisibility(View.VISIBLE);
+            String[] repeatLabels = repeatLabels();
+            repeatEdit.setText(repeatLabels[REPEAT_NEVER]);
+            repeatEdit.setOnClickListener(v -> new MaterialAlertDialogBuilder(this)
+                    .setTitle(getString(R.string.repeat))
+                    .setSingleChoiceItems(repeatLabels, repeatChoice[0], (choiceDialog, which) -> {
+                        choiceDialog.dismiss();
+                        if (which == REPEAT_CUSTOM) {
+                            int startDay = ReminderDates.parseEpochDay(selectedDate);
+                            showCustomRepeatDialog(startDay, customRule[0], rule -> {
+                                customRule[0] = rule;
+                                repeatChoice[0] = REPEAT_CUSTOM;
+                                repeatEdit.setText(describeRecurrence(rule, startDay));
+                            });
+                            return;
+                        }
+                        repeatChoice[0] = which;
+                        repeatEdit.setText(repeatLabels[which]);
+                    })
+                    .setNegativeButton(getString(R.string.cancel), null)
+                    .show());
+        }
         
         if (dialogTitle != null) {
             dialogTitle.setText(isEdit ? getString(R.string.edit_reminder) : getString(R.string.new_reminder));
@@ -365,43 +404,43 @@ public class MainActivity extends AppCompatActivity {
 
                     Reminder reminderToSave;
                     if (isEdit) {
-                        // Cancel old alarm if exists
-                        if (finalReminder.isEnableNotification()) {
-                            AlarmHelper.cancelAlarm(MainActivity.this, finalReminder);
-                        }
-                        
-                        finalReminder.setTitle(title);
-                        finalReminder.setContent(content);
-                        finalReminder.setStartTime(startTime);
-                        finalReminder.setEndTime(endTime);
-                        finalReminder.setTimestamp(System.currentTimeMillis());
-                        finalReminder.setEnableNotification(enableNotification);
-                        finalReminder.setNotificationMinutesBefore(notificationMinutesBefore);
-                        reminderToSave = finalReminder;
+                        // Edit a copy: finalReminder is the instance the list is showing, and the list's diff
+                        // has to see the old values to rebind the row
+                        reminderToSave = new Reminder(finalReminder);
+                        reminderToSave.setTitle(title);
+                        reminderToSave.setContent(content);
+                        reminderToSave.setStartTime(startTime);
+                        reminderToSave.setEndTime(endTime);
+                        reminderToSave.setTimestamp(System.currentTimeMillis());
+                        reminderToSave.setEnableNotification(enableNotification);
+                        reminderToSave.setNotificationMinutesBefore(notificationMinutesBefore);
                     } else {
                         reminderToSave = new Reminder(UUID.randomUUID().toString(), selectedDate, title, content, startTime, endTime, System.currentTimeMillis());
                         reminderToSave.setEnableNotification(enableNotification);
                         reminderToSave.setNotificationMinutesBefore(notificationMinutesBefore);
+                        reminderToSave.setRecurrence(repeatChoice[0] == REPEAT_CUSTOM
+                                ? customRule[0] : recurrenceFor(repeatChoice[0]));
                     }
                     
-                    reminderManager.saveReminder(reminderToSave);
-                    
-                    // Set alarm if notification is enabled
-                    if (enableNotification && !startTime.isEmpty()) {
-                        boolean alarmSet = AlarmHelper.setAlarm(MainActivity.this, reminderToSave);
-                        if (!alarmSet) {
+                    // The manager replaces any old alarm once the save has been applied in the background,
+                    // then the indicator is refreshed
+                    reminderManager.saveReminderAsync(reminderToSave, alarmSet -> {
+                        if (isFinishing() || isDestroyed()) {
+                            return;
+                        }
+                        if (Boolean.FALSE.equals(alarmSet) && enableNotification && !startTime.isEmpty()) {
                             // Alarm time is in the past
-                            String reminderDateTime = selectedDate + " " + startTime;
+                            String reminderDateTime = reminderToSave.getDate() + " " + startTime;
                             Toast.makeText(MainActivity.this, getString(R.string.reminder_time_past_detail, reminderDateTime), Toast.LENGTH_LONG).show();
                         }
-                    }
+                        updateReminderIndicator();
+                        loadDueSoon();
+                    });
                     
                     // Hide keyboard before dismissing dialog
                     hideKeyboard(dialogView);
                     
                     Toast.makeText(MainActivity.this, getString(R.string.reminder_saved), Toast.LENGTH_SHORT).show();
-                    updateReminderIndicator();
-                    updateWidgets();
                     dialog.dismiss();
                 });
             }
@@ -433,26 +472,193 @@ public class MainActivity extends AppCompatActivity {
         int minute = calendar.get(Calendar.MINUTE);
 
         String currentTime = timeEdit.getText() != null ? timeEdit.getText().toString() : "";
-        if (!currentTime.isEmpty()) {
-            try {
-                String[] parts = currentTime.split(":");
-                if (parts.length == 2) {
-                    hour = Integer.parseInt(parts[0]);
-                    minute = Integer.parseInt(parts[1]);
-                }
-            } catch (Exception e) {
-                // Failed to parse time, using default values
-            }
+        int currentMinute = ReminderDates.parseMinuteOfDay(currentTime);
+        if (currentMinute != ReminderDates.INVALID_MINUTE) {
+            hour = currentMinute / 60;
+            minute = currentMinute % 60;
         }
 
         TimePickerDialog timePickerDialog = new TimePickerDialog(this, (view, hourOfDay, minuteOfHour) -> {
-            String time = String.format(Locale.getDefault(), "%02d:%02d", hourOfDay, minuteOfHour);
+            String time = ReminderDates.formatMinuteOfDay(hourOfDay * 60 + minuteOfHour);
             timeEdit.setText(time);
         }, hour, minute, true);
 
         timePickerDialog.show();
     }
 
+    private String[] repeatLabels() {
+        return new String[]{
+                getString(R.string.repeat_never),
+                getString(R.string.repeat_daily),
+                getString(R.string.repeat_weekdays),
+                getString(R.string.repeat_weekly),
+                getString(R.string.repeat_monthly),
+                getString(R.string.repeat_custom)
+        };
+    }
+
+    /**
+     * Lets the user pick the frequency, interval, weekdays and end of a series starting on startDay
+     * @param rule rule to start from, or null for a weekly one on the start day
+     */
+    private void showCustomRepeatDialog(int startDay, Recurrence rule, Consumer<Recurrence> onSave) {
+        View dialogView = getLayoutInflater().inflate(R.layout.dialog_repeat, null);
+        RadioGroup frequencyGroup = dialogView.findViewById(R.id.repeatFrequencyGroup);
+        TextInputEditText intervalEdit = dialogView.findViewById(R.id.repeatIntervalEdit);
+        TextView weekdaysLabel = dialogView.findViewById(R.id.repeatWeekdaysLabel);
+        ChipGroup weekdaysGroup = dialogView.findViewById(R.id.repeatWeekdaysGroup);
+        RadioGroup endGroup = dialogView.findViewById(R.id.repeatEndGroup);
+        TextView untilDate = dialogView.findViewById(R.id.repeatUntilDate);
+
+        Recurrence.Frequency frequency = rule != null ? rule.getFrequency() : Recurrence.Frequency.WEEKLY;
+        int weekdays = rule != null && rule.getWeekdays() != 0
+                ? rule.getWeekdays() : Recurrence.MONDAY << Recurrence.weekdayOf(startDay);
+        int[] untilDay = {rule != null ? rule.getUntilDay() : ReminderDates.INVALID_DAY};
+
+        frequencyGroup.check(frequency == Recurrence.Frequency.DAILY ? R.id.repeatFrequencyDaily
+                : frequency == Recurrence.Frequency.MONTHLY ? R.id.repeatFrequencyMonthly
+                : R.id.repeatFrequencyWeekly);
+        intervalEdit.setText(String.valueOf(rule != null ? rule.getInterval() : 1));
+
+        // Chips follow the weekday bits, Monday first
+        Locale locale = Locale.getDefault();
+        Chip[] weekdayChips = new Chip[7];
+        for (int i = 0; i < weekdayChips.length; i++) {
+            Chip chip = new Chip(this);
+            chip.setText(DayOfWeek.of(i + 1).getDisplayName(TextStyle.SHORT, locale));
+            chip.setCheckable(true);
+            chip.setChecked((weekdays & (Recurrence.MONDAY << i)) != 0);
+            weekdaysGroup.addView(chip);
+            weekdayChips[i] = chip;
+        }
+        Runnable showWeekdays = () -> {
+            int visibility = frequencyGroup.getCheckedRadioButtonId() == R.id.repeatFrequencyWeekly
+                    ? View.VISIBLE : View.GONE;
+            weekdaysLabel.setVisibility(visibility);
+            weekdaysGroup.setVisibility(visibility);
+        };
+        showWeekdays.run();
+        frequencyGroup.setOnCheckedChangeListener((group, checkedId) -> showWeekdays.run());
+
+        Runnable showUntil = () -> {
+            boolean ends = untilDay[0] != ReminderDates.INVALID_DAY;
+            untilDate.setVisibility(ends ? View.VISIBLE : View.GONE);
+            if (ends) {
+                untilDate.setText(ReminderDates.formatDay(untilDay[0], ReminderDates.DayStyle.MEDIUM, locale));
+            }
+        };
+        endGroup.check(untilDay[0] != ReminderDates.INVALID_DAY ? R.id.repeatEndOn : R.id.repeatEndNever);
+        showUntil.run();
+        Runnable pickUntil = () -> {
+            LocalDate initial = LocalDate.ofEpochDay(untilDay[0] != ReminderDates.INVALID_DAY ? untilDay[0] : startDay);
+            DatePickerDialog picker = new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+                untilDay[0] = Math.max(startDay, (int) LocalDate.of(year, month + 1, dayOfMonth).toEpochDay());
+                showUntil.run();
+            }, initial.getYear(), initial.getMonthValue() - 1, initial.getDayOfMonth());
+            picker.getDatePicker().setMinDate(ReminderDates.toEpochMillis(startDay, 0));
+            // Without a date the series has no end
+            picker.setOnCancelListener(d -> {
+                if (untilDay[0] == ReminderDates.INVALID_DAY) {
+                    endGroup.check(R.id.repeatEndNever);
+                }
+            });
+            picker.show();
+        };
+        endGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            if (checkedId == R.id.repeatEndOn) {
+                if (untilDay[0] == ReminderDates.INVALID_DAY) {
+                    pickUntil.run();
+                }
+            } else {
+                untilDay[0] = ReminderDates.INVALID_DAY;
+                showUntil.run();
+            }
+        });
+        untilDate.setOnClickListener(v -> pickUntil.run());
+
+        new MaterialAlertDialogBuilder(this)
+                .setTitle(getString(R.string.repeat))
+                .setView(dialogView)
+                .setPositiveButton(getString(R.string.save), (d, which) -> {
+                    int checkedId = frequencyGroup.getCheckedRadioButtonId();
+                    Recurrence.Frequency picked = checkedId == R.id.repeatFrequencyDaily ? Recurrence.Frequency.DAILY
+                            : checkedId == R.id.repeatFrequencyMonthly ? Recurrence.Frequency.MONTHLY
+                            : Recurrence.Frequency.WEEKLY;
+                    int interval = 1;
+                    String intervalText = intervalEdit.getText() != null ? intervalEdit.getText().toString().trim() : "";
+                    if (!TextUtils.isEmpty(intervalText)) {
+                        try {
+                            interval = Math.max(1, Math.min(MAX_REPEAT_INTERVAL, Integer.parseInt(intervalText)));
+                        } catch (NumberFormatException e) {
+                            interval = 1;
+                        }
+                    }
+                    int pickedWeekdays = 0;
+                    if (picked == Recurrence.Frequency.WEEKLY) {
+                        for (int i = 0; i < weekdayChips.length; i++) {
+                            if (weekdayChips[i].isChecked()) {
+                                pickedWeekdays |= Recurrence.MONDAY << i;
+                            }
+                        }
+                    }
+                    // No weekday checked falls back to the start day's
+                    onSave.accept(new Recurrence(picked, interval, pickedWeekdays, untilDay[0]));
+                })
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show();
+    }
+
+    /**
+     * Short description of a custom rule for the repeat field, such as "Every 2 weeks on Mon, Thu, until Dec 1"
+     */
+    private String describeRecurrence(Recurrence rule, int startDay) {
+        int interval = rule.getInterval();
+        String text;
+        switch (rule.getFrequency()) {
+            case DAILY:
+                text = interval == 1 ? getString(R.string.repeat_daily) : getString(R.string.repeat_every_days, interval);
+                break;
+            case MONTHLY:
+                text = interval == 1 ? getString(R.string.repeat_monthly)
+                        : getString(R.string.repeat_every_months, interval);
+                break;
+            default:
+                text = interval == 1 ? getString(R.string.repeat_weekly) : getString(R.string.repeat_every_weeks, interval);
+                int weekdays = rule.getWeekdays() != 0 ? rule.getWeekdays() : Recurrence.MONDAY << Recurrence.weekdayOf(startDay);
+                List<String> days = new ArrayList<>();
+                for (int i = 0; i < 7; i++) {
+                    if ((weekdays & (Recurrence.MONDAY << i)) != 0) {
+                        days.add(DayOfWeek.of(i + 1).getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+                    }
+                }
+                text = getString(R.string.repeat_on_days, text, TextUtils.join(", ", days));
+                break;
+        }
+        if (rule.getUntilDay() != ReminderDates.INVALID_DAY) {
+            text = getString(R.string.repeat_until, text,
+                    ReminderDates.formatDay(rule.getUntilDay(), ReminderDates.DayStyle.MONTH_DAY, Locale.getDefault()));
+        }
+        return text;
+    }
+
+    /**
+     * Rule for a repeat choice, null for a single reminder; weekly and monthly follow the selected date
+     */
+    private static Recurrence recurrenceFor(int repeatChoice) {
+        switch (repeatChoice) {
+            case REPEAT_DAILY:
+                return new Recurrence(Recurrence.Frequency.DAILY, 1, 0, ReminderDates.INVALID_DAY);
+            case REPEAT_WEEKDAYS:
+                return new Recurrence(Recurrence.Frequency.WEEKLY, 1, Recurrence.WEEKDAYS, ReminderDates.INVALID_DAY);
+            case REPEAT_WEEKLY:
+                return new Recurrence(Recurrence.Frequency.WEEKLY, 1, 0, ReminderDates.INVALID_DAY);
+            case REPEAT_MONTHLY:
+                return new Recurrence(Recurrence.Frequency.MONTHLY, 1, 0, ReminderDates.INVALID_DAY);
+            default:
+                return null;
+        }
+    }
+
     private void showNotificationTimePicker(TextInputEditText timeEdit) {
         String[] options = {"0", "5", "10", "15", "30", "60"};
         // Use cached displayOptions instead of creating new array each time
@@ -492,41 +698,23 @@ public class MainActivity extends AppCompatActivity {
         if (yearText == null || selectedDate == null) {
             return;
         }
-        try {
-            // Optimize: parse date only once and reuse Calendar
-            Date date = dateFormat.parse(selectedDate);
-            Calendar cal = Calendar.getInstance();
-            if (date != null) {
-                cal.setTime(date);
-            }
-            yearText.setText(String.valueOf(cal.get(Calendar.YEAR)));
-        } catch (Exception e) {
-            // Fallback: extract year from string if parsing fails
-            if (selectedDate.length() >= 4) {
-                yearText.setText(selectedDate.substring(0, 4));
-            } else {
-                Calendar cal = Calendar.getInstance();
-                yearText.setText(String.valueOf(cal.get(Calendar.YEAR)));
-            }
-        }
+        yearText.setText(String.valueOf(selectedLocalDate().getYear()));
     }
 
     private void updateMonthText() {
-        if (monthText == null || selectedDate == null || monthFormat == null) {
+        if (monthText == null || selectedDate == null) {
             return;
         }
-        try {
-            Date date = dateFormat.parse(selectedDate);
-            Calendar cal = Calendar.getInstance();
-            if (date != null) {
-                cal.setTime(date);
-            }
-            monthText.setText(monthFormat.format(cal.getTime()));
-        } catch (Exception e) {
-            // Use cached monthFormat instead of creating new one
-            Calendar cal = Calendar.getInstance();
-            monthText.setText(monthFormat.format(cal.getTime()));
-        }
+        monthText.setText(ReminderDates.formatDay((int) selectedLocalDate().toEpochDay(),
+                ReminderDates.DayStyle.MONTH, Locale.ENGLISH));
+    }
+
+    /**
+     * The selected date, or today if it cannot be parsed
+     */
+    private LocalDate selectedLocalDate() {
+        int day = ReminderDates.parseEpochDay(selectedDate);
+        return day != ReminderDates.INVALID_DAY ? LocalDate.ofEpochDay(day) : LocalDate.now();
     }
 
     private void showYearMonthPickerDialog() {
@@ -535,26 +723,12 @@ public class MainActivity extends AppCompatActivity {
         }
         
         try {
-            int currentYear;
-            int currentMonth;
-            Calendar cal = Calendar.getInstance();
-            try {
-                Date date = dateFormat.parse(selectedDate);
-                if (date != null) {
-                    cal.setTime(date);
-                    currentYear = cal.get(Calendar.YEAR);
-                    currentMonth = cal.get(Calendar.MONTH);
-                } else {
-                    throw new Exception();
-                }
-            } catch (Exception e) {
-                cal = Calendar.getInstance();
-                currentYear = cal.get(Calendar.YEAR);
-                currentMonth = cal.get(Calendar.MONTH);
-            }
-            
-            Calendar today = Calendar.getInstance();
-            int minYear = today.get(Calendar.YEAR);
+            LocalDate current = selectedLocalDate();
+            int currentYear = current.getYear();
+            int currentMonth = current.getMonthValue() - 1;
+
+            LocalDate today = LocalDate.now();
+            int minYear = today.getYear();
             
             int maxYear = minYear + 100;
             String[] years = new String[maxYear - minYear + 1];
@@ -601,37 +775,15 @@ public class MainActivity extends AppCompatActivity {
                 if (selectedYearPos >= 0 && selectedMonthPos >= 0) {
                     int selectedYear = Integer.parseInt(years[selectedYearPos]);
                     
-                    Calendar newCal = Calendar.getInstance();
-                    try {
-                        Date date = dateFormat.parse(selectedDate);
-                        if (date != null) {
-                            newCal.setTime(date);
-                        }
-                    } catch (Exception e) {
-                        // Failed to parse selected date, using current date
+                    // withYear/withMonth clamp the day to the length of the new month
+                    LocalDate newDate = selectedLocalDate().withYear(selectedYear).withMonth(selectedMonthPos + 1);
+                    if (newDate.isBefore(today)) {
+                        newDate = today;
                     }
-                    
-                    newCal.set(Calendar.YEAR, selectedYear);
-                    newCal.set(Calendar.MONTH, selectedMonthPos);
-                    
-                    int maxDay = newCal.getActualMaximum(Calendar.DAY_OF_MONTH);
-                    int currentDay = newCal.get(Calendar.DAY_OF_MONTH);
-                    if (currentDay > maxDay) {
-                        newCal.set(Calendar.DAY_OF_MONTH, maxDay);
-                    }
-                    
-                    Calendar todayCal = Calendar.getInstance();
-                    todayCal.set(Calendar.HOUR_OF_DAY, 0);
-                    todayCal.set(Calendar.MINUTE, 0);
-                    todayCal.set(Calendar.SECOND, 0);
-                    todayCal.set(Calendar.MILLISECOND, 0);
-                    
-                    if (newCal.before(todayCal)) {
-                        newCal.setTime(todayCal.getTime());
-                    }
-                    
-                    calendarView.setDate(newCal.getTimeInMillis(), false, true);
-                    selectedDate = dateFormat.format(newCal.getTime());
+
+                    int newDay = (int) newDate.toEpochDay();
+                    calendarView.setDate(ReminderDates.toEpochMillis(newDay, 0), false, true);
+                    selectedDate = ReminderDates.formatEpochDay(newDay);
                     updateSelectedDateText();
                     updateYearText();
                     updateMonthText();
@@ -655,50 +807,39 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void updateReminderIndicator() {
-        if (reminderIndicatorText == null || reminderManager == null || indicatorDateFormat == null) {
+        if (reminderIndicatorText == null || reminderManager == null) {
             return;
         }
         
+        // Only look at the month being shown, answered from the date index instead of scanning every reminder
+        int selectedDay = ReminderDates.parseEpochDay(selectedDate);
+        LocalDate monthStart = selectedDay != ReminderDates.INVALID_DAY
+                ? LocalDate.ofEpochDay(selectedDay).withDayOfMonth(1)
+                : LocalDate.now().withDayOfMonth(1);
+        LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
+        reminderManager.getActiveReminderDaysAsync((int) monthStart.toEpochDay(), (int) monthEnd.toEpochDay(),
+                this::showReminderIndicator);
+    }
+
+    private void showReminderIndicator(List<Integer> daysWithReminders) {
+        if (isFinishing() || isDestroyed() || reminderIndicatorText == null) {
+            return;
+        }
         try {
-            List<Reminder> allReminders = reminderManager.getAllReminders();
-            Set<String> datesWithReminders = new HashSet<>();
-            
-            // First pass: collect unique dates (optimized - no parsing yet)
-            for (Reminder reminder : allReminders) {
-                if (reminder != null && !reminder.isCompleted() && !reminder.isDeleted()) {
-                    String date = reminder.getDate();
-                    if (date != null && !date.isEmpty()) {
-                        datesWithReminders.add(date);
-                    }
-                }
-            }
-            
-            if (datesWithReminders.isEmpty()) {
+            if (daysWithReminders == null || daysWithReminders.isEmpty()) {
                 reminderIndicatorText.setVisibility(View.GONE);
                 return;
             }
             
-            // Second pass: format dates (only parse unique dates, not all reminders)
-            List<String> displayDates = new ArrayList<>(datesWithReminders.size());
-            for (String dateStr : datesWithReminders) {
-                try {
-                    Date date = dateFormat.parse(dateStr);
-                    if (date != null) {
-                        displayDates.add(indicatorDateFormat.format(date));
-                    }
-                } catch (Exception e) {
-                    // Failed to format date
-                }
+            // Days come back sorted, so only the unique dates of this month get formatted
+            List<String> displayDates = new ArrayList<>(daysWithReminders.size());
+            for (int day : daysWithReminders) {
+                displayDates.add(ReminderDates.formatDay(day, ReminderDates.DayStyle.MONTH_DAY, Locale.ENGLISH));
             }
             
-            if (!displayDates.isEmpty()) {
-                displayDates.sort(String::compareTo);
-                String datesList = String.join(", ", displayDates);
-                reminderIndicatorText.setText(getString(R.string.dates_with_reminders, datesList));
-                reminderIndicatorText.setVisibility(View.VISIBLE);
-            } else {
-                reminderIndicatorText.setVisibility(View.GONE);
-            }
+            String datesList = String.join(", ", displayDates);
+            reminderIndicatorText.setText(getString(R.string.dates_with_reminders, datesList));
+            reminderIndicatorText.setVisibility(View.VISIBLE);
         } catch (Exception e) {
             reminderIndicatorText.setVisibility(View.GONE);
         }
@@ -728,38 +869,71 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void startTimeUpdates() {
-        if (timeHandler != null && timeRunnable != null) {
-            timeHandler.removeCallbacks(timeRunnable);
+    private void onClockTick(ClockTicker.Tick tick) {
+        if (isFinishing() || isDestroyed()) {
+            return;
         }
-        
-        timeHandler = new android.os.Handler(Looper.getMainLooper());
-        timeRunnable = new Runnable() {
-            @Override
-            public void run() {
-                // Check if Activity is still valid before updating UI
-                if (isFinishing() || isDestroyed()) {
-                    return;
-                }
-                
-                Date now = new Date();
-                if (currentDateTimeDisplay != null && currentDateTimeFormat != null && timeFormat != null) {
-                    try {
-                        String dateStr = currentDateTimeFormat.format(now);
-                        String timeStr = timeFormat.format(now);
-                        currentDateTimeDisplay.setText(getString(R.string.date_time_format, dateStr, timeStr));
-                    } catch (Exception e) {
-                        // Activity or view may be destroyed, stop updating
-                        // Failed to update time display, stopping updates
-                        return;
-                    }
-                }
-                if (timeHandler != null && !isFinishing() && !isDestroyed()) {
-                    timeHandler.postDelayed(this, 1000);
-                }
+        clockMinute = tick.minuteOfDay;
+        if (tick.epochDay != clockDay) {
+            // First tick or midnight: date label, today and the due-soon list follow the day
+            clockDay = tick.epochDay;
+            clockDatePrefix = getString(R.string.date_time_format,
+                    ReminderDates.formatDay(clockDay, ReminderDates.DayStyle.MEDIUM, Locale.ENGLISH), "");
+            onDayChanged(clockDay);
+            loadDueSoon();
+        }
+        if (currentDateTimeDisplay != null) {
+            clockText.setLength(0);
+            clockText.append(clockDatePrefix);
+            ClockTicker.appendTime(clockText, tick, false);
+            currentDateTimeDisplay.setText(clockText);
+        }
+        showDueSoon();
+    }
+
+    private void loadDueSoon() {
+        if (reminderManager == null) {
+            return;
+        }
+        reminderManager.getActiveRemindersOnDayAsync(ReminderDates.todayEpochDay(), reminders -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
             }
-        };
-        timeHandler.post(timeRunnable);
+            todayReminders = reminders != null ? reminders : Collections.emptyList();
+            dueSoonShownFor = null;
+            showDueSoon();
+        });
+    }
+
+    /**
+     * Show the next reminder of today if it starts within the hour; the text is only rebuilt when it changes
+     */
+    private void showDueSoon() {
+        if (dueSoonText == null) {
+            return;
+        }
+        Reminder next = null;
+        // Today's reminders come sorted by start time
+        for (Reminder reminder : todayReminders) {
+            int start = reminder.getStartMinute();
+            if (start != ReminderDates.INVALID_MINUTE && start >= clockMinute) {
+                next = reminder;
+                break;
+            }
+        }
+        if (next == null || next.getStartMinute() - clockMinute > DUE_SOON_MINUTES) {
+            dueSoonShownFor = null;
+            dueSoonText.setVisibility(View.GONE);
+            return;
+        }
+        if (next.getId().equals(dueSoonShownFor)) {
+            return;
+        }
+        dueSoonShownFor = next.getId();
+        String title = !TextUtils.isEmpty(next.getTitle()) ? next.getTitle()
+                : !TextUtils.isEmpty(next.getContent()) ? next.getContent() : getString(R.string.no_title);
+        dueSoonText.setText(getString(R.string.due_soon, title, ReminderDates.formatMinuteOfDay(next.getStartMinute())));
+        dueSoonText.setVisibility(View.VISIBLE);
     }
 
     private void requestNotificationPermission() {
@@ -788,71 +962,69 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void restoreAllAlarms() {
-        if (reminderManager == null) {
-            return;
-        }
-        try {
-            List<Reminder> allReminders = reminderManager.getAllReminders();
-            int restoredCount = 0;
-            for (Reminder reminder : allReminders) {
-                if (reminder != null && !reminder.isCompleted() && !reminder.isDeleted() 
-                        && reminder.isEnableNotification() && reminder.getStartTime() != null 
-                        && !reminder.getStartTime().isEmpty()) {
-                    boolean alarmSet = AlarmHelper.setAlarm(this, reminder);
-                    if (alarmSet) {
-                        restoredCount++;
-                    } else {
-                        // Skipped restoring alarm for reminder (time in past)
-                    }
-                }
-            }
-            // Restored alarms
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to restore alarms", e);
-        }
+    private void showAlarmSettingsDialog() {
+        View dialogView = getLayoutInflater().inflate(R.layout.dialog_alarm_settings, null);
+        SwitchMaterial chainedSwitch = dialogView.findViewById(R.id.alarmChainedSwitch);
+        RadioGroup windowGroup = dialogView.findViewById(R.id.alarmWindowGroup);
+        chainedSwitch.setChecked(AlarmScheduler.isChainedMode(this));
+        long windowMinutes = AlarmScheduler.getDeliveryWindowMillis(this) / 60_000L;
+        windowGroup.check(windowMinutes <= 0 ? R.id.alarmWindowOff
+                : windowMinutes <= 1 ? R.id.alarmWindow1
+                : windowMinutes <= 5 ? R.id.alarmWindow5 : R.id.alarmWindow15);
+
+        new MaterialAlertDialogBuilder(this)
+                .setTitle(getString(R.string.alarm_settings_title))
+                .setView(dialogView)
+                .setPositiveButton(getString(R.string.save), (d, which) -> {
+                    AlarmScheduler.setDeliveryWindowMillis(this,
+                            windowMinutesFor(windowGroup.getCheckedRadioButtonId()) * 60_000L);
+                    AlarmScheduler.setChainedMode(this, chainedSwitch.isChecked());
+                })
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show();
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Stop time updates to prevent UI updates after Activity is destroyed
-        if (timeHandler != null && timeRunnable != null) {
-            timeHandler.removeCallbacks(timeRunnable);
-            timeRunnable = null;
+    private static int windowMinutesFor(int buttonId) {
+        if (buttonId == R.id.alarmWindowOff) {
+            return 0;
+        } else if (buttonId == R.id.alarmWindow5) {
+            return 5;
+        } else if (buttonId == R.id.alarmWindow15) {
+            return 15;
         }
-        timeHandler = null;
+        return 1;
     }
-    
-    @Override
-    protected void onPause() {
-        super.onPause();
-        // Pause time updates when Activity goes to background
-        if (timeHandler != null && timeRunnable != null) {
-            timeHandler.removeCallbacks(timeRunnable);
-        }
+
+    private void restoreAllAlarms() {
+        // Only alarms that differ from what is already registered are set or cancelled
+        AlarmScheduler.reconcile(this);
+        DayBoundary.schedule(this);
     }
-    
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // Resume time updates when Activity comes to foreground
-        if (timeHandler != null && timeRunnable != null) {
-            timeHandler.post(timeRunnable);
-        } else {
-            startTimeUpdates();
+
+    /**
+     * Move "today" forward after midnight or a time zone change; a selection on the old today follows it
+     */
+    private void onDayChanged(int today) {
+        String newToday = ReminderDates.formatEpochDay(today);
+        if (newToday.equals(todayDate)) {
+            return;
+        }
+        boolean followToday = selectedDate == null || selectedDate.equals(todayDate);
+        todayDate = newToday;
+        if (followToday || isDateInPast(selectedDate)) {
+            selectedDate = todayDate;
+            highlightToday();
+            updateSelectedDateText();
+            updateYearText();
+            updateMonthText();
         }
+        updateReminderIndicator();
     }
 
-    private void updateWidgets() {
-        Intent intent = new Intent(this, ReminderWidgetProvider.class);
-        intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-        int[] ids = AppWidgetManager.getInstance(this).getAppWidgetIds(
-            new ComponentName(this, ReminderWidgetProvider.class)
-        );
-        if (ids.length > 0) {
-            intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
-            sendBroadcast(intent);
-        }
+    @Override
+    protected void onRestart() {
+        super.onRestart();
+        // Today's reminders may have been edited on another screen
+        loadDueSoon();
     }
 }
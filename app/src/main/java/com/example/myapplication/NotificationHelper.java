@@ -9,14 +9,19 @@ import android.media.RingtoneManager;
 import android.net.Uri;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 
 public class NotificationHelper {
     private static final String TAG = "NotificationHelper";
     private static final String CHANNEL_ID = "reminder_channel";
     private static final int NOTIFICATION_ID_BASE = 1000;
+    private static final int SUMMARY_NOTIFICATION_ID = NOTIFICATION_ID_BASE - 1;
+    private static final String GROUP_KEY = "com.example.myapplication.REMINDERS";
+
+    // Channels persist in the system, creating one again is only needed once per process
+    private static volatile boolean channelCreated;
 
     public static void createNotificationChannel(Context context) {
         // Since minSdk is 27 (Android 8.1), notification channels are always available (API 26+)
@@ -39,16 +44,37 @@ public class NotificationHelper {
         channel.setSound(soundUri, null);
 
         notificationManager.createNotificationChannel(channel);
+        channelCreated = true;
     }
 
     public static void showReminderNotification(Context context, Reminder reminder) {
-        if (context == null || reminder == null) {
+        if (reminder == null) {
+            Log.e(TAG, "Context or Reminder is null");
+            return;
+        }
+        showReminderNotifications(context, Collections.singletonList(reminder));
+    }
+
+    /**
+     * Post the reminders that came due together.
+     * More than one is shown as a group with a single summary, so the user is alerted once.
+     */
+    public static void showReminderNotifications(Context context, List<Reminder> reminders) {
+        if (context == null || reminders == null || reminders.isEmpty()) {
             Log.e(TAG, "Context or Reminder is null");
             return;
         }
 
         try {
-            createNotificationChannel(context);
+            if (!channelCreated) {
+                createNotificationChannel(context);
+            }
+
+            NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+            if (notificationManager == null) {
+                Log.e(TAG, "NotificationManager is null");
+                return;
+            }
 
             // Create intent to open MainActivity
             Intent intent = new Intent(context, MainActivity.class);
@@ -60,55 +86,90 @@ public class NotificationHelper {
                     PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
             );
 
-            // Build notification
-            String title = reminder.getTitle();
-            if (title == null || title.isEmpty()) {
-                title = context.getString(R.string.app_name);
-            }
-
-            String content = reminder.getContent();
-            if (content == null || content.isEmpty()) {
-                content = context.getString(R.string.reminder_saved);
-            }
-
-            // Format reminder date and time
-            String reminderDateTime = formatReminderDateTime(context, reminder);
-            
-            // Combine content with time information
-            String notificationText;
-            if (reminderDateTime != null && !reminderDateTime.isEmpty()) {
-                notificationText = content + "\n" + reminderDateTime;
-            } else {
-                notificationText = content;
-            }
-
             // Get notification sound
             Uri soundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-                    .setSmallIcon(android.R.drawable.ic_dialog_info)
-                    .setContentTitle(context.getString(R.string.notification_title, title))
-                    .setContentText(notificationText)
-                    .setStyle(new NotificationCompat.BigTextStyle().bigText(notificationText))
-                    .setPriority(NotificationCompat.PRIORITY_HIGH)
-                    .setDefaults(NotificationCompat.DEFAULT_ALL)
-                    .setSound(soundUri)
-                    .setAutoCancel(true)
-                    .setContentIntent(pendingIntent);
-
-            NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
-            if (notificationManager != null) {
+            boolean grouped = reminders.size() > 1;
+
+            NotificationCompat.InboxStyle summaryStyle = new NotificationCompat.InboxStyle();
+            StringBuilder summaryText = new StringBuilder();
+            for (Reminder reminder : reminders) {
+                String title = getDisplayTitle(context, reminder);
+                NotificationCompat.Builder builder = buildReminderNotification(context, reminder, title, pendingIntent, soundUri);
+                if (grouped) {
+                    // Children stay quiet, the summary makes the one sound for the whole group
+                    builder.setGroup(GROUP_KEY).setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY);
+                    summaryStyle.addLine(title);
+                    if (summaryText.length() > 0) {
+                        summaryText.append(", ");
+                    }
+                    summaryText.append(title);
+                }
                 // Use reminder ID hash to create unique notification ID
                 int notificationId = NOTIFICATION_ID_BASE + Math.abs(reminder.getId().hashCode());
                 notificationManager.notify(notificationId, builder.build());
-            } else {
-                Log.e(TAG, "NotificationManager is null");
+            }
+
+            if (grouped) {
+                String summaryTitle = context.getString(R.string.notification_summary_title, reminders.size());
+                NotificationCompat.Builder summary = new NotificationCompat.Builder(context, CHANNEL_ID)
+                        .setSmallIcon(android.R.drawable.ic_dialog_info)
+                        .setContentTitle(summaryTitle)
+                        .setContentText(summaryText)
+                        .setStyle(summaryStyle.setBigContentTitle(summaryTitle))
+                        .setNumber(reminders.size())
+                        .setPriority(NotificationCompat.PRIORITY_HIGH)
+                        .setDefaults(NotificationCompat.DEFAULT_ALL)
+                        .setSound(soundUri)
+                        .setGroup(GROUP_KEY)
+                        .setGroupSummary(true)
+                        .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+                        .setAutoCancel(true)
+                        .setContentIntent(pendingIntent);
+                notificationManager.notify(SUMMARY_NOTIFICATION_ID, summary.build());
             }
         } catch (Exception e) {
             Log.e(TAG, "Failed to show notification", e);
         }
     }
 
+    private static String getDisplayTitle(Context context, Reminder reminder) {
+        String title = reminder.getTitle();
+        if (title == null || title.isEmpty()) {
+            title = context.getString(R.string.app_name);
+        }
+        return title;
+    }
+
+    private static NotificationCompat.Builder buildReminderNotification(Context context, Reminder reminder, String title,
+                                                                        PendingIntent pendingIntent, Uri soundUri) {
+        String content = reminder.getContent();
+        if (content == null || content.isEmpty()) {
+            content = context.getString(R.string.reminder_saved);
+        }
+
+        // Format reminder date and time
+        String reminderDateTime = formatReminderDateTime(context, reminder);
+
+        // Combine content with time information
+        String notificationText;
+        if (reminderDateTime != null && !reminderDateTime.isEmpty()) {
+            notificationText = content + "\n" + reminderDateTime;
+        } else {
+            notificationText = content;
+        }
+
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_dialog_info)
+                .setContentTitle(context.getString(R.string.notification_title, title))
+                .setContentText(notificationText)
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(notificationText))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setDefaults(NotificationCompat.DEFAULT_ALL)
+                .setSound(soundUri)
+                .setAutoCancel(true)
+                .setContentIntent(pendingIntent);
+    }
+
     /**
      * Format reminder date and time for display in notification
      */
@@ -118,30 +179,21 @@ public class NotificationHelper {
         }
 
         try {
-            String dateStr = reminder.getDate();
-            String startTimeStr = reminder.getStartTime();
-            String endTimeStr = reminder.getEndTime();
-
-            if (dateStr == null || dateStr.isEmpty()) {
-                return null;
-            }
-
-            // Parse date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date date = dateFormat.parse(dateStr);
-            if (date == null) {
+            int epochDay = reminder.getEpochDay();
+            if (epochDay == ReminderDates.INVALID_DAY) {
                 return null;
             }
 
             // Format date for display
-            SimpleDateFormat displayDateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            String formattedDate = displayDateFormat.format(date);
+            String formattedDate = ReminderDates.formatDay(epochDay, ReminderDates.DayStyle.MEDIUM, Locale.getDefault());
 
             // Build time string
             StringBuilder timeBuilder = new StringBuilder();
+            String startTimeStr = reminder.getStartTime();
             if (startTimeStr != null && !startTimeStr.isEmpty()) {
                 timeBuilder.append(startTimeStr);
-                if (endTimeStr != null && !endTimeStr.isEmpty() && !endTimeStr.equals(startTimeStr)) {
+                String endTimeStr = reminder.getEndTime();
+                if (endTimeStr != null && !endTimeStr.isEmpty() && reminder.getEndMinute() != reminder.getStartMinute()) {
                     timeBuilder.append(" - ").append(endTimeStr);
                 }
             }
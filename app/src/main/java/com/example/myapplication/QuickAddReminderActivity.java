@@ -2,8 +2,6 @@ package com.example.myapplication;
 
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
@@ -16,17 +14,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.android.material.textfield.TextInputEditText;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Locale;
 import java.util.UUID;
 
 public class QuickAddReminderActivity extends AppCompatActivity {
     private static final String TAG = "QuickAddReminderActivity";
+    private static final int MINUTES_PER_DAY = 24 * 60;
     private ReminderManager reminderManager;
-    private SimpleDateFormat dateFormat;
-    private SimpleDateFormat displayDateFormat;
     private String selectedDate;
 
     @Override
@@ -45,10 +41,7 @@ public class QuickAddReminderActivity extends AppCompatActivity {
         
         try {
             reminderManager = new ReminderManager(this);
-            dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            displayDateFormat = new SimpleDateFormat("EEEE, MMMM dd, yyyy", Locale.ENGLISH);
-            Date today = new Date();
-            selectedDate = dateFormat.format(today);
+            selectedDate = ReminderDates.formatEpochDay(ReminderDates.todayEpochDay());
             
             showQuickAddDialog();
         } catch (Exception e) {
@@ -80,26 +73,13 @@ public class QuickAddReminderActivity extends AppCompatActivity {
             }
             
             // Set default date to today
-            try {
-                Date date = dateFormat.parse(selectedDate);
-                if (date != null) {
-                    dateEdit.setText(displayDateFormat.format(date));
-                } else {
-                    dateEdit.setText(selectedDate);
-                }
-            } catch (Exception e) {
-                dateEdit.setText(selectedDate);
-            }
+            showSelectedDay(dateEdit, ReminderDates.parseEpochDay(selectedDate));
             dateEdit.setOnClickListener(v -> showDatePicker(dateEdit));
 
             // Set default time to current time + 1 hour
-            Calendar calendar = Calendar.getInstance();
-            calendar.add(Calendar.HOUR_OF_DAY, 1);
-            String defaultStartTime = String.format(Locale.getDefault(), "%02d:%02d", 
-                calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE));
-            calendar.add(Calendar.HOUR_OF_DAY, 1);
-            String defaultEndTime = String.format(Locale.getDefault(), "%02d:%02d", 
-                calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE));
+            int nowMinute = currentMinuteOfDay();
+            String defaultStartTime = ReminderDates.formatMinuteOfDay((nowMinute + 60) % MINUTES_PER_DAY);
+            String defaultEndTime = ReminderDates.formatMinuteOfDay((nowMinute + 120) % MINUTES_PER_DAY);
 
             startTimeEdit.setText(defaultStartTime);
             startTimeEdit.setOnClickListener(v -> showTimePicker(startTimeEdit));
@@ -160,62 +140,24 @@ public class QuickAddReminderActivity extends AppCompatActivity {
                     }
                     
                     // Validate selected date and time combination is not in the past
-                    try {
-                        Date selectedDateObj = dateFormat.parse(selectedDate);
-                        if (selectedDateObj != null) {
-                            Calendar selectedCalendar = Calendar.getInstance();
-                            selectedCalendar.setTime(selectedDateObj);
-                            
-                            // If start time is provided, validate the full date+time combination
-                            if (!startTime.isEmpty()) {
-                                try {
-                                    String[] timeParts = startTime.split(":");
-                                    if (timeParts.length == 2) {
-                                        int hour = Integer.parseInt(timeParts[0]);
-                                        int minute = Integer.parseInt(timeParts[1]);
-                                        selectedCalendar.set(Calendar.HOUR_OF_DAY, hour);
-                                        selectedCalendar.set(Calendar.MINUTE, minute);
-                                        selectedCalendar.set(Calendar.SECOND, 0);
-                                        selectedCalendar.set(Calendar.MILLISECOND, 0);
-                                    }
-                                } catch (Exception e) {
-                                    // Invalid time format, just validate date
-                                    selectedCalendar.set(Calendar.HOUR_OF_DAY, 0);
-                                    selectedCalendar.set(Calendar.MINUTE, 0);
-                                    selectedCalendar.set(Calendar.SECOND, 0);
-                                    selectedCalendar.set(Calendar.MILLISECOND, 0);
-                                }
-                            } else {
-                                // No time provided, validate date only
-                                selectedCalendar.set(Calendar.HOUR_OF_DAY, 0);
-                                selectedCalendar.set(Calendar.MINUTE, 0);
-                                selectedCalendar.set(Calendar.SECOND, 0);
-                                selectedCalendar.set(Calendar.MILLISECOND, 0);
-                            }
-                            
-                            Calendar now = Calendar.getInstance();
-                            
-                            // Check if selected date+time is in the past
-                            if (selectedCalendar.before(now)) {
-                                Toast.makeText(QuickAddReminderActivity.this, 
-                                    getString(R.string.cannot_add_reminders_past_dates), Toast.LENGTH_SHORT).show();
-                                // Reset to today
-                                Calendar today = Calendar.getInstance();
-                                today.set(Calendar.HOUR_OF_DAY, 0);
-                                today.set(Calendar.MINUTE, 0);
-                                today.set(Calendar.SECOND, 0);
-                                today.set(Calendar.MILLISECOND, 0);
-                                selectedDate = dateFormat.format(today.getTime());
-                                dateEdit.setText(displayDateFormat.format(today.getTime()));
-                                return;
-                            }
-                        }
-                    } catch (Exception e) {
-                        android.util.Log.e(TAG, "Failed to validate date", e);
+                    int selectedDay = ReminderDates.parseEpochDay(selectedDate);
+                    if (selectedDay == ReminderDates.INVALID_DAY) {
+                        android.util.Log.e(TAG, "Failed to validate date: " + selectedDate);
                         Toast.makeText(QuickAddReminderActivity.this, 
                             getString(R.string.cannot_add_reminders_past_dates), Toast.LENGTH_SHORT).show();
                         return;
                     }
+                    // If start time is provided, validate the full date+time combination, otherwise the date only
+                    int startMinute = ReminderDates.parseMinuteOfDay(startTime);
+                    long selectedMillis = ReminderDates.toEpochMillis(selectedDay,
+                            startMinute != ReminderDates.INVALID_MINUTE ? startMinute : 0);
+                    if (selectedMillis < System.currentTimeMillis()) {
+                        Toast.makeText(QuickAddReminderActivity.this, 
+                            getString(R.string.cannot_add_reminders_past_dates), Toast.LENGTH_SHORT).show();
+                        // Reset to today
+                        showSelectedDay(dateEdit, ReminderDates.todayEpochDay());
+                        return;
+                    }
 
                     // Get notification settings (default 5 minutes before)
                     boolean enableNotification = notificationSwitch != null && notificationSwitch.isChecked();
@@ -233,21 +175,17 @@ public class QuickAddReminderActivity extends AppCompatActivity {
                     reminder.setEnableNotification(enableNotification);
                     reminder.setNotificationMinutesBefore(notificationMinutesBefore);
                     
-                    reminderManager.saveReminder(reminder);
-                    
-                    // Set alarm if notification is enabled
-                    if (enableNotification && !startTime.isEmpty()) {
-                        boolean alarmSet = AlarmHelper.setAlarm(QuickAddReminderActivity.this, reminder);
-                        if (!alarmSet) {
-                            String reminderDateTime = selectedDate + " " + startTime;
-                            Toast.makeText(QuickAddReminderActivity.this, 
-                                getString(R.string.reminder_time_past_detail, reminderDateTime), 
+                    // Alarm and widgets are updated by the manager once the reminder has been saved.
+                    // The activity is finished by then, so the warning goes through the application context.
+                    Context appContext = getApplicationContext();
+                    reminderManager.saveReminderAsync(reminder, alarmSet -> {
+                        if (Boolean.FALSE.equals(alarmSet) && enableNotification && !startTime.isEmpty()) {
+                            String reminderDateTime = reminder.getDate() + " " + startTime;
+                            Toast.makeText(appContext,
+                                appContext.getString(R.string.reminder_time_past_detail, reminderDateTime),
                                 Toast.LENGTH_LONG).show();
                         }
-                    }
-                    
-                    // Update Widget
-                    updateWidgets();
+                    });
                     
                     hideKeyboard(dialogView);
                     Toast.makeText(QuickAddReminderActivity.this, 
@@ -272,50 +210,28 @@ public class QuickAddReminderActivity extends AppCompatActivity {
     }
 
     private void showDatePicker(TextInputEditText dateEdit) {
-        Calendar calendar = Calendar.getInstance();
-        try {
-            Date date = dateFormat.parse(selectedDate);
-            if (date != null) {
-                calendar.setTime(date);
-            }
-        } catch (Exception e) {
-            // Use current date
-        }
+        int selectedDay = ReminderDates.parseEpochDay(selectedDate);
+        LocalDate date = selectedDay != ReminderDates.INVALID_DAY ? LocalDate.ofEpochDay(selectedDay) : LocalDate.now();
         
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH);
-        int day = calendar.get(Calendar.DAY_OF_MONTH);
+        int year = date.getYear();
+        int month = date.getMonthValue() - 1;
+        int day = date.getDayOfMonth();
         
-        Calendar today = Calendar.getInstance();
-        today.set(Calendar.HOUR_OF_DAY, 0);
-        today.set(Calendar.MINUTE, 0);
-        today.set(Calendar.SECOND, 0);
-        today.set(Calendar.MILLISECOND, 0);
-        long minDate = today.getTimeInMillis();
+        long minDate = ReminderDates.toEpochMillis(ReminderDates.todayEpochDay(), 0);
         
         DatePickerDialog datePickerDialog = new DatePickerDialog(this, (view, year1, month1, dayOfMonth) -> {
-            Calendar selectedCalendar = Calendar.getInstance();
-            selectedCalendar.set(year1, month1, dayOfMonth, 0, 0, 0);
-            selectedCalendar.set(Calendar.MILLISECOND, 0);
-            
-            // Get today's date at midnight for comparison
-            Calendar todayForComparison = Calendar.getInstance();
-            todayForComparison.set(Calendar.HOUR_OF_DAY, 0);
-            todayForComparison.set(Calendar.MINUTE, 0);
-            todayForComparison.set(Calendar.SECOND, 0);
-            todayForComparison.set(Calendar.MILLISECOND, 0);
+            int pickedDay = (int) LocalDate.of(year1, month1 + 1, dayOfMonth).toEpochDay();
+            int today = ReminderDates.todayEpochDay();
             
             // Check if selected date is in the past
-            if (selectedCalendar.before(todayForComparison)) {
+            if (pickedDay < today) {
                 // Show error message and reset to today
                 Toast.makeText(QuickAddReminderActivity.this, 
                     getString(R.string.cannot_select_past_dates), Toast.LENGTH_SHORT).show();
-                selectedDate = dateFormat.format(todayForComparison.getTime());
-                dateEdit.setText(displayDateFormat.format(todayForComparison.getTime()));
+                showSelectedDay(dateEdit, today);
             } else {
                 // Valid date selected
-                selectedDate = dateFormat.format(selectedCalendar.getTime());
-                dateEdit.setText(displayDateFormat.format(selectedCalendar.getTime()));
+                showSelectedDay(dateEdit, pickedDay);
             }
         }, year, month, day);
         
@@ -327,62 +243,49 @@ public class QuickAddReminderActivity extends AppCompatActivity {
     }
 
     private void showTimePicker(TextInputEditText timeEdit) {
-        Calendar calendar = Calendar.getInstance();
-        int hour = calendar.get(Calendar.HOUR_OF_DAY);
-        int minute = calendar.get(Calendar.MINUTE);
-
-        String currentTime = timeEdit.getText() != null ? timeEdit.getText().toString() : "";
-        if (!currentTime.isEmpty()) {
-            try {
-                String[] parts = currentTime.split(":");
-                if (parts.length == 2) {
-                    hour = Integer.parseInt(parts[0]);
-                    minute = Integer.parseInt(parts[1]);
-                }
-            } catch (Exception e) {
-                // Use default values
-            }
+        int currentMinute = ReminderDates.parseMinuteOfDay(timeEdit.getText() != null ? timeEdit.getText().toString() : "");
+        if (currentMinute == ReminderDates.INVALID_MINUTE) {
+            currentMinute = currentMinuteOfDay();
         }
 
         TimePickerDialog timePickerDialog = new TimePickerDialog(this, (view, hourOfDay, minuteOfHour) -> {
+            int pickedMinute = hourOfDay * 60 + minuteOfHour;
+            String time = ReminderDates.formatMinuteOfDay(pickedMinute);
             // Validate if selected date is today, the time must not be in the past
-            try {
-                Date selectedDateObj = dateFormat.parse(selectedDate);
-                if (selectedDateObj != null) {
-                    Calendar selectedCalendar = Calendar.getInstance();
-                    selectedCalendar.setTime(selectedDateObj);
-                    selectedCalendar.set(Calendar.HOUR_OF_DAY, hourOfDay);
-                    selectedCalendar.set(Calendar.MINUTE, minuteOfHour);
-                    selectedCalendar.set(Calendar.SECOND, 0);
-                    selectedCalendar.set(Calendar.MILLISECOND, 0);
-                    
-                    Calendar now = Calendar.getInstance();
-                    
-                    // Check if selected date+time is in the past
-                    if (selectedCalendar.before(now)) {
-                        Toast.makeText(QuickAddReminderActivity.this, 
-                            getString(R.string.reminder_time_past_detail, 
-                                selectedDate + " " + String.format(Locale.getDefault(), "%02d:%02d", hourOfDay, minuteOfHour)), 
-                            Toast.LENGTH_SHORT).show();
-                        // Reset to current time + 1 hour
-                        Calendar futureTime = Calendar.getInstance();
-                        futureTime.add(Calendar.HOUR_OF_DAY, 1);
-                        String validTime = String.format(Locale.getDefault(), "%02d:%02d", 
-                            futureTime.get(Calendar.HOUR_OF_DAY), futureTime.get(Calendar.MINUTE));
-                        timeEdit.setText(validTime);
-                        return;
-                    }
-                }
-            } catch (Exception e) {
-                android.util.Log.e(TAG, "Failed to validate time", e);
+            int selectedDay = ReminderDates.parseEpochDay(selectedDate);
+            if (selectedDay != ReminderDates.INVALID_DAY
+                    && ReminderDates.toEpochMillis(selectedDay, pickedMinute) < System.currentTimeMillis()) {
+                Toast.makeText(QuickAddReminderActivity.this, 
+                    getString(R.string.reminder_time_past_detail, selectedDate + " " + time), 
+                    Toast.LENGTH_SHORT).show();
+                // Reset to current time + 1 hour
+                timeEdit.setText(ReminderDates.formatMinuteOfDay((currentMinuteOfDay() + 60) % MINUTES_PER_DAY));
+                return;
             }
             
-            String time = String.format(Locale.getDefault(), "%02d:%02d", hourOfDay, minuteOfHour);
             timeEdit.setText(time);
-        }, hour, minute, true);
+        }, currentMinute / 60, currentMinute % 60, true);
 
         timePickerDialog.show();
     }
+
+    /**
+     * Remember the chosen day and show its label in the date field
+     */
+    private void showSelectedDay(TextInputEditText dateEdit, int epochDay) {
+        if (epochDay == ReminderDates.INVALID_DAY) {
+            dateEdit.setText(selectedDate);
+            return;
+        }
+        selectedDate = ReminderDates.formatEpochDay(epochDay);
+        dateEdit.setText(ReminderDates.formatDay(epochDay, ReminderDates.DayStyle.FULL, Locale.ENGLISH));
+    }
+
+    private static int currentMinuteOfDay() {
+        LocalTime now = LocalTime.now();
+        return now.getHour() * 60 + now.getMinute();
+    }
+
     private void hideKeyboard(View view) {
         if (view != null) {
             InputMethodManager imm = (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
@@ -391,15 +294,5 @@ public class QuickAddReminderActivity extends AppCompatActivity {
             }
         }
     }
-
-    private void updateWidgets() {
-        Intent intent = new Intent(this, ReminderWidgetProvider.class);
-        intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-        int[] ids = AppWidgetManager.getInstance(this).getAppWidgetIds(
-            new ComponentName(this, ReminderWidgetProvider.class)
-        );
-        intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
-        sendBroadcast(intent);
-    }
 }
 
@@ -0,0 +1,247 @@
+package com.example.myapplication;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Repeat rule of a reminder series: daily, weekly on some weekdays or monthly on the start day's
+ * day of month, every interval days/weeks/months, optionally until a last day.
+ * Days of single occurrences that were completed, deleted or edited are excluded; those occurrences
+ * live on as reminders of their own (see {@link #occurrenceId(String, int)}).
+ * Occurrences are computed from the rule when asked for, nothing is stored per occurrence.
+ * Immutable, days are epoch days.
+ */
+public final class Recurrence implements Serializable {
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY
+    }
+
+    // Weekday bits, Monday first
+    public static final int MONDAY = 1;
+    public static final int WEEKDAYS = 0x1F;
+    // Separates the series id from the occurrence date in occurrence ids
+    private static final char OCCURRENCE_SEPARATOR = '@';
+    // A monthly rule on the 29th-31st skips months that are too short. The 30th and 31st hit a long month
+    // within 12 steps (the start month comes round again); the 29th every 12k months only visits Februaries,
+    // and at 300 months the next leap one can be 16 steps away
+    private static final int MAX_MONTH_STEPS = 100;
+
+    private final Frequency frequency;
+    private final int interval;
+    private final int weekdays;
+    private final int untilDay;
+    // Ascending
+    private final int[] excludedDays;
+
+    /**
+     * @param weekdays weekday bits for WEEKLY ({@link #MONDAY} shifted by the day index), 0 for the start day's weekday
+     * @param untilDay last possible occurrence day, or {@link ReminderDates#INVALID_DAY} for no end
+     */
+    public Recurrence(Frequency frequency, int interval, int weekdays, int untilDay) {
+        this(frequency, interval, weekdays, untilDay, new int[0]);
+    }
+
+    private Recurrence(Frequency frequency, int interval, int weekdays, int untilDay, int[] excludedDays) {
+        this.frequency = frequency != null ? frequency : Frequency.DAILY;
+        this.interval = Math.max(1, interval);
+        this.weekdays = this.frequency == Frequency.WEEKLY ? weekdays & 0x7F : 0;
+        this.untilDay = untilDay;
+        this.excludedDays = excludedDays;
+    }
+
+    /**
+     * Rebuild a stored rule, excluded days in any order
+     */
+    static Recurrence restore(Frequency frequency, int interval, int weekdays, int untilDay, int[] excludedDays) {
+        int[] sorted = excludedDays != null ? excludedDays.clone() : new int[0];
+        Arrays.sort(sorted);
+        return new Recurrence(frequency, interval, weekdays, untilDay, sorted);
+    }
+
+    /**
+     * The same rule ending after count occurrences from startDay; the count is turned into an until day once
+     */
+    public Recurrence limitedTo(int startDay, int count) {
+        int day = ReminderDates.INVALID_DAY;
+        int from = startDay;
+        for (int i = 0; i < count; i++) {
+            int next = candidate(startDay, from);
+            if (next == ReminderDates.INVALID_DAY || (untilDay != ReminderDates.INVALID_DAY && next > untilDay)) {
+                break;
+            }
+            day = next;
+            from = next + 1;
+        }
+        return day != ReminderDates.INVALID_DAY
+                ? new Recurrence(frequency, interval, weekdays, day, excludedDays)
+                : this;
+    }
+
+    /**
+     * The same rule without the occurrence on day
+     */
+    public Recurrence excluding(int day) {
+        int index = Arrays.binarySearch(excludedDays, day);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        int[] excluded = new int[excludedDays.length + 1];
+        System.arraycopy(excludedDays, 0, excluded, 0, insertAt);
+        excluded[insertAt] = day;
+        System.arraycopy(excludedDays, insertAt, excluded, insertAt + 1, excludedDays.length - insertAt);
+        return new Recurrence(frequency, interval, weekdays, untilDay, excluded);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getWeekdays() {
+        return weekdays;
+    }
+
+    public int getUntilDay() {
+        return untilDay;
+    }
+
+    int[] getExcludedDays() {
+        return excludedDays.clone();
+    }
+
+    /**
+     * First occurrence on fromDay or later of a series starting on startDay
+     * @return the epoch day, or {@link ReminderDates#INVALID_DAY} once the series has ended
+     */
+    public int next(int startDay, int fromDay) {
+        int day = Math.max(startDay, fromDay);
+        while (true) {
+            int candidate = candidate(startDay, day);
+            if (candidate == ReminderDates.INVALID_DAY
+                    || (untilDay != ReminderDates.INVALID_DAY && candidate > untilDay)) {
+                return ReminderDates.INVALID_DAY;
+            }
+            if (Arrays.binarySearch(excludedDays, candidate) < 0) {
+                return candidate;
+            }
+            day = candidate + 1;
+        }
+    }
+
+    public boolean occursOn(int startDay, int day) {
+        return day >= startDay && next(startDay, day) == day;
+    }
+
+    /**
+     * First day matching the rule on or after day (day is not before startDay), ignoring end and exclusions
+     */
+    private int candidate(int startDay, int day) {
+        switch (frequency) {
+            case WEEKLY:
+                return weeklyCandidate(startDay, day);
+            case MONTHLY:
+                return monthlyCandidate(startDay, day);
+            default:
+                int steps = (day - startDay + interval - 1) / interval;
+                return startDay + steps * interval;
+        }
+    }
+
+    private int weeklyCandidate(int startDay, int day) {
+        int mask = weekdays != 0 ? weekdays : MONDAY << weekdayOf(startDay);
+        int firstMonday = startDay - weekdayOf(startDay);
+        int week = (day - weekdayOf(day) - firstMonday) / 7;
+        int weekday = weekdayOf(day);
+        if (week % interval != 0) {
+            week += interval - week % interval;
+            weekday = 0;
+        }
+        // This week from the given weekday on, otherwise the first matching day of the next week in the cycle
+        int later = mask >> weekday;
+        if (later != 0) {
+            return firstMonday + week * 7 + weekday + Integer.numberOfTrailingZeros(later);
+        }
+        return firstMonday + (week + interval) * 7 + Integer.numberOfTrailingZeros(mask);
+    }
+
+    private int monthlyCandidate(int startDay, int day) {
+        LocalDate start = LocalDate.ofEpochDay(startDay);
+        LocalDate from = LocalDate.ofEpochDay(day);
+        int dayOfMonth = start.getDayOfMonth();
+        int months = (from.getYear() - start.getYear()) * 12 + from.getMonthValue() - start.getMonthValue();
+        if (from.getDayOfMonth() > dayOfMonth) {
+            months++;
+        }
+        if (months % interval != 0) {
+            months += interval - months % interval;
+        }
+        YearMonth first = YearMonth.from(start);
+        for (int i = 0; i < MAX_MONTH_STEPS; i++, months += interval) {
+            YearMonth month = first.plusMonths(months);
+            if (month.isValidDay(dayOfMonth)) {
+                return (int) month.atDay(dayOfMonth).toEpochDay();
+            }
+        }
+        return ReminderDates.INVALID_DAY;
+    }
+
+    /**
+     * Monday = 0 ... Sunday = 6; epoch day 0 was a Thursday
+     */
+    static int weekdayOf(int epochDay) {
+        return Math.floorMod(epochDay + 3, 7);
+    }
+
+    /**
+     * Id of the occurrence of a series on a day; also the id it keeps once it is stored on its own
+     */
+    public static String occurrenceId(String seriesId, int day) {
+        return seriesId + OCCURRENCE_SEPARATOR + ReminderDates.formatEpochDay(day);
+    }
+
+    /**
+     * Series id of an occurrence id, or null for any other id
+     */
+    public static String seriesIdOf(String reminderId) {
+        int separator = reminderId != null ? reminderId.lastIndexOf(OCCURRENCE_SEPARATOR) : -1;
+        if (separator <= 0 || occurrenceDayOf(reminderId) == ReminderDates.INVALID_DAY) {
+            return null;
+        }
+        return reminderId.substring(0, separator);
+    }
+
+    /**
+     * Day of an occurrence id, or {@link ReminderDates#INVALID_DAY} for any other id
+     */
+    public static int occurrenceDayOf(String reminderId) {
+        int separator = reminderId != null ? reminderId.lastIndexOf(OCCURRENCE_SEPARATOR) : -1;
+        return separator > 0 ? ReminderDates.parseEpochDay(reminderId.substring(separator + 1)) : ReminderDates.INVALID_DAY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Recurrence)) {
+            return false;
+        }
+        Recurrence other = (Recurrence) o;
+        return frequency == other.frequency && interval == other.interval && weekdays == other.weekdays
+                && untilDay == other.untilDay && Arrays.equals(excludedDays, other.excludedDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, weekdays, untilDay) * 31 + Arrays.hashCode(excludedDays);
+    }
+}
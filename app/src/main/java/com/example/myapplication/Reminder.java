@@ -4,7 +4,7 @@ import java.io.Serializable;
 
 public class Reminder implements Serializable {
     private final String id;
-    private final String date; // Format: yyyy-MM-dd
+    private String date; // Format: yyyy-MM-dd
     private String title;
     private String content;
     private String startTime; // Format: HH:mm
@@ -14,6 +14,12 @@ public class Reminder implements Serializable {
     private boolean isDeleted; // Whether deleted
     private boolean enableNotification; // Whether to enable system notification
     private int notificationMinutesBefore; // Minutes before reminder time to notify (e.g., 5, 10, 15)
+    private Recurrence recurrence; // Repeat rule when this is a series starting on date, null for a single reminder
+    // Parsed forms of date/startTime/endTime, kept in sync by the constructors and setters.
+    // A null string next to a valid parsed value is formatted from it on first use.
+    private final int epochDay;
+    private int startMinute;
+    private int endMinute;
 
     public Reminder(String id, String date, String title, String content, String startTime, String endTime, long timestamp) {
         this.id = id;
@@ -27,6 +33,53 @@ public class Reminder implements Serializable {
         this.isDeleted = false;
         this.enableNotification = false;
         this.notificationMinutesBefore = 5; // Default: 5 minutes before
+        this.epochDay = ReminderDates.parseEpochDay(date);
+        this.startMinute = ReminderDates.parseMinuteOfDay(startTime);
+        this.endMinute = ReminderDates.parseMinuteOfDay(endTime);
+    }
+
+    /**
+     * Build a reminder from an already parsed date and times, as read back from the binary store.
+     * A string given as null is formatted from its parsed value when it is first asked for, so a load
+     * neither builds nor parses date and time strings.
+     * @param date the date as written, or null when it is the plain form of epochDay
+     * @param startTime the start time as written, or null when it is the plain "HH:mm" form of startMinute
+     * @param endTime the end time as written, or null when it is the plain "HH:mm" form of endMinute
+     */
+    Reminder(String id, String date, int epochDay, String title, String content, String startTime, int startMinute,
+             String endTime, int endMinute, long timestamp) {
+        this.id = id;
+        this.date = date;
+        this.title = title;
+        this.content = content;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.timestamp = timestamp;
+        this.notificationMinutesBefore = 5; // Default: 5 minutes before
+        this.epochDay = epochDay;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    /**
+     * Copy constructor, used by the repository so callers never share its cached instances
+     */
+    public Reminder(Reminder other) {
+        this.id = other.id;
+        this.date = other.date;
+        this.title = other.title;
+        this.content = other.content;
+        this.startTime = other.startTime;
+        this.endTime = other.endTime;
+        this.timestamp = other.timestamp;
+        this.isCompleted = other.isCompleted;
+        this.isDeleted = other.isDeleted;
+        this.enableNotification = other.enableNotification;
+        this.notificationMinutesBefore = other.notificationMinutesBefore;
+        this.recurrence = other.recurrence;
+        this.epochDay = other.epochDay;
+        this.startMinute = other.startMinute;
+        this.endMinute = other.endMinute;
     }
 
     public String getId() {
@@ -34,9 +87,20 @@ public class Reminder implements Serializable {
     }
 
     public String getDate() {
+        // Racing threads format the same string, so the unsynchronized write is harmless
+        if (date == null && epochDay != ReminderDates.INVALID_DAY) {
+            date = ReminderDates.formatEpochDay(epochDay);
+        }
         return date;
     }
 
+    /**
+     * Date as days since 1970-01-01, or {@link ReminderDates#INVALID_DAY}
+     */
+    public int getEpochDay() {
+        return epochDay;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -54,19 +118,41 @@ public class Reminder implements Serializable {
     }
 
     public String getStartTime() {
+        if (startTime == null && startMinute != ReminderDates.INVALID_MINUTE) {
+            startTime = ReminderDates.formatMinuteOfDay(startMinute);
+        }
         return startTime;
     }
 
     public void setStartTime(String startTime) {
         this.startTime = startTime;
+        this.startMinute = ReminderDates.parseMinuteOfDay(startTime);
+    }
+
+    /**
+     * Start time as minutes since midnight, or {@link ReminderDates#INVALID_MINUTE}
+     */
+    public int getStartMinute() {
+        return startMinute;
     }
 
     public String getEndTime() {
+        if (endTime == null && endMinute != ReminderDates.INVALID_MINUTE) {
+            endTime = ReminderDates.formatMinuteOfDay(endMinute);
+        }
         return endTime;
     }
 
     public void setEndTime(String endTime) {
         this.endTime = endTime;
+        this.endMinute = ReminderDates.parseMinuteOfDay(endTime);
+    }
+
+    /**
+     * End time as minutes since midnight, or {@link ReminderDates#INVALID_MINUTE}
+     */
+    public int getEndMinute() {
+        return endMinute;
     }
 
     public long getTimestamp() {
@@ -101,6 +187,34 @@ public class Reminder implements Serializable {
         this.enableNotification = enableNotification;
     }
 
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * True for a series with a valid start date; a rule on a reminder without a date is ignored
+     */
+    public boolean isRecurring() {
+        return recurrence != null && epochDay != ReminderDates.INVALID_DAY;
+    }
+
+    /**
+     * The occurrence of this series on the given day, as a single reminder with its own id
+     */
+    public Reminder occurrenceOn(int day) {
+        Reminder occurrence = new Reminder(Recurrence.occurrenceId(id, day), null, day, title, content,
+                startTime, startMinute, endTime, endMinute, timestamp);
+        occurrence.isCompleted = isCompleted;
+        occurrence.isDeleted = isDeleted;
+        occurrence.enableNotification = enableNotification;
+        occurrence.notificationMinutesBefore = notificationMinutesBefore;
+        return occurrence;
+    }
+
     public int getNotificationMinutesBefore() {
         return notificationMinutesBefore;
     }
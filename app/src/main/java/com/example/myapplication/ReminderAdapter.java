@@ -1,25 +1,53 @@
 package com.example.myapplication;
 
 import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.button.MaterialButton;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-
-public class ReminderAdapter extends RecyclerView.Adapter<ReminderAdapter.ReminderViewHolder> {
-    private List<Reminder> reminders;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * List of reminders backed by a {@link ListAdapter}.
+ * New lists are turned into {@link ReminderItem}s and diffed on background threads (by id,
+ * then by content), so an action on one reminder only rebinds, moves or removes the rows
+ * that actually changed, and binding a row does no formatting at all.
+ */
+public class ReminderAdapter extends ListAdapter<ReminderItem, ReminderAdapter.ReminderViewHolder> {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
     private final OnReminderClickListener listener;
-    @SuppressLint("ConstantLocale")
-    private static final SimpleDateFormat INPUT_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-    private static final SimpleDateFormat OUTPUT_DATE_FORMAT = new SimpleDateFormat("EEEE, MMMM dd, yyyy", Locale.ENGLISH);
+    private final Resources resources;
+    private final Executor executor;
+    // Bumped on every update so an older list that finishes building late is not shown
+    private int updateGeneration = 0;
+
+    static final DiffUtil.ItemCallback<ReminderItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<ReminderItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ReminderItem oldItem, @NonNull ReminderItem newItem) {
+            return Objects.equals(oldItem.reminder.getId(), newItem.reminder.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ReminderItem oldItem, @NonNull ReminderItem newItem) {
+            // Compare what the row shows: the strings were formatted when each item was built,
+            // so a reminder changed in place since then cannot make a stale row look current
+            return oldItem.status == newItem.status && oldItem.title.equals(newItem.title)
+                    && oldItem.content.equals(newItem.content) && oldItem.date.equals(newItem.date)
+                    && Objects.equals(oldItem.time, newItem.time);
+        }
+    };
 
     public interface OnReminderClickListener {
         void onEditClick(Reminder reminder);
@@ -28,9 +56,13 @@ public class ReminderAdapter extends RecyclerView.Adapter<ReminderAdapter.Remind
         void onRestoreClick(Reminder reminder);
     }
 
-    public ReminderAdapter(List<Reminder> reminders, OnReminderClickListener listener) {
-        this.reminders = reminders != null ? reminders : new ArrayList<>();
+    public ReminderAdapter(Context context, OnReminderClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        this.resources = context.getApplicationContext().getResources();
+        // Build display models on the reminder thread, right behind the query that produced the list
+        this.executor = ReminderRepository.getInstance(context).getExecutor();
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -38,30 +70,74 @@ public class ReminderAdapter extends RecyclerView.Adapter<ReminderAdapter.Remind
     public ReminderViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_reminder, parent, false);
-        return new ReminderViewHolder(view);
+        return new ReminderViewHolder(view, this);
     }
 
     @Override
     public void onBindViewHolder(@NonNull ReminderViewHolder holder, int position) {
-        if (reminders == null || position < 0 || position >= reminders.size()) {
+        if (position < 0 || position >= getItemCount()) {
             return;
         }
-        Reminder reminder = reminders.get(position);
-        holder.bind(reminder, listener);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return reminders != null ? reminders.size() : 0;
+    public long getItemId(int position) {
+        return stableIdOf(getItem(position).reminder.getId());
     }
 
-    @SuppressLint("NotifyDataSetChanged")
+    /**
+     * Stable RecyclerView id derived from the reminder id (64-bit FNV-1a), so nothing is kept per reminder
+     */
+    static long stableIdOf(String reminderId) {
+        String key = reminderId != null ? reminderId : "";
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // NO_ID (-1) means "no stable id" to RecyclerView
+        return hash != RecyclerView.NO_ID ? hash : 0;
+    }
+
+    /**
+     * Show a new list. Display models are built and diffed off the main thread,
+     * then only the rows that changed are updated.
+     */
     public void updateReminders(List<Reminder> newReminders) {
-        this.reminders = newReminders != null ? newReminders : new ArrayList<>();
-        notifyDataSetChanged();
+        List<Reminder> reminders = newReminders != null ? newReminders : new ArrayList<>();
+        int generation = ++updateGeneration;
+        executor.execute(() -> {
+            List<ReminderItem> items = ReminderItem.fromAll(resources, reminders);
+            MAIN_HANDLER.post(() -> {
+                if (generation == updateGeneration) {
+                    submitList(items);
+                }
+            });
+        });
     }
 
-    public static class ReminderViewHolder extends RecyclerView.ViewHolder {
+    /**
+     * Route a click from a row to the listener, using the row's current position
+     */
+    private void dispatchClick(int viewId, int position) {
+        if (listener == null || position == RecyclerView.NO_POSITION || position >= getItemCount()) {
+            return;
+        }
+        Reminder reminder = getItem(position).reminder;
+        if (viewId == R.id.editButton) {
+            listener.onEditClick(reminder);
+        } else if (viewId == R.id.deleteButton) {
+            listener.onDeleteClick(reminder);
+        } else if (viewId == R.id.completeButton) {
+            listener.onCompleteClick(reminder);
+        } else if (viewId == R.id.restoreButton) {
+            listener.onRestoreClick(reminder);
+        }
+    }
+
+    public static class ReminderViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        private final ReminderAdapter adapter;
         private final TextView reminderTitle;
         private final TextView reminderDate;
         private final TextView reminderTime;
@@ -72,8 +148,9 @@ public class ReminderAdapter extends RecyclerView.Adapter<ReminderAdapter.Remind
         private final MaterialButton completeButton;
         private final MaterialButton restoreButton;
 
-        public ReminderViewHolder(@NonNull View itemView) {
+        public ReminderViewHolder(@NonNull View itemView, ReminderAdapter adapter) {
             super(itemView);
+            this.adapter = adapter;
             reminderTitle = itemView.findViewById(R.id.reminderTitle);
             reminderDate = itemView.findViewById(R.id.reminderDate);
             reminderTime = itemView.findViewById(R.id.reminderTime);
@@ -83,27 +160,40 @@ public class ReminderAdapter extends RecyclerView.Adapter<ReminderAdapter.Remind
             deleteButton = itemView.findViewById(R.id.deleteButton);
             completeButton = itemView.findViewById(R.id.completeButton);
             restoreButton = itemView.findViewById(R.id.restoreButton);
+            // One listener per holder, the clicked reminder is looked up from the current position
+            setClickListener(editButton);
+            setClickListener(deleteButton);
+            setClickListener(completeButton);
+            setClickListener(restoreButton);
+        }
+
+        private void setClickListener(View button) {
+            if (button != null) {
+                button.setOnClickListener(this);
+            }
+        }
+
+        @Override
+        public void onClick(View v) {
+            adapter.dispatchClick(v.getId(), getBindingAdapterPosition());
         }
 
         @SuppressLint("SetTextI18n")
-        public void bind(Reminder reminder, OnReminderClickListener listener) {
-            if (reminder == null) return;
-
-            String title = reminder.getTitle();
-            String content = reminder.getContent();
-            String displayTitle = title == null || title.isEmpty() ? "No Title" : title;
-            String displayContent = content == null || content.isEmpty() ? "No Content" : content;
-            
-            reminderTitle.setText(displayTitle);
-            reminderContent.setText(displayContent);
-            
+        public void bind(ReminderItem item) {
+            if (item == null) return;
+
+            reminderTitle.setText(item.title);
+            reminderContent.setText(item.content);
+            reminderDate.setText(item.date);
+            reminderTime.setText(item.time);
+
             // Set status badge
             if (reminderStatus != null) {
-                if (reminder.isDeleted()) {
+                if (item.status == ReminderItem.STATUS_DELETED) {
                     reminderStatus.setVisibility(View.VISIBLE);
                     reminderStatus.setText("DELETED");
                     reminderStatus.setBackgroundColor(0xFFE53935); // Red
-                } else if (reminder.isCompleted()) {
+                } else if (item.status == ReminderItem.STATUS_COMPLETED) {
                     reminderStatus.setVisibility(View.VISIBLE);
                     reminderStatus.setText("COMPLETED");
                     reminderStatus.setBackgroundColor(0xFF43A047); // Green
@@ -112,64 +202,17 @@ public class ReminderAdapter extends RecyclerView.Adapter<ReminderAdapter.Remind
                 }
             }
 
-            // Format date display
-            String dateStr = reminder.getDate();
-            if (dateStr != null && !dateStr.isEmpty()) {
-                try {
-                    Date date = INPUT_DATE_FORMAT.parse(dateStr);
-                    reminderDate.setText(date != null ? OUTPUT_DATE_FORMAT.format(date) : dateStr);
-                } catch (Exception e) {
-                    reminderDate.setText(dateStr);
-                }
-            } else {
-                reminderDate.setText("");
-            }
-
-            // Display time range
-            String startTime = reminder.getStartTime();
-            String endTime = reminder.getEndTime();
-            if (startTime != null && !startTime.isEmpty()) {
-                if (endTime != null && !endTime.isEmpty()) {
-                    reminderTime.setText(itemView.getContext().getString(R.string.time_range, startTime, endTime));
-                } else {
-                    reminderTime.setText(startTime);
-                }
-            } else {
-                reminderTime.setText("");
-            }
+            // If completed or deleted, hide complete and edit buttons, show restore button
+            boolean history = item.isHistory();
+            setVisible(completeButton, !history);
+            setVisible(editButton, !history);
+            setVisible(restoreButton, history);
+        }
 
-            if (listener != null) {
-                // If completed or deleted, hide complete and edit buttons, show restore button
-                if (reminder.isCompleted() || reminder.isDeleted()) {
-                    if (completeButton != null) {
-                        completeButton.setVisibility(View.GONE);
-                    }
-                    if (editButton != null) {
-                        editButton.setVisibility(View.GONE);
-                    }
-                    if (restoreButton != null) {
-                        restoreButton.setVisibility(View.VISIBLE);
-                        restoreButton.setOnClickListener(v -> listener.onRestoreClick(reminder));
-                    }
-                } else {
-                    if (restoreButton != null) {
-                        restoreButton.setVisibility(View.GONE);
-                    }
-                    if (completeButton != null) {
-                        completeButton.setVisibility(View.VISIBLE);
-                        completeButton.setOnClickListener(v -> listener.onCompleteClick(reminder));
-                    }
-                    if (editButton != null) {
-                        editButton.setVisibility(View.VISIBLE);
-                        editButton.setOnClickListener(v -> listener.onEditClick(reminder));
-                    }
-                }
-                
-                if (deleteButton != null) {
-                    deleteButton.setOnClickListener(v -> listener.onDeleteClick(reminder));
-                }
+        private static void setVisible(View view, boolean visible) {
+            if (view != null) {
+                view.setVisibility(visible ? View.VISIBLE : View.GONE);
             }
         }
     }
 }
-
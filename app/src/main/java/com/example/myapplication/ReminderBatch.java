@@ -0,0 +1,98 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A group of reminder mutations that is applied in memory and committed to the store once.
+ * Build it inside {@link ReminderManager#batch(Builder, Runnable)}.
+ */
+public class ReminderBatch {
+    enum Type {
+        SAVE,
+        MARK_COMPLETED,
+        DELETE,
+        RESTORE,
+        PERMANENTLY_DELETE,
+        CLEAR_HISTORY
+    }
+
+    static class Operation {
+        final Type type;
+        final String reminderId;
+        final Reminder reminder;
+
+        Operation(Type type, String reminderId, Reminder reminder) {
+            this.type = type;
+            this.reminderId = reminderId;
+            this.reminder = reminder;
+        }
+    }
+
+    /**
+     * Before/after state of one reminder touched by a batch.
+     * before is null for new reminders, after is null for permanently deleted ones.
+     */
+    static class Change {
+        final Reminder before;
+        final Reminder after;
+
+        Change(Reminder before, Reminder after) {
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    public interface Builder {
+        void build(ReminderBatch batch);
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public ReminderBatch save(Reminder reminder) {
+        if (reminder != null && reminder.getId() != null) {
+            // Copy so edits made by the caller before commit do not change the batch
+            operations.add(new Operation(Type.SAVE, reminder.getId(), new Reminder(reminder)));
+        }
+        return this;
+    }
+
+    public ReminderBatch markAsCompleted(String reminderId) {
+        return add(Type.MARK_COMPLETED, reminderId);
+    }
+
+    public ReminderBatch delete(String reminderId) {
+        return add(Type.DELETE, reminderId);
+    }
+
+    public ReminderBatch restore(String reminderId) {
+        return add(Type.RESTORE, reminderId);
+    }
+
+    public ReminderBatch permanentlyDelete(String reminderId) {
+        return add(Type.PERMANENTLY_DELETE, reminderId);
+    }
+
+    /**
+     * Permanently delete every completed or deleted reminder
+     */
+    public ReminderBatch clearHistory() {
+        operations.add(new Operation(Type.CLEAR_HISTORY, null, null));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    List<Operation> getOperations() {
+        return operations;
+    }
+
+    private ReminderBatch add(Type type, String reminderId) {
+        if (reminderId != null) {
+            operations.add(new Operation(type, reminderId, null));
+        }
+        return this;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.myapplication;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single place where reminder changes are reported.
+ * A burst of changes is folded into one refresh after a short quiet period; the refresh rebuilds
+ * each widget query whose days were touched, on the repository thread, and only tells the widgets
+ * showing a query to reload when its rows changed.
+ * The widget frame (buttons, click templates) is left alone, it does not depend on reminder data.
+ */
+final class ReminderChangeBus {
+    private static final String TAG = "ReminderChangeBus";
+    private static final long DEBOUNCE_MILLIS = 300;
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static Context appContext;
+    private static final Runnable FLUSH = ReminderChangeBus::flush;
+
+    private ReminderChangeBus() {
+    }
+
+    /**
+     * Report that reminders changed; safe to call from any thread, as often as needed
+     */
+    static void notifyChanged(Context context) {
+        if (context == null) {
+            return;
+        }
+        synchronized (ReminderChangeBus.class) {
+            appContext = context.getApplicationContext();
+        }
+        // Each call pushes the refresh back, so only the last change of a burst triggers it
+        MAIN_HANDLER.removeCallbacks(FLUSH);
+        MAIN_HANDLER.postDelayed(FLUSH, DEBOUNCE_MILLIS);
+    }
+
+    private static void flush() {
+        Context context;
+        synchronized (ReminderChangeBus.class) {
+            context = appContext;
+        }
+        if (context == null) {
+            return;
+        }
+        refreshNow(context, null);
+    }
+
+    /**
+     * Refresh the widgets without waiting for the quiet period, e.g. from a receiver that has to finish.
+     * @param onComplete run on the repository thread once done, may be null
+     */
+    static void refreshNow(Context context, Runnable onComplete) {
+        // Queued behind the writes that caused it, so the rows are built from the new data
+        ReminderRepository.getInstance(context).getExecutor().execute(() -> {
+            try {
+                refreshWidgets(context);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to refresh widgets", e);
+            } finally {
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            }
+        });
+    }
+
+    private static void refreshWidgets(Context context) {
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        int[] ids = appWidgetManager.getAppWidgetIds(new ComponentName(context, ReminderWidgetProvider.class));
+        // Widgets with the same query share one lookup
+        Map<WidgetQuery, Boolean> changed = new HashMap<>();
+        List<Integer> stale = new ArrayList<>();
+        for (int id : ids) {
+            WidgetQuery query = WidgetQuery.load(context, id);
+            Boolean queryChanged = changed.get(query);
+            if (queryChanged == null) {
+                queryChanged = WidgetSnapshot.refresh(context, query);
+                changed.put(query, queryChanged);
+            }
+            if (queryChanged) {
+                stale.add(id);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        int[] staleIds = new int[stale.size()];
+        for (int i = 0; i < staleIds.length; i++) {
+            staleIds[i] = stale.get(i);
+        }
+        appWidgetManager.notifyAppWidgetViewDataChanged(staleIds, R.id.remindersList);
+    }
+}
@@ -0,0 +1,603 @@
+package com.example.myapplication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact, versioned binary format for the reminder store.
+ *
+ * Snapshot layout: magic, version, string table, one record per reminder, then a CRC32 of everything before it.
+ * Journal layout: magic, version, then framed entries (op, length, payload, CRC32)
+ * so a torn write at the end of the file is detected and ignored.
+ * Every count and length read is checked against the bytes left, so a damaged one is an IOException
+ * rather than a huge allocation.
+ *
+ * Inside a record, dates are stored as epoch days, times as minute of day,
+ * UUID ids as two longs and all numbers as varints. Values that do not match
+ * the expected fixed-width format are kept verbatim, so every reminder round-trips exactly.
+ */
+final class ReminderCodec {
+    static final int VERSION = 1;
+    private static final int SNAPSHOT_MAGIC = 0x524D4453; // "RMDS"
+    private static final int JOURNAL_MAGIC = 0x524D444A; // "RMDJ"
+
+    static final int OP_PUT = 1;
+    static final int OP_REMOVE = 2;
+
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_DELETED = 1 << 1;
+    private static final int FLAG_NOTIFICATION = 1 << 2;
+    private static final int FLAG_UUID_ID = 1 << 3;
+    private static final int FLAG_RAW_DATE = 1 << 4;
+    private static final int FLAG_RECURRING = 1 << 5;
+
+    // Time encoding: 0 = null, 1 = empty, 2..1441 = minute of day, above = raw string
+    private static final int TIME_NULL = 0;
+    private static final int TIME_EMPTY = 1;
+    private static final int TIME_MINUTE_BASE = 2;
+    private static final int TIME_RAW_BASE = TIME_MINUTE_BASE + 24 * 60;
+
+    private ReminderCodec() {
+    }
+
+    /**
+     * Receives records decoded from a journal
+     */
+    interface JournalVisitor {
+        void onPut(Reminder reminder);
+
+        void onRemove(String reminderId);
+    }
+
+    // ---------------------------------------------------------------------
+    // Snapshot
+    // ---------------------------------------------------------------------
+
+    static void writeSnapshot(OutputStream stream, Collection<Reminder> reminders) throws IOException {
+        // Titles, contents and raw values repeat a lot, store each distinct string once
+        Map<String, Integer> table = new HashMap<>();
+        String[] strings = new String[16];
+        int size = 0;
+        for (Reminder reminder : reminders) {
+            for (String value : tableStrings(reminder)) {
+                if (value != null && !table.containsKey(value)) {
+                    if (size == strings.length) {
+                        String[] grown = new String[size * 2];
+                        System.arraycopy(strings, 0, grown, 0, size);
+                        strings = grown;
+                    }
+                    table.put(value, size);
+                    strings[size++] = value;
+                }
+            }
+        }
+
+        CheckedOutputStream checked = new CheckedOutputStream(stream, new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(SNAPSHOT_MAGIC);
+        writeVarInt(out, VERSION);
+        writeVarInt(out, size);
+        for (int i = 0; i < size; i++) {
+            writeString(out, strings[i]);
+        }
+        writeVarInt(out, reminders.size());
+        for (Reminder reminder : reminders) {
+            writeRecord(out, reminder, table);
+        }
+        out.writeInt((int) checked.getChecksum().getValue());
+        out.flush();
+    }
+
+    /**
+     * @param size total length of the stream, counts and lengths beyond it are treated as damage
+     * @throws IOException if the snapshot is damaged or was written by a newer version
+     */
+    static void readSnapshot(InputStream stream, long size, Map<String, Reminder> into) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+        BoundedInput in = new BoundedInput(checked, size);
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a reminder snapshot");
+        }
+        int version = readVarInt(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        String[] strings = new String[in.readLength("string count")];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(in);
+        }
+        int count = in.readLength("record count");
+        for (int i = 0; i < count; i++) {
+            Reminder reminder = readRecord(in, strings);
+            into.put(reminder.getId(), reminder);
+        }
+        int expected = (int) checked.getChecksum().getValue();
+        if (in.readInt() != expected) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Journal
+    // ---------------------------------------------------------------------
+
+    static void writeJournalHeader(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(JOURNAL_MAGIC);
+        writeVarInt(out, VERSION);
+        out.flush();
+    }
+
+    static void writeJournalPut(OutputStream stream, Reminder reminder) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        writeRecord(new DataOutputStream(payload), reminder, null);
+        writeFrame(stream, OP_PUT, payload);
+    }
+
+    static void writeJournalRemove(OutputStream stream, String reminderId) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(48);
+        writeString(new DataOutputStream(payload), reminderId);
+        writeFrame(stream, OP_REMOVE, payload);
+    }
+
+    /**
+     * Result of a journal scan: entries applied, and the length of the journal up to the end of the last
+     * good frame. Anything after that is a torn or damaged tail that must be cut off before appending.
+     */
+    static final class JournalScan {
+        final int entries;
+        final long validLength;
+
+        JournalScan(int entries, long validLength) {
+            this.entries = entries;
+            this.validLength = validLength;
+        }
+    }
+
+    /**
+     * Replay journal entries until the end of the stream or the first damaged frame.
+     * A missing or torn header counts as an empty journal (valid length 0).
+     * @param size total length of the stream, frame lengths beyond it are treated as damage
+     * @throws IOException if the journal was written by a newer version
+     */
+    static JournalScan readJournal(InputStream stream, long size, JournalVisitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        int version;
+        try {
+            if (in.readInt() != JOURNAL_MAGIC) {
+                return new JournalScan(0, 0);
+            }
+            version = readVarInt(in);
+        } catch (EOFException e) {
+            return new JournalScan(0, 0);
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        long offset = 4 + varIntSize(version);
+        int entries = 0;
+        CRC32 crc = new CRC32();
+        while (true) {
+            int op = in.read();
+            if (op < 0) {
+                break;
+            }
+            byte[] payload;
+            try {
+                int length = readVarInt(in);
+                // Checked before allocating, a damaged length must not turn into a huge array
+                long frameEnd = offset + 1 + varIntSize(length) + (long) length + 4;
+                if (length < 0 || frameEnd > size) {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+                int checksum = in.readInt();
+                crc.reset();
+                crc.update(op);
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != checksum) {
+                    // Damaged frame, everything after it is untrusted
+                    break;
+                }
+                offset = frameEnd;
+            } catch (IOException e) {
+                // Torn write at the end of the journal, or a damaged length varint
+                break;
+            }
+            BoundedInput entry = new BoundedInput(new ByteArrayInputStream(payload), payload.length);
+            if (op == OP_PUT) {
+                visitor.onPut(readRecord(entry, null));
+            } else if (op == OP_REMOVE) {
+                visitor.onRemove(readString(entry));
+            }
+            entries++;
+        }
+        return new JournalScan(entries, offset);
+    }
+
+    private static void writeFrame(OutputStream stream, int op, ByteArrayOutputStream payload) throws IOException {
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(bytes, 0, bytes.length);
+        DataOutputStream out = new DataOutputStream(stream);
+        out.write(op);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    // ---------------------------------------------------------------------
+    // Records
+    // ---------------------------------------------------------------------
+
+    private static String[] tableStrings(Reminder reminder) {
+        String date = reminder.getEpochDay() == ReminderDates.INVALID_DAY ? reminder.getDate() : null;
+        String id = parseUuid(reminder.getId()) == null ? reminder.getId() : null;
+        return new String[]{id, date, reminder.getTitle(), reminder.getContent(),
+                rawTime(reminder.getStartTime(), reminder.getStartMinute()),
+                rawTime(reminder.getEndTime(), reminder.getEndMinute())};
+    }
+
+    /**
+     * Write one record, strings go through the table when one is given, inline otherwise
+     */
+    private static void writeRecord(DataOutputStream out, Reminder reminder, Map<String, Integer> table) throws IOException {
+        UUID uuid = parseUuid(reminder.getId());
+        int epochDay = reminder.getEpochDay();
+        int flags = 0;
+        if (reminder.isCompleted()) flags |= FLAG_COMPLETED;
+        if (reminder.isDeleted()) flags |= FLAG_DELETED;
+        if (reminder.isEnableNotification()) flags |= FLAG_NOTIFICATION;
+        if (uuid != null) flags |= FLAG_UUID_ID;
+        if (epochDay == ReminderDates.INVALID_DAY) flags |= FLAG_RAW_DATE;
+        if (reminder.getRecurrence() != null) flags |= FLAG_RECURRING;
+        writeVarInt(out, flags);
+
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            writeRef(out, reminder.getId(), table);
+        }
+        if (epochDay == ReminderDates.INVALID_DAY) {
+            writeRef(out, reminder.getDate(), table);
+        } else {
+            writeVarInt(out, zigZag(epochDay));
+        }
+        writeRef(out, reminder.getTitle(), table);
+        writeRef(out, reminder.getContent(), table);
+        writeTime(out, reminder.getStartTime(), reminder.getStartMinute(), table);
+        writeTime(out, reminder.getEndTime(), reminder.getEndMinute(), table);
+        writeVarLong(out, reminder.getTimestamp());
+        writeVarInt(out, zigZag(reminder.getNotificationMinutesBefore()));
+        if (reminder.getRecurrence() != null) {
+            writeRecurrence(out, reminder.getRecurrence());
+        }
+    }
+
+    /**
+     * Frequency, interval, weekdays, until day (0 = none, else day + 1 zigzagged), then the excluded days
+     * as a count and ascending deltas
+     */
+    private static void writeRecurrence(DataOutputStream out, Recurrence recurrence) throws IOException {
+        writeVarInt(out, recurrence.getFrequency().ordinal());
+        writeVarInt(out, recurrence.getInterval());
+        writeVarInt(out, recurrence.getWeekdays());
+        int untilDay = recurrence.getUntilDay();
+        writeVarInt(out, untilDay == ReminderDates.INVALID_DAY ? 0 : zigZag(untilDay) + 1);
+        int[] excluded = recurrence.getExcludedDays();
+        writeVarInt(out, excluded.length);
+        int previous = 0;
+        for (int day : excluded) {
+            writeVarInt(out, zigZag(day - previous));
+            previous = day;
+        }
+    }
+
+    private static Recurrence readRecurrence(BoundedInput in) throws IOException {
+        int frequency = readVarInt(in);
+        int interval = readVarInt(in);
+        int weekdays = readVarInt(in);
+        int until = readVarInt(in);
+        int count = in.readLength("excluded day count");
+        int[] excluded = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += unZigZag(readVarInt(in));
+            excluded[i] = previous;
+        }
+        Recurrence.Frequency[] frequencies = Recurrence.Frequency.values();
+        if (frequency < 0 || frequency >= frequencies.length) {
+            throw new IOException("Bad recurrence frequency " + frequency);
+        }
+        return Recurrence.restore(frequencies[frequency], interval, weekdays,
+                until == 0 ? ReminderDates.INVALID_DAY : unZigZag(until - 1), excluded);
+    }
+
+    private static Reminder readRecord(BoundedInput in, String[] table) throws IOException {
+        int flags = readVarInt(in);
+        String id;
+        if ((flags & FLAG_UUID_ID) != 0) {
+            id = new UUID(in.readLong(), in.readLong()).toString();
+        } else {
+            id = readRef(in, table);
+        }
+        // Decoded days and minutes go into the reminder as they are, their strings are only built if asked for
+        String date = null;
+        int epochDay;
+        if ((flags & FLAG_RAW_DATE) != 0) {
+            date = readRef(in, table);
+            epochDay = ReminderDates.INVALID_DAY;
+        } else {
+            epochDay = unZigZag(readVarInt(in));
+        }
+        String title = readRef(in, table);
+        String content = readRef(in, table);
+        int start = readVarInt(in);
+        String startTime = readRawTime(in, start, table);
+        int end = readVarInt(in);
+        String endTime = readRawTime(in, end, table);
+        long timestamp = readVarLong(in);
+        int minutesBefore = unZigZag(readVarInt(in));
+        Recurrence recurrence = (flags & FLAG_RECURRING) != 0 ? readRecurrence(in) : null;
+
+        Reminder reminder = new Reminder(id, date, epochDay, title, content, startTime, minuteOf(start, startTime),
+                endTime, minuteOf(end, endTime), timestamp);
+        reminder.setCompleted((flags & FLAG_COMPLETED) != 0);
+        reminder.setDeleted((flags & FLAG_DELETED) != 0);
+        reminder.setEnableNotification((flags & FLAG_NOTIFICATION) != 0);
+        reminder.setNotificationMinutesBefore(minutesBefore);
+        reminder.setRecurrence(recurrence);
+        return reminder;
+    }
+
+    /**
+     * String reference: 0 = null, otherwise table index + 1 (or inline string when there is no table)
+     */
+    private static void writeRef(DataOutputStream out, String value, Map<String, Integer> table) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+        } else if (table != null) {
+            writeVarInt(out, table.get(value) + 1);
+        } else {
+            writeVarInt(out, 1);
+            writeString(out, value);
+        }
+    }
+
+    private static String readRef(BoundedInput in, String[] table) throws IOException {
+        int ref = readVarInt(in);
+        if (ref == 0) {
+            return null;
+        }
+        if (table != null) {
+            if (ref > table.length) {
+                throw new IOException("Bad string reference " + ref);
+            }
+            return table[ref - 1];
+        }
+        return readString(in);
+    }
+
+    private static void writeTime(DataOutputStream out, String time, int parsedMinute, Map<String, Integer> table) throws IOException {
+        if (time == null) {
+            writeVarInt(out, TIME_NULL);
+        } else if (time.isEmpty()) {
+            writeVarInt(out, TIME_EMPTY);
+        } else {
+            int minute = compactMinute(time, parsedMinute);
+            if (minute >= 0) {
+                writeVarInt(out, TIME_MINUTE_BASE + minute);
+            } else if (table != null) {
+                writeVarInt(out, TIME_RAW_BASE + table.get(time));
+            } else {
+                writeVarInt(out, TIME_RAW_BASE);
+                writeString(out, time);
+            }
+        }
+    }
+
+    /**
+     * The time string of an encoded time, or null for no time and for a plain minute of day
+     */
+    private static String readRawTime(BoundedInput in, int value, String[] table) throws IOException {
+        if (value == TIME_NULL || (value >= TIME_MINUTE_BASE && value < TIME_RAW_BASE)) {
+            return null;
+        }
+        if (value == TIME_EMPTY) {
+            return "";
+        }
+        if (table != null) {
+            int index = value - TIME_RAW_BASE;
+            if (index >= table.length) {
+                throw new IOException("Bad time reference " + value);
+            }
+            return table[index];
+        }
+        return readString(in);
+    }
+
+    private static int minuteOf(int value, String rawTime) {
+        if (value >= TIME_MINUTE_BASE && value < TIME_RAW_BASE) {
+            return value - TIME_MINUTE_BASE;
+        }
+        return ReminderDates.parseMinuteOfDay(rawTime);
+    }
+
+    private static String rawTime(String time, int parsedMinute) {
+        return time != null && !time.isEmpty() && compactMinute(time, parsedMinute) < 0 ? time : null;
+    }
+
+    /**
+     * Minute of day when the time is exactly "HH:mm", so formatting it gives back the same string
+     * @return minute of day, or -1 for any other form
+     */
+    private static int compactMinute(String time, int parsedMinute) {
+        return time.length() == 5 ? parsedMinute : ReminderDates.INVALID_MINUTE;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // Only use the compact form when it formats back to the exact same string
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Primitives
+    // ---------------------------------------------------------------------
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(BoundedInput in) throws IOException {
+        byte[] bytes = new byte[in.readLength("string length")];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varlong");
+    }
+
+    /**
+     * Data input that knows how many bytes of the stream are left
+     */
+    private static final class BoundedInput extends DataInputStream {
+        private final CountingInputStream counting;
+        private final long size;
+
+        BoundedInput(InputStream stream, long size) {
+            this(new CountingInputStream(stream), size);
+        }
+
+        private BoundedInput(CountingInputStream counting, long size) {
+            super(counting);
+            this.counting = counting;
+            this.size = size;
+        }
+
+        /**
+         * Read a count or length, which can be no larger than the bytes left since every entry takes at least one
+         */
+        int readLength(String what) throws IOException {
+            int length = readVarInt(this);
+            if (length < 0 || length > size - counting.count) {
+                throw new IOException("Bad " + what + " " + length);
+            }
+            return length;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.myapplication;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central date/time helpers for reminders.
+ * Stored "yyyy-MM-dd" dates and "HH:mm" times are parsed and formatted by hand,
+ * display labels go through immutable java.time formatters with a per-locale cache.
+ * Everything here is safe to call from any thread.
+ */
+public final class ReminderDates {
+    /** Returned when a date string cannot be parsed */
+    public static final int INVALID_DAY = Integer.MIN_VALUE;
+    /** Returned when a time string cannot be parsed */
+    public static final int INVALID_MINUTE = -1;
+
+    // Day labels are cheap to rebuild, so the per-locale cache is simply reset when it gets this big
+    private static final int MAX_CACHED_LABELS = 4096;
+    private static final ConcurrentHashMap<Locale, LocaleLabels> LABELS = new ConcurrentHashMap<>();
+
+    /**
+     * Display formats for a day
+     */
+    public enum DayStyle {
+        FULL("EEEE, MMMM dd, yyyy"),
+        MEDIUM("MMM dd, yyyy"),
+        MONTH_DAY("MMM dd"),
+        NUMERIC_MONTH_DAY("MM/dd"),
+        MONTH("MMM");
+
+        final String pattern;
+
+        DayStyle(String pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+    private ReminderDates() {
+    }
+
+    /**
+     * Display label for a day, cached per locale and style
+     */
+    public static String formatDay(int epochDay, DayStyle style, Locale locale) {
+        LocaleLabels labels = LABELS.get(locale);
+        if (labels == null) {
+            LocaleLabels created = new LocaleLabels(locale);
+            labels = LABELS.putIfAbsent(locale, created);
+            if (labels == null) {
+                labels = created;
+            }
+        }
+        return labels.format(epochDay, style);
+    }
+
+    /**
+     * "yyyy-MM-dd" for a calendar date, month is 1-based
+     */
+    public static String formatDate(int year, int month, int dayOfMonth) {
+        return LocalDate.of(year, month, dayOfMonth).toString();
+    }
+
+    /**
+     * Convert "yyyy-MM-dd" into days since 1970-01-01
+     * @return the epoch day, or {@link #INVALID_DAY} if the string is malformed
+     */
+    public static int parseEpochDay(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return INVALID_DAY;
+        }
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return INVALID_DAY;
+        }
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return INVALID_DAY;
+        }
+    }
+
+    /**
+     * Convert "HH:mm" (or "H:mm") into minutes since midnight
+     * @return the minute of day, or {@link #INVALID_MINUTE} if the string is empty or malformed
+     */
+    public static int parseMinuteOfDay(String time) {
+        if (time == null) {
+            return INVALID_MINUTE;
+        }
+        int colon = time.length() - 3;
+        if (colon < 1 || colon > 2 || time.charAt(colon) != ':') {
+            return INVALID_MINUTE;
+        }
+        int hour = parseDigits(time, 0, colon);
+        int minute = parseDigits(time, colon + 1, time.length());
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return INVALID_MINUTE;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Format days since 1970-01-01 as "yyyy-MM-dd"
+     */
+    public static String formatEpochDay(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /**
+     * Format minutes since midnight as "HH:mm"
+     */
+    public static String formatMinuteOfDay(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return new String(new char[]{
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10)});
+    }
+
+    /**
+     * Wall-clock time in the default time zone, as epoch milliseconds
+     */
+    public static long toEpochMillis(int epochDay, int minuteOfDay) {
+        return LocalDate.ofEpochDay(epochDay)
+                .atTime(minuteOfDay / 60, minuteOfDay % 60)
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+    }
+
+    public static int todayEpochDay() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    /**
+     * Day of the given instant in the default time zone
+     */
+    public static int epochDayOf(long epochMillis) {
+        return (int) Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Formatters and cached labels for one locale
+     */
+    private static final class LocaleLabels {
+        private final DateTimeFormatter[] formatters;
+        private final ConcurrentHashMap<Long, String> labels = new ConcurrentHashMap<>();
+
+        LocaleLabels(Locale locale) {
+            DayStyle[] styles = DayStyle.values();
+            formatters = new DateTimeFormatter[styles.length];
+            for (DayStyle style : styles) {
+                formatters[style.ordinal()] = DateTimeFormatter.ofPattern(style.pattern, locale);
+            }
+        }
+
+        String format(int epochDay, DayStyle style) {
+            Long key = ((long) epochDay << 8) | style.ordinal();
+            String label = labels.get(key);
+            if (label == null) {
+                label = formatters[style.ordinal()].format(LocalDate.ofEpochDay(epochDay));
+                if (labels.size() >= MAX_CACHED_LABELS) {
+                    labels.clear();
+                }
+                labels.put(key, label);
+            }
+            return label;
+        }
+    }
+
+    private static int parseDigits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.myapplication;
+
+import android.content.res.Resources;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Display model for one row of {@link ReminderAdapter}.
+ * All text is formatted once per data change, on a background thread,
+ * so binding a row only copies ready-made strings into views.
+ */
+public class ReminderItem {
+    static final int STATUS_ACTIVE = 0;
+    static final int STATUS_COMPLETED = 1;
+    static final int STATUS_DELETED = 2;
+
+    final Reminder reminder;
+    final String title;
+    final String content;
+    final String date;
+    final String time;
+    final int status;
+
+    private ReminderItem(Reminder reminder, String title, String content, String date, String time, int status) {
+        this.reminder = reminder;
+        this.title = title;
+        this.content = content;
+        this.date = date;
+        this.time = time;
+        this.status = status;
+    }
+
+    boolean isHistory() {
+        return status != STATUS_ACTIVE;
+    }
+
+    static ReminderItem from(Resources resources, Reminder reminder) {
+        String title = reminder.getTitle();
+        String content = reminder.getContent();
+
+        String date;
+        if (reminder.getEpochDay() != ReminderDates.INVALID_DAY) {
+            date = ReminderDates.formatDay(reminder.getEpochDay(), ReminderDates.DayStyle.FULL, Locale.ENGLISH);
+        } else {
+            date = reminder.getDate() != null ? reminder.getDate() : "";
+        }
+
+        // Display time range
+        String startTime = reminder.getStartTime();
+        String endTime = reminder.getEndTime();
+        String time = "";
+        if (startTime != null && !startTime.isEmpty()) {
+            if (endTime != null && !endTime.isEmpty()) {
+                time = resources.getString(R.string.time_range, startTime, endTime);
+            } else {
+                time = startTime;
+            }
+        }
+
+        int status = STATUS_ACTIVE;
+        if (reminder.isDeleted()) {
+            status = STATUS_DELETED;
+        } else if (reminder.isCompleted()) {
+            status = STATUS_COMPLETED;
+        }
+
+        return new ReminderItem(reminder,
+                title == null || title.isEmpty() ? "No Title" : title,
+                content == null || content.isEmpty() ? "No Content" : content,
+                date, time, status);
+    }
+
+    static List<ReminderItem> fromAll(Resources resources, List<Reminder> reminders) {
+        List<ReminderItem> items = new ArrayList<>(reminders.size());
+        for (Reminder reminder : reminders) {
+            if (reminder != null) {
+                items.add(from(resources, reminder));
+            }
+        }
+        return items;
+    }
+}
@@ -1,66 +1,68 @@
 package com.example.myapplication;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.function.Supplier;
 
 public class ReminderManager {
     private static final String TAG = "ReminderManager";
-    private static final String PREFS_NAME = "reminders_prefs";
-    private static final String REMINDERS_KEY = "reminders_list";
-    private final SharedPreferences sharedPreferences;
-    private final Gson gson;
-    // Cache SimpleDateFormat to avoid repeated creation
-    @SuppressLint("ConstantLocale")
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private final Context appContext;
+    private final ReminderRepository repository;
 
     public ReminderManager(Context context) {
-        sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        gson = new Gson();
+        appContext = context.getApplicationContext();
+        // All managers share the process-wide repository, so the store is parsed only once
+        repository = ReminderRepository.getInstance(context);
     }
 
-    public void saveReminder(Reminder reminder) {
+    /**
+     * Save a reminder, then bring its alarm in line with it.
+     * The alarm follows the store, so a crash in between leaves no alarm for a reminder that was never saved;
+     * the reconcile at the next start arms whatever is missing.
+     * @return true if an alarm is set for the reminder
+     */
+    public boolean saveReminder(Reminder reminder) {
         if (reminder == null || reminder.getId() == null) {
-            return;
-        }
-        List<Reminder> reminders = getAllReminders();
-        String reminderId = reminder.getId();
-        // Optimize: use size() once and check for null before equals
-        int size = reminders.size();
-        for (int i = 0; i < size; i++) {
-            Reminder existingReminder = reminders.get(i);
-            if (existingReminder != null && reminderId.equals(existingReminder.getId())) {
-                reminders.set(i, reminder);
-                saveReminders(reminders);
-                return;
-            }
+            return false;
         }
-        reminders.add(reminder);
-        saveReminders(reminders);
+        Reminder before = repository.getById(reminder.getId());
+        // Only the changed record is written, the repository replaces any existing entry with the same id
+        repository.put(reminder);
+        // The old alarm goes first, in case the new time has passed or the notification was switched off
+        cancelAlarm(before);
+        boolean alarmSet = reminder.isEnableNotification() && AlarmHelper.setAlarm(appContext, reminder);
+        ReminderChangeBus.notifyChanged(appContext);
+        return alarmSet;
     }
 
     public void deleteReminder(String reminderId) {
         if (reminderId == null) {
             return;
         }
-        List<Reminder> reminders = getAllReminders();
-        for (Reminder reminder : reminders) {
-            if (reminder != null && reminderId.equals(reminder.getId())) {
-                reminder.setDeleted(true);
-                reminder.setTimestamp(System.currentTimeMillis());
-                saveReminders(reminders);
-                return;
-            }
-        }
+        Reminder before = repository.getById(reminderId);
+        repository.update(reminderId, reminder -> {
+            reminder.setDeleted(true);
+            reminder.setTimestamp(System.currentTimeMillis());
+        });
+        cancelAlarm(before);
+        reconcileIfOccurrence(reminderId);
+        ReminderChangeBus.notifyChanged(appContext);
+    }
+
+    /**
+     * Delete every upcoming occurrence of the series a reminder belongs to.
+     * Occurrences that were completed or edited on their own are kept.
+     * @param reminderId id of the series or of one of its occurrences
+     */
+    public void deleteSeries(String reminderId) {
+        String seriesId = Recurrence.seriesIdOf(reminderId);
+        deleteReminder(seriesId != null ? seriesId : reminderId);
+        // Only the next occurrence has an alarm, reconcile finds it gone
+        AlarmScheduler.reconcile(appContext);
     }
 
     /**
@@ -70,131 +72,286 @@ public class ReminderManager {
         if (reminderId == null) {
             return;
         }
-        List<Reminder> reminders = getAllReminders();
-        reminders.removeIf(reminder -> reminder != null && reminderId.equals(reminder.getId()));
-        saveReminders(reminders);
+        Reminder before = repository.getById(reminderId);
+        repository.remove(reminderId);
+        cancelAlarm(before);
+        ReminderChangeBus.notifyChanged(appContext);
     }
 
     public List<Reminder> getAllReminders() {
-        if (sharedPreferences == null || gson == null) {
-            return new ArrayList<>();
-        }
-        String json = sharedPreferences.getString(REMINDERS_KEY, null);
-        if (json == null || json.isEmpty()) {
-            return new ArrayList<>();
-        }
-        try {
-            Type type = new TypeToken<List<Reminder>>() {}.getType();
-            List<Reminder> reminders = gson.fromJson(json, type);
-            return reminders != null ? reminders : new ArrayList<>();
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to parse reminders from JSON", e);
-            return new ArrayList<>();
-        }
+        return repository.getAll();
+    }
+
+    /**
+     * Look up a single reminder by id without scanning the list
+     * @return a copy of the reminder, or null if it does not exist
+     */
+    public Reminder getReminderById(String reminderId) {
+        return repository.getById(reminderId);
+    }
+
+    /**
+     * Dates with active reminders between fromEpochDay and toEpochDay (inclusive), as ascending epoch days
+     */
+    public List<Integer> getActiveReminderDays(int fromEpochDay, int toEpochDay) {
+        return repository.getActiveDays(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Active reminders on the given epoch day, answered from the date index
+     */
+    public List<Reminder> getActiveRemindersOnDay(int epochDay) {
+        return repository.getActiveOnDay(epochDay);
     }
 
     public void markAsCompleted(String reminderId) {
         if (reminderId == null) {
             return;
         }
-        List<Reminder> reminders = getAllReminders();
-        for (Reminder reminder : reminders) {
-            if (reminder != null && reminderId.equals(reminder.getId())) {
-                reminder.setCompleted(true);
-                reminder.setTimestamp(System.currentTimeMillis());
-                saveReminders(reminders);
-                return;
-            }
+        Reminder before = repository.getById(reminderId);
+        repository.update(reminderId, reminder -> {
+            reminder.setCompleted(true);
+            reminder.setTimestamp(System.currentTimeMillis());
+        });
+        cancelAlarm(before);
+        reconcileIfOccurrence(reminderId);
+        ReminderChangeBus.notifyChanged(appContext);
+    }
+
+    /**
+     * Cancel the alarm of a reminder as it was before a change (null if it did not exist)
+     */
+    private void cancelAlarm(Reminder before) {
+        if (before != null && before.isEnableNotification()) {
+            AlarmHelper.cancelAlarm(appContext, before);
         }
     }
 
-    public void restoreReminder(String reminderId) {
+    /**
+     * Completing or deleting one occurrence detaches it from its series. Its own alarm is cancelled
+     * with it; reconcile arms the series' next occurrence in its place.
+     */
+    private void reconcileIfOccurrence(String reminderId) {
+        if (Recurrence.seriesIdOf(reminderId) != null) {
+            AlarmScheduler.reconcile(appContext);
+        }
+    }
+
+    /**
+     * Move a reminder back to the active set and set its alarm again
+     * @return whether an alarm is set for it, or null if the reminder no longer exists
+     */
+    public Boolean restoreReminder(String reminderId) {
         if (reminderId == null) {
-            return;
+            return null;
         }
-        List<Reminder> reminders = getAllReminders();
-        for (Reminder reminder : reminders) {
-            if (reminder != null && reminderId.equals(reminder.getId())) {
-                reminder.setCompleted(false);
-                reminder.setDeleted(false);
-                reminder.setTimestamp(System.currentTimeMillis());
-                saveReminders(reminders);
-                return;
-            }
+        boolean restored = repository.update(reminderId, reminder -> {
+            reminder.setCompleted(false);
+            reminder.setDeleted(false);
+            reminder.setTimestamp(System.currentTimeMillis());
+        });
+        if (!restored) {
+            return null;
         }
+        Reminder reminder = repository.getById(reminderId);
+        boolean alarmSet = reminder != null && reminder.isEnableNotification()
+                && AlarmHelper.setAlarm(appContext, reminder);
+        ReminderChangeBus.notifyChanged(appContext);
+        return alarmSet;
     }
 
+    /**
+     * Active reminders, today's first, then by date and start time
+     */
     public List<Reminder> getActiveReminders() {
-        List<Reminder> allReminders = getAllReminders();
-        List<Reminder> activeReminders = new ArrayList<>();
-        // Use cached DATE_FORMAT instead of creating new SimpleDateFormat
-        String today = DATE_FORMAT.format(new Date());
-        
-        for (Reminder reminder : allReminders) {
-            if (reminder != null && !reminder.isCompleted() && !reminder.isDeleted()) {
-                activeReminders.add(reminder);
-            }
-        }
-        
-        activeReminders.sort((r1, r2) -> {
-            if (r1 == null && r2 == null) return 0;
-            if (r1 == null) return 1;
-            if (r2 == null) return -1;
-            
-            String date1 = r1.getDate();
-            String date2 = r2.getDate();
-            if (date1 == null && date2 == null) return 0;
-            if (date1 == null) return 1;
-            if (date2 == null) return -1;
-            
-            boolean r1IsToday = date1.equals(today);
-            boolean r2IsToday = date2.equals(today);
-            
-            if (r1IsToday && !r2IsToday) return -1;
-            if (!r1IsToday && r2IsToday) return 1;
-            return date1.compareTo(date2);
-        });
-        return activeReminders;
+        // The repository keeps the order up to date, no sorting needed here
+        return repository.getActiveTodayFirst(ReminderDates.todayEpochDay());
+    }
+
+    /**
+     * Up to limit active (or history) reminders matching every word of the query, best match first
+     */
+    public List<Reminder> searchReminders(String query, boolean history, int limit) {
+        return repository.search(query, history, ReminderDates.todayEpochDay(), limit);
     }
 
+    /**
+     * Completed and deleted reminders, most recently changed first
+     */
     public List<Reminder> getCompletedReminders() {
-        List<Reminder> allReminders = getAllReminders();
-        List<Reminder> completedReminders = new ArrayList<>();
-        for (Reminder reminder : allReminders) {
-            if (reminder != null && (reminder.isCompleted() || reminder.isDeleted())) {
-                completedReminders.add(reminder);
-            }
-        }
-        completedReminders.sort((r1, r2) -> {
-            if (r1 == null && r2 == null) return 0;
-            if (r1 == null) return 1;
-            if (r2 == null) return -1;
-            return Long.compare(r2.getTimestamp(), r1.getTimestamp());
-        });
-        return completedReminders;
+        return repository.getHistory();
+    }
+
+    /**
+     * One page of completed and deleted reminders, most recently changed first
+     * @param after cursor of the previous page, or null for the first page
+     */
+    public ReminderPage getCompletedRemindersPage(ReminderPage.Cursor after, int limit) {
+        return repository.getHistoryPage(after, limit);
     }
 
     public void clearAllCompletedReminders() {
-        List<Reminder> allReminders = getAllReminders();
-        List<Reminder> activeReminders = new ArrayList<>();
-        for (Reminder reminder : allReminders) {
-            if (reminder != null && !reminder.isCompleted() && !reminder.isDeleted()) {
-                activeReminders.add(reminder);
+        repository.removeHistory();
+        ReminderChangeBus.notifyChanged(appContext);
+    }
+
+    // ---------------------------------------------------------------------
+    // Async API: the work runs on the repository thread, results are delivered on the main looper.
+    // Requests are executed in submission order, so a query submitted after a mutation sees it.
+    // ---------------------------------------------------------------------
+
+    /**
+     * Receives the result of an async call on the main thread
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public void getActiveRemindersAsync(Callback<List<Reminder>> callback) {
+        runAsync(this::getActiveReminders, callback);
+    }
+
+    public void getCompletedRemindersPageAsync(ReminderPage.Cursor after, int limit, Callback<ReminderPage> callback) {
+        runAsync(() -> getCompletedRemindersPage(after, limit), callback);
+    }
+
+    /**
+     * Build the search index in the background, e.g. when a search box gets focus
+     */
+    public void prepareSearchAsync() {
+        repository.getExecutor().execute(() -> {
+            try {
+                repository.prepareSearch();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to build search index", e);
             }
+        });
+    }
+
+    public void searchRemindersAsync(String query, boolean history, int limit, Callback<List<Reminder>> callback) {
+        runAsync(() -> searchReminders(query, history, limit), callback);
+    }
+
+    public void getActiveReminderDaysAsync(int fromEpochDay, int toEpochDay, Callback<List<Integer>> callback) {
+        runAsync(() -> getActiveReminderDays(fromEpochDay, toEpochDay), callback);
+    }
+
+    public void getActiveRemindersOnDayAsync(int epochDay, Callback<List<Reminder>> callback) {
+        runAsync(() -> getActiveRemindersOnDay(epochDay), callback);
+    }
+
+    /**
+     * Save a reminder and update its alarm, then deliver whether an alarm is set for it
+     */
+    public void saveReminderAsync(Reminder reminder, Callback<Boolean> callback) {
+        // Copy now so edits made by the caller after this call are not picked up
+        Reminder copy = reminder != null ? new Reminder(reminder) : null;
+        runAsync(() -> saveReminder(copy), callback);
+    }
+
+    public void deleteReminderAsync(String reminderId, Runnable onComplete) {
+        runAsync(() -> {
+            deleteReminder(reminderId);
+            return null;
+        }, ignored -> runIfNotNull(onComplete));
+    }
+
+    public void deleteSeriesAsync(String reminderId, Runnable onComplete) {
+        runAsync(() -> {
+            deleteSeries(reminderId);
+            return null;
+        }, ignored -> runIfNotNull(onComplete));
+    }
+
+    public void permanentlyDeleteReminderAsync(String reminderId, Runnable onComplete) {
+        runAsync(() -> {
+            permanentlyDeleteReminder(reminderId);
+            return null;
+        }, ignored -> runIfNotNull(onComplete));
+    }
+
+    public void markAsCompletedAsync(String reminderId, Runnable onComplete) {
+        runAsync(() -> {
+            markAsCompleted(reminderId);
+            return null;
+        }, ignored -> runIfNotNull(onComplete));
+    }
+
+    /**
+     * Restore a reminder and deliver whether an alarm is set for it (null if it no longer exists)
+     */
+    public void restoreReminderAsync(String reminderId, Callback<Boolean> callback) {
+        runAsync(() -> restoreReminder(reminderId), callback);
+    }
+
+    public void clearAllCompletedRemindersAsync(Runnable onComplete) {
+        runAsync(() -> {
+            clearAllCompletedReminders();
+            return null;
+        }, ignored -> runIfNotNull(onComplete));
+    }
+
+    /**
+     * Apply many mutations with a single store commit, for example:
+     * <pre>reminderManager.batch(batch -&gt; batch.markAsCompleted(a).delete(b), this::loadReminders);</pre>
+     * One alarm reconcile and one widget refresh request run once at the end,
+     * on the background thread, before onComplete is posted to the main thread.
+     */
+    public void batch(ReminderBatch.Builder builder, Runnable onComplete) {
+        if (builder == null) {
+            return;
         }
-        saveReminders(activeReminders);
+        ReminderBatch batch = new ReminderBatch();
+        builder.build(batch);
+        runAsync(() -> {
+            List<ReminderBatch.Change> changes = repository.apply(batch);
+            applyBatchSideEffects(changes);
+            return null;
+        }, ignored -> runIfNotNull(onComplete));
     }
 
-    private void saveReminders(List<Reminder> reminders) {
-        if (sharedPreferences == null || gson == null) {
+    private void applyBatchSideEffects(List<ReminderBatch.Change> changes) {
+        if (changes.isEmpty()) {
             return;
         }
-        try {
-            String json = gson.toJson(reminders);
-            sharedPreferences.edit().putString(REMINDERS_KEY, json).apply();
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to save reminders", e);
+        boolean alarmsTouched = false;
+        for (ReminderBatch.Change change : changes) {
+            if ((change.before != null && change.before.isEnableNotification())
+                    || (change.after != null && change.after.isEnableNotification())) {
+                alarmsTouched = true;
+                break;
+            }
         }
+        if (alarmsTouched) {
+            // One pass over the alarm record for the whole batch; already on the repository thread
+            try {
+                AlarmScheduler.reconcile(appContext, repository);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to update alarms after batch", e);
+            }
+        }
+        ReminderChangeBus.notifyChanged(appContext);
+    }
+
+    private <T> void runAsync(Supplier<T> work, Callback<T> callback) {
+        repository.getExecutor().execute(() -> {
+            T result;
+            try {
+                result = work.get();
+            } catch (Exception e) {
+                Log.e(TAG, "Async reminder operation failed", e);
+                result = null;
+            }
+            if (callback != null) {
+                T finalResult = result;
+                MAIN_HANDLER.post(() -> callback.onResult(finalResult));
+            }
+        });
     }
-}
 
+    private static void runIfNotNull(Runnable runnable) {
+        if (runnable != null) {
+            runnable.run();
+        }
+    }
+}
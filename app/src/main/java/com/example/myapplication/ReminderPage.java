@@ -0,0 +1,46 @@
+package com.example.myapplication;
+
+import java.util.List;
+
+/**
+ * One page of history reminders, newest first.
+ * Pass {@link #getNextCursor()} back to get the page that follows; it stays valid
+ * when reminders are added or removed in between because it points at a position, not an index.
+ */
+public class ReminderPage {
+    private final List<Reminder> reminders;
+    private final Cursor nextCursor;
+
+    ReminderPage(List<Reminder> reminders, Cursor nextCursor) {
+        this.reminders = reminders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Reminder> getReminders() {
+        return reminders;
+    }
+
+    /**
+     * Position after the last reminder of this page, or null if this is the last page
+     */
+    public Cursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * (timestamp, id) of the last reminder already shown
+     */
+    public static class Cursor {
+        final long timestamp;
+        final String id;
+
+        Cursor(long timestamp, String id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+}
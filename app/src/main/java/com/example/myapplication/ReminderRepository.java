@@ -0,0 +1,879 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Process-wide in-memory reminder repository.
+ * The store is parsed once, then reminders are served from an id index plus
+ * ordered active/history views that are updated in O(log n) per mutation.
+ * Mutations update memory immediately and are written through to
+ * {@link ReminderStore} on the single repository thread, which is also where
+ * the async {@link ReminderManager} API runs its work.
+ * Cached instances are never handed out, callers always get copies.
+ * Recurring reminders are kept once per series, outside the day index; queries merge in the
+ * occurrences they need, so their cost grows with the number of series, not of occurrences.
+ */
+public class ReminderRepository {
+    private static final String TAG = "ReminderRepository";
+    // Occurrences of one series tried while looking for one that passes a filter (e.g. not yet due)
+    private static final int MAX_SKIPPED_OCCURRENCES = 64;
+    private static final Comparator<Reminder> ACTIVE_ORDER = (a, b) -> new ActiveKey(a).compareTo(new ActiveKey(b));
+
+    private static ReminderRepository instance;
+
+    private final ReminderStore store;
+    // Single thread for loading, async queries and journal appends, keeps everything in mutation order
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reminder-io");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private final Map<String, Reminder> remindersById = new HashMap<>();
+    // Active reminders ordered by (day, start time, id): per-day and date-range queries are range views
+    private final TreeMap<ActiveKey, Reminder> activeByKey = new TreeMap<>();
+    // Completed/deleted reminders, most recently changed first
+    private final TreeMap<HistoryKey, Reminder> historyByKey = new TreeMap<>();
+    // Active recurring reminders by id; their occurrences are computed per query and never stored
+    private final Map<String, Reminder> activeSeries = new HashMap<>();
+    // Words of titles and contents; built on the first search, then kept up to date with the other indexes
+    private final ReminderSearchIndex searchIndex = new ReminderSearchIndex();
+    private boolean searchIndexBuilt = false;
+    private boolean loaded = false;
+    // Set when the store could not be loaded; the session then runs read-only as far as the store is concerned
+    private boolean loadFailed = false;
+    // Bumped on every change to the cached reminders, lets derived data tell whether it is stale
+    private long version;
+    // Version of the last change on each day (invalid dates under Integer.MAX_VALUE), for range-scoped staleness
+    private final TreeMap<Integer, Long> dayVersions = new TreeMap<>();
+    // Version of the last change to a series, which can touch any day from its start on
+    private long seriesVersion;
+
+    public static synchronized ReminderRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReminderRepository(ReminderStore.getInstance(context));
+        }
+        return instance;
+    }
+
+    /**
+     * @param store where changes are written, or null to keep reminders in memory only (JVM tests)
+     */
+    ReminderRepository(ReminderStore store) {
+        this.store = store;
+    }
+
+    /**
+     * The single background thread that owns loading and persistence
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        if (store == null) {
+            loaded = true;
+            return;
+        }
+        Map<String, Reminder> stored;
+        try {
+            stored = store.loadAll();
+        } catch (Exception e) {
+            // Changes made on top of a partial load would be compacted over the data that failed to load
+            Log.e(TAG, "Failed to load reminders, changes will not be saved", e);
+            loadFailed = true;
+            loaded = true;
+            return;
+        }
+        for (Reminder reminder : stored.values()) {
+            index(reminder);
+        }
+        loaded = true;
+    }
+
+    private void index(Reminder reminder) {
+        version++;
+        dayVersions.put(sortDay(reminder), version);
+        Reminder previous = remindersById.put(reminder.getId(), reminder);
+        if (previous != null) {
+            dayVersions.put(sortDay(previous), version);
+            removeFromSecondaryIndexes(previous);
+        }
+        if (reminder.isRecurring() || (previous != null && previous.isRecurring())) {
+            seriesVersion = version;
+        }
+        // Completing or moving a reminder keeps its words
+        if (searchIndexBuilt && (previous == null || !sameText(previous, reminder))) {
+            searchIndex.add(reminder);
+        }
+        if (isHistory(reminder)) {
+            historyByKey.put(new HistoryKey(reminder), reminder);
+        } else if (reminder.isRecurring()) {
+            activeSeries.put(reminder.getId(), reminder);
+        } else {
+            activeByKey.put(new ActiveKey(reminder), reminder);
+        }
+    }
+
+    private void unindex(String id) {
+        Reminder previous = remindersById.remove(id);
+        if (previous != null) {
+            version++;
+            dayVersions.put(sortDay(previous), version);
+            if (previous.isRecurring()) {
+                seriesVersion = version;
+            }
+            removeFromSecondaryIndexes(previous);
+            if (searchIndexBuilt) {
+                searchIndex.remove(id);
+            }
+        }
+    }
+
+    private static boolean sameText(Reminder a, Reminder b) {
+        return Objects.equals(a.getTitle(), b.getTitle()) && Objects.equals(a.getContent(), b.getContent());
+    }
+
+    private static int sortDay(Reminder reminder) {
+        return reminder.getEpochDay() != ReminderDates.INVALID_DAY ? reminder.getEpochDay() : Integer.MAX_VALUE;
+    }
+
+    private void removeFromSecondaryIndexes(Reminder reminder) {
+        // Cached instances never change, so the key built now matches the one used on insert
+        if (isHistory(reminder)) {
+            historyByKey.remove(new HistoryKey(reminder));
+        } else if (reminder.isRecurring()) {
+            activeSeries.remove(reminder.getId());
+        } else {
+            activeByKey.remove(new ActiveKey(reminder));
+        }
+    }
+
+    private static boolean isHistory(Reminder reminder) {
+        return reminder.isCompleted() || reminder.isDeleted();
+    }
+
+    public synchronized Reminder getById(String reminderId) {
+        if (reminderId == null) {
+            return null;
+        }
+        ensureLoaded();
+        Reminder reminder = remindersById.get(reminderId);
+        // Occurrence ids resolve to the occurrence computed from their series
+        return reminder != null ? new Reminder(reminder) : occurrenceOf(reminderId);
+    }
+
+    /**
+     * Every stored reminder; a series is returned once, as stored
+     */
+    public synchronized List<Reminder> getAll() {
+        ensureLoaded();
+        List<Reminder> result = new ArrayList<>(remindersById.size());
+        copyInto(result, activeByKey.values());
+        copyInto(result, activeSeries.values());
+        copyInto(result, historyByKey.values());
+        return result;
+    }
+
+    /**
+     * Active reminders with the given day first, then earlier days, then later days.
+     * Each part is a range view of the ordered index, so a new day only moves the boundaries.
+     * A series shows its occurrence on the given day and its next one after it, never past ones.
+     */
+    public synchronized List<Reminder> getActiveTodayFirst(int today) {
+        return getActiveTodayFirst(today, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first limit reminders of {@link #getActiveTodayFirst(int)}, without copying the rest
+     */
+    public synchronized List<Reminder> getActiveTodayFirst(int today, int limit) {
+        ensureLoaded();
+        List<Reminder> result = new ArrayList<>(Math.min(limit, activeByKey.size() + 2 * activeSeries.size()));
+        mergeInto(result, activeByKey.subMap(ActiveKey.dayStart(today), ActiveKey.dayStart(today + 1)).values(),
+                null, occurrencesBetween(today, today, 1), limit);
+        copyInto(result, activeByKey.headMap(ActiveKey.dayStart(today)).values(), limit);
+        mergeInto(result, activeByKey.tailMap(ActiveKey.dayStart(today + 1)).values(),
+                null, nextOccurrences(today + 1, Integer.MAX_VALUE, null), limit);
+        return result;
+    }
+
+    /**
+     * Changes whenever a reminder is added, changed or removed
+     */
+    public synchronized long getVersion() {
+        ensureLoaded();
+        return version;
+    }
+
+    /**
+     * Version of the last change to a reminder dated between fromDay and toDay (inclusive), 0 if none.
+     * Data derived from that range only is stale if this is newer than the version it was built from.
+     */
+    public synchronized long getLastChange(int fromDay, int toDay) {
+        ensureLoaded();
+        long last = seriesVersion;
+        if (fromDay > toDay) {
+            return last;
+        }
+        for (long dayVersion : dayVersions.subMap(fromDay, true, toDay, true).values()) {
+            last = Math.max(last, dayVersion);
+        }
+        return last;
+    }
+
+    /**
+     * Active reminders on fromDay or later, by date and start time.
+     * Reminders without a valid date sort last and are included; each series adds its next occurrence.
+     */
+    public synchronized List<Reminder> getActiveFrom(int fromDay) {
+        return getActiveFrom(fromDay, reminder -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Up to limit active reminders on fromDay or later that match the filter, by date and start time.
+     * The walk stops as soon as the limit is reached, so only the earliest reminders are copied.
+     * Each series adds its first occurrence that matches, which is all an alarm needs:
+     * the next one is looked up once that has fired.
+     */
+    public synchronized List<Reminder> getActiveFrom(int fromDay, Predicate<Reminder> filter, int limit) {
+        ensureLoaded();
+        List<Reminder> result = new ArrayList<>(Math.min(limit, activeByKey.size() + activeSeries.size()));
+        mergeInto(result, activeByKey.tailMap(ActiveKey.dayStart(fromDay)).values(),
+                filter, nextOccurrences(fromDay, Integer.MAX_VALUE, filter), limit);
+        return result;
+    }
+
+    /**
+     * Same as {@link #getActiveFrom(int, Predicate, int)}, only reminders dated fromDay to toDay (inclusive).
+     * The walk ends at toDay, so the reminders after it cost nothing.
+     */
+    public synchronized List<Reminder> getActiveFrom(int fromDay, int toDay, Predicate<Reminder> filter, int limit) {
+        ensureLoaded();
+        List<Reminder> result = new ArrayList<>();
+        if (fromDay > toDay || fromDay == ReminderDates.INVALID_DAY || toDay == Integer.MAX_VALUE) {
+            return result;
+        }
+        mergeInto(result, activeByKey.subMap(ActiveKey.dayStart(fromDay), ActiveKey.dayStart(toDay + 1)).values(),
+                filter, nextOccurrences(fromDay, toDay, filter), limit);
+        return result;
+    }
+
+    /**
+     * Completed and deleted reminders, most recently changed first
+     */
+    public synchronized List<Reminder> getHistory() {
+        ensureLoaded();
+        return copyOf(historyByKey.values());
+    }
+
+    /**
+     * Up to limit history reminders that come after the cursor (newest first).
+     * Cost depends on the page size only, not on the size of the history.
+     * @param after position returned with the previous page, or null for the first page
+     */
+    public synchronized ReminderPage getHistoryPage(ReminderPage.Cursor after, int limit) {
+        ensureLoaded();
+        NavigableMap<HistoryKey, Reminder> remaining = after != null
+                ? historyByKey.tailMap(new HistoryKey(after.timestamp, after.id), false)
+                : historyByKey;
+        List<Reminder> reminders = new ArrayList<>();
+        Iterator<Reminder> iterator = remaining.values().iterator();
+        while (reminders.size() < limit && iterator.hasNext()) {
+            reminders.add(new Reminder(iterator.next()));
+        }
+        ReminderPage.Cursor next = null;
+        if (iterator.hasNext() && !reminders.isEmpty()) {
+            Reminder last = reminders.get(reminders.size() - 1);
+            next = new ReminderPage.Cursor(last.getTimestamp(), last.getId());
+        }
+        return new ReminderPage(reminders, next);
+    }
+
+    /**
+     * Epoch days between fromDay and toDay (inclusive) that have at least one active reminder, ascending
+     */
+    public synchronized List<Integer> getActiveDays(int fromDay, int toDay) {
+        ensureLoaded();
+        List<Integer> days = new ArrayList<>();
+        if (fromDay > toDay) {
+            return days;
+        }
+        // Jump from day to day instead of visiting every reminder in the range
+        ActiveKey key = activeByKey.ceilingKey(ActiveKey.dayStart(fromDay));
+        while (key != null && key.day <= toDay) {
+            days.add(key.day);
+            key = key.day < Integer.MAX_VALUE ? activeByKey.ceilingKey(ActiveKey.dayStart(key.day + 1)) : null;
+        }
+        if (activeSeries.isEmpty()) {
+            return days;
+        }
+        TreeSet<Integer> withSeries = new TreeSet<>(days);
+        for (Reminder series : activeSeries.values()) {
+            Recurrence recurrence = series.getRecurrence();
+            int start = series.getEpochDay();
+            for (int day = recurrence.next(start, fromDay); day != ReminderDates.INVALID_DAY && day <= toDay;
+                    day = recurrence.next(start, day + 1)) {
+                withSeries.add(day);
+            }
+        }
+        return new ArrayList<>(withSeries);
+    }
+
+    /**
+     * Active reminders on a single epoch day, ordered by start time
+     */
+    public synchronized List<Reminder> getActiveOnDay(int day) {
+        ensureLoaded();
+        List<Reminder> result = new ArrayList<>();
+        if (day == ReminderDates.INVALID_DAY || day == Integer.MAX_VALUE) {
+            return result;
+        }
+        mergeInto(result, activeByKey.subMap(ActiveKey.dayStart(day), ActiveKey.dayStart(day + 1)).values(),
+                null, occurrencesBetween(day, day, 1), Integer.MAX_VALUE);
+        return result;
+    }
+
+    /**
+     * Up to limit active reminders between fromDay and toDay (inclusive), by date and start time
+     */
+    public synchronized List<Reminder> getActiveBetween(int fromDay, int toDay, int limit) {
+        ensureLoaded();
+        List<Reminder> result = new ArrayList<>();
+        if (fromDay > toDay || fromDay == ReminderDates.INVALID_DAY || toDay == Integer.MAX_VALUE) {
+            return result;
+        }
+        mergeInto(result, activeByKey.subMap(ActiveKey.dayStart(fromDay), ActiveKey.dayStart(toDay + 1)).values(),
+                null, occurrencesBetween(fromDay, toDay, limit), limit);
+        return result;
+    }
+
+    /**
+     * Occurrences of every active series between fromDay and toDay (inclusive), at most limit per series,
+     * in active order
+     */
+    private List<Reminder> occurrencesBetween(int fromDay, int toDay, int limit) {
+        List<Reminder> occurrences = new ArrayList<>();
+        for (Reminder series : activeSeries.values()) {
+            Recurrence recurrence = series.getRecurrence();
+            int start = series.getEpochDay();
+            int count = 0;
+            for (int day = recurrence.next(start, fromDay); day != ReminderDates.INVALID_DAY && day <= toDay
+                    && count < limit; day = recurrence.next(start, day + 1), count++) {
+                occurrences.add(series.occurrenceOn(day));
+            }
+        }
+        occurrences.sort(ACTIVE_ORDER);
+        return occurrences;
+    }
+
+    /**
+     * First occurrence from fromDay to toDay (inclusive) of every active series that passes the filter (null for any),
+     * in active order
+     */
+    private List<Reminder> nextOccurrences(int fromDay, int toDay, Predicate<Reminder> filter) {
+        List<Reminder> occurrences = new ArrayList<>(activeSeries.size());
+        for (Reminder series : activeSeries.values()) {
+            Recurrence recurrence = series.getRecurrence();
+            int start = series.getEpochDay();
+            int day = recurrence.next(start, fromDay);
+            for (int skipped = 0; day != ReminderDates.INVALID_DAY && day <= toDay
+                    && skipped < MAX_SKIPPED_OCCURRENCES; skipped++) {
+                Reminder occurrence = series.occurrenceOn(day);
+                if (filter == null || filter.test(occurrence)) {
+                    occurrences.add(occurrence);
+                    break;
+                }
+                day = recurrence.next(start, day + 1);
+            }
+        }
+        occurrences.sort(ACTIVE_ORDER);
+        return occurrences;
+    }
+
+    /**
+     * The occurrence with the given id if its series is active and has it, else null
+     */
+    private Reminder occurrenceOf(String reminderId) {
+        String seriesId = Recurrence.seriesIdOf(reminderId);
+        Reminder series = seriesId != null ? activeSeries.get(seriesId) : null;
+        if (series == null) {
+            return null;
+        }
+        int day = Recurrence.occurrenceDayOf(reminderId);
+        return series.getRecurrence().occursOn(series.getEpochDay(), day) ? series.occurrenceOn(day) : null;
+    }
+
+    /**
+     * Store an occurrence as a reminder of its own, so it can change alone; its series skips that day from now on.
+     * Does nothing if the id is stored already or is not an occurrence of an active series.
+     * @return the changed series, for the caller to persist, or null if nothing was detached
+     */
+    private Reminder detachOccurrence(String reminderId) {
+        if (remindersById.containsKey(reminderId)) {
+            return null;
+        }
+        Reminder occurrence = occurrenceOf(reminderId);
+        if (occurrence == null) {
+            return null;
+        }
+        Reminder series = new Reminder(activeSeries.get(Recurrence.seriesIdOf(reminderId)));
+        series.setRecurrence(series.getRecurrence().excluding(occurrence.getEpochDay()));
+        index(series);
+        index(occurrence);
+        return series;
+    }
+
+    /**
+     * Up to limit reminders whose title or content contains every word of the query (words match by prefix).
+     * Best matches first, then the ones dated closest to today.
+     * @param history search completed/deleted reminders instead of active ones
+     */
+    public synchronized List<Reminder> search(String query, boolean history, int today, int limit) {
+        prepareSearch();
+        List<Reminder> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        Map<String, Integer> matches = searchIndex.match(query);
+        // Only the best limit hits are kept, with the worst of them on top to be replaced
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(Math.min(limit, matches.size()) + 1,
+                Collections.reverseOrder());
+        for (Map.Entry<String, Integer> match : matches.entrySet()) {
+            Reminder reminder = remindersById.get(match.getKey());
+            if (reminder == null || isHistory(reminder) != history) {
+                continue;
+            }
+            int day = reminder.getEpochDay();
+            boolean series = !history && reminder.isRecurring();
+            if (series) {
+                // An active series is found as its next occurrence
+                day = reminder.getRecurrence().next(day, today);
+                if (day == ReminderDates.INVALID_DAY) {
+                    continue;
+                }
+            }
+            int score = match.getValue();
+            long distance = dayDistance(day, today);
+            // Most hits lose on score and distance alone, before anything is allocated for them
+            if (best.size() == limit && best.peek().beats(score, distance)) {
+                continue;
+            }
+            best.add(new SearchHit(series ? reminder.occurrenceOn(day) : reminder, score, distance));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        while (!best.isEmpty()) {
+            result.add(new Reminder(best.poll().reminder));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Build the search index now, so the first query does not pay for it
+     */
+    public synchronized void prepareSearch() {
+        ensureLoaded();
+        if (searchIndexBuilt) {
+            return;
+        }
+        for (Reminder reminder : remindersById.values()) {
+            searchIndex.add(reminder);
+        }
+        searchIndexBuilt = true;
+    }
+
+    private static long dayDistance(int day, int today) {
+        // Reminders without a valid date come after every dated one
+        return day != ReminderDates.INVALID_DAY ? Math.abs((long) day - today) : Long.MAX_VALUE;
+    }
+
+    private static void copyInto(List<Reminder> result, Collection<Reminder> reminders) {
+        for (Reminder reminder : reminders) {
+            result.add(new Reminder(reminder));
+        }
+    }
+
+    private static void copyInto(List<Reminder> result, Collection<Reminder> reminders, int limit) {
+        for (Reminder reminder : reminders) {
+            if (result.size() >= limit) {
+                return;
+            }
+            result.add(new Reminder(reminder));
+        }
+    }
+
+    /**
+     * Copies of the cached reminders that pass the filter (null for all) merged with the occurrences,
+     * both already in active order, until result holds limit reminders.
+     * Occurrences are fresh instances and are added as they are.
+     */
+    private static void mergeInto(List<Reminder> result, Collection<Reminder> cached, Predicate<Reminder> filter,
+                                  List<Reminder> occurrences, int limit) {
+        Iterator<Reminder> iterator = cached.iterator();
+        Reminder next = nextMatching(iterator, filter);
+        int occurrence = 0;
+        while (result.size() < limit && (next != null || occurrence < occurrences.size())) {
+            if (next != null && (occurrence >= occurrences.size()
+                    || ACTIVE_ORDER.compare(next, occurrences.get(occurrence)) <= 0)) {
+                result.add(new Reminder(next));
+                next = nextMatching(iterator, filter);
+            } else {
+                result.add(occurrences.get(occurrence++));
+            }
+        }
+    }
+
+    private static Reminder nextMatching(Iterator<Reminder> iterator, Predicate<Reminder> filter) {
+        while (iterator.hasNext()) {
+            Reminder reminder = iterator.next();
+            if (filter == null || filter.test(reminder)) {
+                return reminder;
+            }
+        }
+        return null;
+    }
+
+    private static List<Reminder> copyOf(Collection<Reminder> reminders) {
+        List<Reminder> result = new ArrayList<>(reminders.size());
+        copyInto(result, reminders);
+        return result;
+    }
+
+    /**
+     * Insert or replace a reminder, persisting it in the background
+     */
+    public synchronized void put(Reminder reminder) {
+        if (reminder == null || reminder.getId() == null) {
+            return;
+        }
+        ensureLoaded();
+        // Keep a private copy so later changes by the caller do not leak into the cache
+        Reminder stored = new Reminder(reminder);
+        // An edited occurrence leaves its series
+        Reminder series = detachOccurrence(stored.getId());
+        index(stored);
+        persist(series, stored);
+    }
+
+    /**
+     * Write a changed reminder, together with the series it was just detached from (if not null) in one commit
+     */
+    private void persist(Reminder series, Reminder reminder) {
+        if (series == null) {
+            write(target -> target.put(reminder));
+        } else {
+            List<Reminder> both = Arrays.asList(series, reminder);
+            write(target -> target.commit(both, null));
+        }
+    }
+
+    /**
+     * Run a store write on the repository thread. When the store asks for compaction (journal too long,
+     * or an append failed) the snapshot is rewritten from memory, which holds every change made so far.
+     * Nothing is written after a failed load, memory then does not hold everything that is stored.
+     */
+    private void write(Consumer<ReminderStore> storeWrite) {
+        if (store == null) {
+            return;
+        }
+        if (loadFailed) {
+            Log.e(TAG, "Reminders failed to load, not saving the change");
+            return;
+        }
+        executor.execute(() -> {
+            storeWrite.accept(store);
+            if (store.needsCompaction()) {
+                store.compact(currentReminders());
+            }
+        });
+    }
+
+    private synchronized List<Reminder> currentReminders() {
+        // Cached instances never change, so the store can keep the references
+        return new ArrayList<>(remindersById.values());
+    }
+
+    /**
+     * Apply a change to the cached reminder with the given id.
+     * The cached instance is copied before the change so readers never see a half-applied update.
+     * @return false if no reminder has this id
+     */
+    public synchronized boolean update(String reminderId, ReminderUpdate update) {
+        if (reminderId == null || update == null) {
+            return false;
+        }
+        ensureLoaded();
+        // Completing or deleting an occurrence changes that day only
+        Reminder series = detachOccurrence(reminderId);
+        Reminder current = remindersById.get(reminderId);
+        if (current == null) {
+            return false;
+        }
+        Reminder updated = new Reminder(current);
+        update.apply(updated);
+        index(updated);
+        persist(series, updated);
+        return true;
+    }
+
+    /**
+     * Permanently remove a reminder
+     */
+    public synchronized void remove(String reminderId) {
+        if (reminderId == null) {
+            return;
+        }
+        ensureLoaded();
+        Reminder series = detachOccurrence(reminderId);
+        if (!remindersById.containsKey(reminderId)) {
+            return;
+        }
+        unindex(reminderId);
+        if (series != null) {
+            // The occurrence was never stored, only the series skipping its day is
+            write(target -> target.put(series));
+        } else {
+            write(target -> target.remove(reminderId));
+        }
+    }
+
+    /**
+     * Permanently remove all completed and deleted reminders with a single store write
+     */
+    public synchronized void removeHistory() {
+        ensureLoaded();
+        if (historyByKey.isEmpty()) {
+            return;
+        }
+        List<String> ids = historyIds();
+        for (String id : ids) {
+            unindex(id);
+        }
+        write(target -> target.removeAll(ids));
+    }
+
+    /**
+     * Apply all operations of a batch in memory, then persist the result with one store commit.
+     * @return the before/after state of every reminder the batch touched
+     */
+    public synchronized List<ReminderBatch.Change> apply(ReminderBatch batch) {
+        List<ReminderBatch.Change> changes = new ArrayList<>();
+        if (batch == null || batch.isEmpty()) {
+            return changes;
+        }
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        // First state seen for every touched id, to report changes and decide what to persist
+        Map<String, Reminder> before = new LinkedHashMap<>();
+        for (ReminderBatch.Operation operation : batch.getOperations()) {
+            if (operation.type == ReminderBatch.Type.CLEAR_HISTORY) {
+                for (String id : historyIds()) {
+                    rememberBefore(before, id);
+                    unindex(id);
+                }
+                continue;
+            }
+            String id = operation.reminderId;
+            if (!remindersById.containsKey(id) && occurrenceOf(id) != null) {
+                // The series changes too: it skips the occurrence's day from now on
+                rememberBefore(before, Recurrence.seriesIdOf(id));
+            }
+            rememberBefore(before, id);
+            detachOccurrence(id);
+            Reminder current = remindersById.get(id);
+            switch (operation.type) {
+                case SAVE:
+                    index(new Reminder(operation.reminder));
+                    break;
+                case PERMANENTLY_DELETE:
+                    unindex(id);
+                    break;
+                default:
+                    if (current == null) {
+                        break;
+                    }
+                    Reminder updated = new Reminder(current);
+                    if (operation.type == ReminderBatch.Type.MARK_COMPLETED) {
+                        updated.setCompleted(true);
+                    } else if (operation.type == ReminderBatch.Type.DELETE) {
+                        updated.setDeleted(true);
+                    } else {
+                        updated.setCompleted(false);
+                        updated.setDeleted(false);
+                    }
+                    updated.setTimestamp(now);
+                    index(updated);
+                    break;
+            }
+        }
+
+        List<Reminder> puts = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        for (Map.Entry<String, Reminder> entry : before.entrySet()) {
+            Reminder after = remindersById.get(entry.getKey());
+            if (after != null) {
+                puts.add(after);
+            } else if (entry.getValue() != null) {
+                removals.add(entry.getKey());
+            } else {
+                // Created and removed inside the same batch, nothing to persist
+                continue;
+            }
+            changes.add(new ReminderBatch.Change(
+                    entry.getValue() != null ? new Reminder(entry.getValue()) : null,
+                    after != null ? new Reminder(after) : null));
+        }
+        write(target -> target.commit(puts, removals));
+        return changes;
+    }
+
+    private List<String> historyIds() {
+        List<String> ids = new ArrayList<>(historyByKey.size());
+        for (Reminder reminder : historyByKey.values()) {
+            ids.add(reminder.getId());
+        }
+        return ids;
+    }
+
+    private void rememberBefore(Map<String, Reminder> before, String id) {
+        if (!before.containsKey(id)) {
+            before.put(id, remindersById.get(id));
+        }
+    }
+
+    public interface ReminderUpdate {
+        void apply(Reminder reminder);
+    }
+
+    /**
+     * Sort key of an active reminder: day, then start time, then id.
+     * Reminders without a valid date sort last, reminders without a start time first within their day.
+     */
+    private static final class ActiveKey implements Comparable<ActiveKey> {
+        final int day;
+        final int minute;
+        final String id;
+
+        ActiveKey(Reminder reminder) {
+            this(sortDay(reminder), reminder.getStartMinute(), reminder.getId());
+        }
+
+        private ActiveKey(int day, int minute, String id) {
+            this.day = day;
+            this.minute = minute;
+            this.id = id;
+        }
+
+        /**
+         * Lower bound of a day, sorts before every reminder on it
+         */
+        static ActiveKey dayStart(int day) {
+            return new ActiveKey(day, Integer.MIN_VALUE, null);
+        }
+
+        @Override
+        public int compareTo(ActiveKey other) {
+            if (day != other.day) {
+                return Integer.compare(day, other.day);
+            }
+            if (minute != other.minute) {
+                return Integer.compare(minute, other.minute);
+            }
+            return compareIds(id, other.id);
+        }
+    }
+
+    /**
+     * A search result; the better hit sorts first: higher score, then closer to today, then active order
+     */
+    private static final class SearchHit implements Comparable<SearchHit> {
+        final Reminder reminder;
+        final int score;
+        final long distance;
+        final ActiveKey key;
+
+        SearchHit(Reminder reminder, int score, long distance) {
+            this.reminder = reminder;
+            this.score = score;
+            this.distance = distance;
+            this.key = new ActiveKey(reminder);
+        }
+
+        /**
+         * Whether this hit is better than any hit with the given score and distance, whatever its active order
+         */
+        boolean beats(int otherScore, long otherDistance) {
+            return score != otherScore ? score > otherScore : distance < otherDistance;
+        }
+
+        @Override
+        public int compareTo(SearchHit other) {
+            if (score != other.score) {
+                return Integer.compare(other.score, score);
+            }
+            if (distance != other.distance) {
+                return Long.compare(distance, other.distance);
+            }
+            return key.compareTo(other.key);
+        }
+    }
+
+    /**
+     * Sort key of a history reminder: newest timestamp first, then id
+     */
+    private static final class HistoryKey implements Comparable<HistoryKey> {
+        final long timestamp;
+        final String id;
+
+        HistoryKey(Reminder reminder) {
+            this(reminder.getTimestamp(), reminder.getId());
+        }
+
+        HistoryKey(long timestamp, String id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(HistoryKey other) {
+            if (timestamp != other.timestamp) {
+                return Long.compare(other.timestamp, timestamp);
+            }
+            return compareIds(id, other.id);
+        }
+    }
+
+    // A null id is a range bound and sorts before any real id
+    private static int compareIds(String a, String b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        }
+        return b == null ? 1 : a.compareTo(b);
+    }
+}
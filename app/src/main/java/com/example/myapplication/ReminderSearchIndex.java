@@ -0,0 +1,163 @@
+package com.example.myapplication;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over reminder titles and contents, owned by {@link ReminderRepository} and updated with it.
+ * Text is case and accent folded and split into words; CJK ideographs are indexed one character each.
+ * Query words match indexed words by prefix, all query words have to match.
+ * Not thread safe, the repository lock guards it.
+ */
+final class ReminderSearchIndex {
+    private static final int FIELD_TITLE = 1;
+    private static final int FIELD_CONTENT = 2;
+    // Match quality: a title hit beats a content hit, a whole word beats a prefix
+    private static final int TITLE_WEIGHT = 3;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final int EXACT_FACTOR = 2;
+
+    // Word -> (reminder id -> fields the word occurs in); sorted, so a prefix is a range
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    // Reminder id -> its indexed words, to take them out again
+    private final Map<String, String[]> wordsById = new HashMap<>();
+
+    void add(Reminder reminder) {
+        String id = reminder.getId();
+        remove(id);
+        Map<String, Integer> fieldsByWord = new LinkedHashMap<>();
+        collect(fieldsByWord, reminder.getTitle(), FIELD_TITLE);
+        collect(fieldsByWord, reminder.getContent(), FIELD_CONTENT);
+        if (fieldsByWord.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : fieldsByWord.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), word -> new HashMap<>(4)).put(id, entry.getValue());
+        }
+        wordsById.put(id, fieldsByWord.keySet().toArray(new String[0]));
+    }
+
+    void remove(String id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Map<String, Integer> ids = postings.get(word);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids of reminders matching every word of the query, with their match score (higher is better).
+     * Empty if the query has no words.
+     */
+    Map<String, Integer> match(String query) {
+        List<String> words = tokenize(query);
+        Map<String, Integer> result = null;
+        for (String word : words) {
+            Map<String, Integer> scores = matchWord(word);
+            if (result == null) {
+                result = scores;
+            } else {
+                // Keep the smaller map as the base of the intersection
+                Map<String, Integer> small = result.size() <= scores.size() ? result : scores;
+                Map<String, Integer> large = small == result ? scores : result;
+                Map<String, Integer> both = new HashMap<>(small.size() * 2);
+                for (Map.Entry<String, Integer> entry : small.entrySet()) {
+                    Integer other = large.get(entry.getKey());
+                    if (other != null) {
+                        both.put(entry.getKey(), entry.getValue() + other);
+                    }
+                }
+                result = both;
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new HashMap<>();
+    }
+
+    private Map<String, Integer> matchWord(String word) {
+        Map<String, Integer> scores = new HashMap<>();
+        // Every indexed word starting with the query word
+        for (Map.Entry<String, Map<String, Integer>> entry
+                : postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+            int factor = entry.getKey().length() == word.length() ? EXACT_FACTOR : 1;
+            for (Map.Entry<String, Integer> posting : entry.getValue().entrySet()) {
+                int fields = posting.getValue();
+                int score = factor * (((fields & FIELD_TITLE) != 0 ? TITLE_WEIGHT : 0)
+                        + ((fields & FIELD_CONTENT) != 0 ? CONTENT_WEIGHT : 0));
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static void collect(Map<String, Integer> fieldsByWord, String text, int field) {
+        for (String word : tokenize(text)) {
+            fieldsByWord.merge(word, field, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Lower-cased, accent-free words of the text; each CJK ideograph is a word of its own
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return words;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        if (!isAscii(folded)) {
+            folded = Normalizer.normalize(folded, Normalizer.Form.NFKD);
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < folded.length(); ) {
+            int codePoint = folded.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                // Accent split off by NFKD
+                continue;
+            }
+            if (Character.isIdeographic(codePoint)) {
+                flush(words, word);
+                words.add(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(codePoint);
+            } else {
+                flush(words, word);
+            }
+        }
+        flush(words, word);
+        return words;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void flush(List<String> words, StringBuilder word) {
+        if (word.length() > 0) {
+            words.add(word.toString());
+            word.setLength(0);
+        }
+    }
+}
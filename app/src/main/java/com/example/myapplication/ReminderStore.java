@@ -0,0 +1,455 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.AtomicFile;
+import android.util.Log;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Record-level storage for reminders.
+ * The store keeps a snapshot file with all reminders plus an append-only journal.
+ * Every change appends one entry to the journal instead of rewriting the whole list,
+ * and the journal is folded back into the snapshot once it grows too large.
+ * A torn or damaged journal tail is cut off on load, so later appends are never hidden behind it.
+ * A snapshot or journal that cannot be read at all (damaged, or written by a newer version) is renamed
+ * to *.unreadable before anything can write over it.
+ * Compaction writes the snapshot from the caller's in-memory state ({@link #compact(Collection)}),
+ * never by re-reading the files, so a journal write that failed is not lost either.
+ * Both files use the binary format in {@link ReminderCodec}. The JSON files written by
+ * older versions are read once with {@link ReminderTypeAdapter} and then replaced.
+ */
+public class ReminderStore {
+    private static final String TAG = "ReminderStore";
+    private static final String STORE_DIR = "reminders";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String JOURNAL_FILE = "journal.bin";
+    // Files this version cannot read get this suffix instead of being appended to, replaced or deleted
+    private static final String UNREADABLE_SUFFIX = ".unreadable";
+    // Legacy JSON store (snapshot array + one JSON entry per journal line)
+    private static final String LEGACY_SNAPSHOT_FILE = "snapshot.json";
+    private static final String LEGACY_JOURNAL_FILE = "journal.log";
+    // Legacy storage (single JSON blob in SharedPreferences)
+    private static final String LEGACY_PREFS_NAME = "reminders_prefs";
+    private static final String LEGACY_REMINDERS_KEY = "reminders_list";
+    private static final String LEGACY_OP_PUT = "put";
+    private static final String LEGACY_OP_REMOVE = "remove";
+    // Compact once the journal holds more entries than this (or more than the snapshot itself)
+    private static final int MIN_COMPACTION_THRESHOLD = 256;
+
+    private static ReminderStore instance;
+
+    private final Context appContext;
+    private final AtomicFile snapshotFile;
+    private final File journalFile;
+    private final File legacySnapshotFile;
+    private final File legacyJournalFile;
+    private final ReminderTypeAdapter adapter = new ReminderTypeAdapter();
+    private int journalEntries = -1;
+    private int snapshotSize;
+    // Set when the journal grew past the threshold or an append failed; cleared by compact()
+    private boolean compactionNeeded;
+
+    public static synchronized ReminderStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReminderStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ReminderStore(Context context) {
+        appContext = context;
+        File dir = new File(context.getFilesDir(), STORE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Failed to create store directory: " + dir);
+        }
+        snapshotFile = new AtomicFile(new File(dir, SNAPSHOT_FILE));
+        journalFile = new File(dir, JOURNAL_FILE);
+        legacySnapshotFile = new File(dir, LEGACY_SNAPSHOT_FILE);
+        legacyJournalFile = new File(dir, LEGACY_JOURNAL_FILE);
+    }
+
+    /**
+     * Load all reminders (snapshot + journal replay), keyed by id in insertion order.
+     */
+    public synchronized Map<String, Reminder> loadAll() {
+        migrateLegacyIfNeeded();
+        Map<String, Reminder> reminders = readSnapshot();
+        snapshotSize = reminders.size();
+        journalEntries = replayJournal(reminders);
+        return reminders;
+    }
+
+    /**
+     * Insert or replace a single reminder.
+     */
+    public synchronized void put(Reminder reminder) {
+        if (reminder == null || reminder.getId() == null) {
+            return;
+        }
+        List<Reminder> single = new ArrayList<>(1);
+        single.add(reminder);
+        putAll(single);
+    }
+
+    /**
+     * Insert or replace several reminders with a single journal write.
+     */
+    public synchronized void putAll(Collection<Reminder> reminders) {
+        commit(reminders, null);
+    }
+
+    /**
+     * Remove a single reminder permanently.
+     */
+    public synchronized void remove(String reminderId) {
+        if (reminderId == null) {
+            return;
+        }
+        List<String> single = new ArrayList<>(1);
+        single.add(reminderId);
+        removeAll(single);
+    }
+
+    /**
+     * Remove several reminders permanently with a single journal write.
+     */
+    public synchronized void removeAll(Collection<String> reminderIds) {
+        commit(null, reminderIds);
+    }
+
+    /**
+     * Write a set of inserts/replacements and removals as one journal append.
+     */
+    public synchronized void commit(Collection<Reminder> reminders, Collection<String> removedIds) {
+        boolean hasPuts = reminders != null && !reminders.isEmpty();
+        boolean hasRemovals = removedIds != null && !removedIds.isEmpty();
+        if (!hasPuts && !hasRemovals) {
+            return;
+        }
+        if (journalEntries < 0) {
+            // Journal size is unknown until the first load, compute it lazily
+            loadAll();
+        }
+        int count = 0;
+        // Encoded in full first, so the file only ever sees one append per commit
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        try {
+            if (hasPuts) {
+                for (Reminder reminder : reminders) {
+                    if (reminder == null || reminder.getId() == null) {
+                        continue;
+                    }
+                    ReminderCodec.writeJournalPut(frames, reminder);
+                    count++;
+                }
+            }
+            if (hasRemovals) {
+                for (String id : removedIds) {
+                    if (id == null) {
+                        continue;
+                    }
+                    ReminderCodec.writeJournalRemove(frames, id);
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to encode journal entries", e);
+            compactionNeeded = true;
+            return;
+        }
+        long validLength = journalFile.exists() ? journalFile.length() : 0;
+        try (OutputStream out = new FileOutputStream(journalFile, true)) {
+            if (validLength == 0) {
+                ReminderCodec.writeJournalHeader(out);
+            }
+            frames.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append to journal", e);
+            // Cut off whatever part of the append made it to disk; the next compaction persists the change
+            truncate(journalFile, validLength);
+            compactionNeeded = true;
+            return;
+        }
+        journalEntries += count;
+        if (journalEntries > Math.max(MIN_COMPACTION_THRESHOLD, snapshotSize)) {
+            compactionNeeded = true;
+        }
+    }
+
+    /**
+     * True if the journal should be folded into a new snapshot with {@link #compact(Collection)}
+     */
+    public synchronized boolean needsCompaction() {
+        return compactionNeeded;
+    }
+
+    /**
+     * Replace the snapshot with the given reminders and start an empty journal.
+     * Pass the complete current state; entries appended afterwards are replayed on top of it.
+     */
+    public synchronized void compact(Collection<Reminder> reminders) {
+        if (!writeSnapshot(reminders)) {
+            return;
+        }
+        if (journalFile.exists() && !journalFile.delete()) {
+            Log.e(TAG, "Failed to truncate journal");
+            return;
+        }
+        snapshotSize = reminders.size();
+        journalEntries = 0;
+        compactionNeeded = false;
+    }
+
+    /**
+     * Cut the file back to length bytes, deleting it when nothing is left
+     */
+    static void truncate(File file, long length) {
+        try {
+            if (length <= 0) {
+                if (file.exists() && !file.delete()) {
+                    Log.e(TAG, "Failed to delete " + file);
+                }
+                return;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(length);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to truncate " + file, e);
+        }
+    }
+
+    private Map<String, Reminder> readSnapshot() {
+        Map<String, Reminder> reminders = new LinkedHashMap<>();
+        File file = snapshotFile.getBaseFile();
+        if (!file.exists()) {
+            return reminders;
+        }
+        try (InputStream in = new BufferedInputStream(snapshotFile.openRead())) {
+            ReminderCodec.readSnapshot(in, file.length(), reminders);
+        } catch (Exception e) {
+            // The next compaction or migration would replace it with what was read so far
+            Log.e(TAG, "Failed to read reminder snapshot, setting it aside", e);
+            setAside(snapshotFile.getBaseFile());
+        }
+        return reminders;
+    }
+
+    private boolean writeSnapshot(Collection<Reminder> reminders) {
+        FileOutputStream out = null;
+        try {
+            out = snapshotFile.startWrite();
+            ReminderCodec.writeSnapshot(new BufferedOutputStream(out), reminders);
+            snapshotFile.finishWrite(out);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to write reminder snapshot", e);
+            if (out != null) {
+                snapshotFile.failWrite(out);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Apply journal entries on top of the snapshot.
+     * @return number of journal entries read
+     */
+    private int replayJournal(Map<String, Reminder> reminders) {
+        if (!journalFile.exists()) {
+            return 0;
+        }
+        long length = journalFile.length();
+        ReminderCodec.JournalScan scan;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(journalFile))) {
+            scan = ReminderCodec.readJournal(in, length, new ReminderCodec.JournalVisitor() {
+                @Override
+                public void onPut(Reminder reminder) {
+                    if (reminder.getId() != null) {
+                        reminders.put(reminder.getId(), reminder);
+                    }
+                }
+
+                @Override
+                public void onRemove(String reminderId) {
+                    reminders.remove(reminderId);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read reminder journal, setting it aside", e);
+            setAside(journalFile);
+            return 0;
+        }
+        if (scan.validLength < length) {
+            // New entries go right after the last good frame, where the next load will find them
+            Log.w(TAG, "Dropping " + (length - scan.validLength) + " damaged journal bytes");
+            truncate(journalFile, scan.validLength);
+        }
+        return scan.entries;
+    }
+
+    /**
+     * Rename a file that cannot be read to name.unreadable (name.unreadable.1 and so on if that is taken),
+     * keeping its data for a version that can read it
+     */
+    static void setAside(File file) {
+        File target = new File(file.getPath() + UNREADABLE_SUFFIX);
+        for (int i = 1; target.exists(); i++) {
+            target = new File(file.getPath() + UNREADABLE_SUFFIX + "." + i);
+        }
+        if (!file.renameTo(target)) {
+            Log.e(TAG, "Failed to set aside " + file);
+        }
+    }
+
+    /**
+     * One-time upgrade from the older formats: the JSON snapshot/journal files
+     * and, before those, the single JSON blob in SharedPreferences.
+     * Records already in the binary store win over legacy copies.
+     */
+    private void migrateLegacyIfNeeded() {
+        SharedPreferences prefs = appContext.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        String json = prefs.getString(LEGACY_REMINDERS_KEY, null);
+        boolean hasLegacyFiles = legacySnapshotFile.exists() || legacyJournalFile.exists();
+        if (json == null && !hasLegacyFiles) {
+            return;
+        }
+        Map<String, Reminder> reminders = readSnapshot();
+        replayJournal(reminders);
+        try {
+            if (hasLegacyFiles) {
+                Map<String, Reminder> legacy = readLegacySnapshot();
+                replayLegacyJournal(legacy);
+                for (Reminder reminder : legacy.values()) {
+                    if (!reminders.containsKey(reminder.getId())) {
+                        reminders.put(reminder.getId(), reminder);
+                    }
+                }
+            }
+            if (json != null && !json.isEmpty()) {
+                readReminderArray(new JsonReader(new StringReader(json)), reminders, true);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to parse legacy reminders, keeping them for a later attempt", e);
+            return;
+        }
+        if (!writeSnapshot(reminders.values())) {
+            return;
+        }
+        // Only drop the old data once the new store is safely on disk
+        deleteIfExists(journalFile);
+        deleteIfExists(legacySnapshotFile);
+        deleteIfExists(legacyJournalFile);
+        if (json != null) {
+            prefs.edit().remove(LEGACY_REMINDERS_KEY).commit();
+        }
+    }
+
+    private static void deleteIfExists(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.e(TAG, "Failed to delete " + file);
+        }
+    }
+
+    private Map<String, Reminder> readLegacySnapshot() throws IOException {
+        Map<String, Reminder> reminders = new LinkedHashMap<>();
+        if (!legacySnapshotFile.exists()) {
+            return reminders;
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(legacySnapshotFile), StandardCharsets.UTF_8))) {
+            readReminderArray(new JsonReader(reader), reminders, false);
+        }
+        return reminders;
+    }
+
+    /**
+     * Stream a JSON array of reminders into the map, one record at a time
+     */
+    private void readReminderArray(JsonReader json, Map<String, Reminder> reminders, boolean keepExisting) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return;
+        }
+        json.beginArray();
+        while (json.hasNext()) {
+            Reminder reminder = adapter.read(json);
+            if (reminder != null && reminder.getId() != null
+                    && !(keepExisting && reminders.containsKey(reminder.getId()))) {
+                reminders.put(reminder.getId(), reminder);
+            }
+        }
+        json.endArray();
+    }
+
+    private void replayLegacyJournal(Map<String, Reminder> reminders) throws IOException {
+        if (!legacyJournalFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(legacyJournalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    applyLegacyJournalEntry(new JsonReader(new StringReader(line)), reminders);
+                } catch (Exception e) {
+                    // A torn trailing line after a crash, skip it
+                    Log.w(TAG, "Skipping malformed journal entry", e);
+                }
+            }
+        }
+    }
+
+    private void applyLegacyJournalEntry(JsonReader json, Map<String, Reminder> reminders) throws IOException {
+        String op = null;
+        String id = null;
+        Reminder reminder = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "op":
+                    op = json.nextString();
+                    break;
+                case "id":
+                    id = json.nextString();
+                    break;
+                case "reminder":
+                    reminder = adapter.read(json);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        if (LEGACY_OP_PUT.equals(op) && reminder != null && reminder.getId() != null) {
+            reminders.put(reminder.getId(), reminder);
+        } else if (LEGACY_OP_REMOVE.equals(op) && id != null) {
+            reminders.remove(id);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.myapplication;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Hand-written Gson adapter for {@link Reminder}.
+ * Field names match what reflective Gson produced, so existing data stays readable,
+ * but no reflection or intermediate JSON tree is involved.
+ */
+public class ReminderTypeAdapter extends TypeAdapter<Reminder> {
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_DATE = "date";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_START_TIME = "startTime";
+    private static final String FIELD_END_TIME = "endTime";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    private static final String FIELD_COMPLETED = "isCompleted";
+    private static final String FIELD_DELETED = "isDeleted";
+    private static final String FIELD_ENABLE_NOTIFICATION = "enableNotification";
+    private static final String FIELD_MINUTES_BEFORE = "notificationMinutesBefore";
+    private static final String FIELD_RECURRENCE = "recurrence";
+    // Fields of the nested recurrence object, days as yyyy-MM-dd like the reminder date
+    private static final String FIELD_FREQUENCY = "frequency";
+    private static final String FIELD_INTERVAL = "interval";
+    private static final String FIELD_WEEKDAYS = "weekdays";
+    private static final String FIELD_UNTIL = "until";
+    private static final String FIELD_EXCLUDED = "excluded";
+
+    @Override
+    public void write(JsonWriter out, Reminder reminder) throws IOException {
+        if (reminder == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(FIELD_ID).value(reminder.getId());
+        out.name(FIELD_DATE).value(reminder.getDate());
+        out.name(FIELD_TITLE).value(reminder.getTitle());
+        out.name(FIELD_CONTENT).value(reminder.getContent());
+        out.name(FIELD_START_TIME).value(reminder.getStartTime());
+        out.name(FIELD_END_TIME).value(reminder.getEndTime());
+        out.name(FIELD_TIMESTAMP).value(reminder.getTimestamp());
+        out.name(FIELD_COMPLETED).value(reminder.isCompleted());
+        out.name(FIELD_DELETED).value(reminder.isDeleted());
+        out.name(FIELD_ENABLE_NOTIFICATION).value(reminder.isEnableNotification());
+        out.name(FIELD_MINUTES_BEFORE).value(reminder.getNotificationMinutesBefore());
+        if (reminder.getRecurrence() != null) {
+            out.name(FIELD_RECURRENCE);
+            writeRecurrence(out, reminder.getRecurrence());
+        }
+        out.endObject();
+    }
+
+    private static void writeRecurrence(JsonWriter out, Recurrence recurrence) throws IOException {
+        out.beginObject();
+        out.name(FIELD_FREQUENCY).value(recurrence.getFrequency().name());
+        out.name(FIELD_INTERVAL).value(recurrence.getInterval());
+        if (recurrence.getWeekdays() != 0) {
+            out.name(FIELD_WEEKDAYS).value(recurrence.getWeekdays());
+        }
+        if (recurrence.getUntilDay() != ReminderDates.INVALID_DAY) {
+            out.name(FIELD_UNTIL).value(ReminderDates.formatEpochDay(recurrence.getUntilDay()));
+        }
+        int[] excluded = recurrence.getExcludedDays();
+        if (excluded.length > 0) {
+            out.name(FIELD_EXCLUDED).beginArray();
+            for (int day : excluded) {
+                out.value(ReminderDates.formatEpochDay(day));
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    private static Recurrence readRecurrence(JsonReader in) throws IOException {
+        Recurrence.Frequency frequency = null;
+        int interval = 1;
+        int weekdays = 0;
+        int untilDay = ReminderDates.INVALID_DAY;
+        int[] excluded = new int[0];
+        int excludedCount = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case FIELD_FREQUENCY:
+                    try {
+                        frequency = Recurrence.Frequency.valueOf(in.nextString());
+                    } catch (IllegalArgumentException e) {
+                        // Unknown frequency, the rule is dropped below
+                    }
+                    break;
+                case FIELD_INTERVAL:
+                    interval = in.nextInt();
+                    break;
+                case FIELD_WEEKDAYS:
+                    weekdays = in.nextInt();
+                    break;
+                case FIELD_UNTIL:
+                    untilDay = ReminderDates.parseEpochDay(in.nextString());
+                    break;
+                case FIELD_EXCLUDED:
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        int day = ReminderDates.parseEpochDay(in.nextString());
+                        if (day == ReminderDates.INVALID_DAY) {
+                            continue;
+                        }
+                        if (excludedCount == excluded.length) {
+                            excluded = Arrays.copyOf(excluded, Math.max(4, excludedCount * 2));
+                        }
+                        excluded[excludedCount++] = day;
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        // A rule from a newer version with an unknown frequency is dropped rather than guessed
+        return frequency != null
+                ? Recurrence.restore(frequency, interval, weekdays, untilDay, Arrays.copyOf(excluded, excludedCount))
+                : null;
+    }
+
+    @Override
+    public Reminder read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String id = null;
+        String date = null;
+        String title = null;
+        String content = null;
+        String startTime = null;
+        String endTime = null;
+        long timestamp = 0;
+        boolean completed = false;
+        boolean deleted = false;
+        boolean enableNotification = false;
+        int minutesBefore = 5;
+        Recurrence recurrence = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case FIELD_ID:
+                    id = in.nextString();
+                    break;
+                case FIELD_DATE:
+                    date = in.nextString();
+                    break;
+                case FIELD_TITLE:
+                    title = in.nextString();
+                    break;
+                case FIELD_CONTENT:
+                    content = in.nextString();
+                    break;
+                case FIELD_START_TIME:
+                    startTime = in.nextString();
+                    break;
+                case FIELD_END_TIME:
+                    endTime = in.nextString();
+                    break;
+                case FIELD_TIMESTAMP:
+                    timestamp = in.nextLong();
+                    break;
+                case FIELD_COMPLETED:
+                    completed = in.nextBoolean();
+                    break;
+                case FIELD_DELETED:
+                    deleted = in.nextBoolean();
+                    break;
+                case FIELD_ENABLE_NOTIFICATION:
+                    enableNotification = in.nextBoolean();
+                    break;
+                case FIELD_MINUTES_BEFORE:
+                    minutesBefore = in.nextInt();
+                    break;
+                case FIELD_RECURRENCE:
+                    recurrence = readRecurrence(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        Reminder reminder = new Reminder(id, date, title, content, startTime, endTime, timestamp);
+        reminder.setCompleted(completed);
+        reminder.setDeleted(deleted);
+        reminder.setEnableNotification(enableNotification);
+        reminder.setNotificationMinutesBefore(minutesBefore);
+        reminder.setRecurrence(recurrence);
+        return reminder;
+    }
+}
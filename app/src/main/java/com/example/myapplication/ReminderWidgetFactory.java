@@ -1,27 +1,26 @@
 package com.example.myapplication;
 
+import android.appwidget.AppWidgetManager;
 import android.content.Context;
 import android.content.Intent;
-import android.text.TextUtils;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 public class ReminderWidgetFactory implements RemoteViewsService.RemoteViewsFactory {
     private Context context;
-    private List<Reminder> reminders;
-    private SimpleDateFormat dateFormat;
-    private SimpleDateFormat displayDateFormat;
+    private final int appWidgetId;
+    private List<WidgetSnapshot.Row> rows;
+    private WidgetQuery query;
+    private long snapshotVersion = -1;
 
-    public ReminderWidgetFactory(Context context, @SuppressWarnings("unused") Intent intent) {
+    public ReminderWidgetFactory(Context context, Intent intent) {
         this.context = context;
-        this.reminders = new ArrayList<>();
-        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        this.displayDateFormat = new SimpleDateFormat("MM/dd", Locale.getDefault());
+        this.appWidgetId = intent != null
+                ? intent.getIntExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID)
+                : AppWidgetManager.INVALID_APPWIDGET_ID;
+        this.rows = Collections.emptyList();
     }
 
     @Override
@@ -31,73 +30,44 @@ public class ReminderWidgetFactory implements RemoteViewsService.RemoteViewsFact
 
     @Override
     public void onDataSetChanged() {
-        // Load reminders from ReminderManager
-        ReminderManager reminderManager = new ReminderManager(context);
-        reminders = reminderManager.getActiveReminders();
+        // Rows are formatted ahead of time, only a new query or snapshot version needs to be picked up
+        WidgetQuery widgetQuery = WidgetQuery.load(context, appWidgetId);
+        WidgetSnapshot snapshot = WidgetSnapshot.get(context, widgetQuery);
+        if (snapshot == null || (widgetQuery.equals(query) && snapshot.version == snapshotVersion)) {
+            return;
+        }
+        rows = snapshot.rows;
+        query = widgetQuery;
+        snapshotVersion = snapshot.version;
     }
 
     @Override
     public void onDestroy() {
-        if (reminders != null) {
-            reminders.clear();
-        }
+        rows = Collections.emptyList();
+        query = null;
+        snapshotVersion = -1;
     }
 
     @Override
     public int getCount() {
-        return reminders.size();
+        return rows.size();
     }
 
     @Override
     public RemoteViews getViewAt(int position) {
-        if (position < 0 || position >= reminders.size()) {
+        if (position < 0 || position >= rows.size()) {
             return null;
         }
 
-        Reminder reminder = reminders.get(position);
+        WidgetSnapshot.Row row = rows.get(position);
         RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_reminder_item);
-
-        // Set title
-        String title = reminder.getTitle();
-        if (TextUtils.isEmpty(title)) {
-            title = reminder.getContent();
-        }
-        if (TextUtils.isEmpty(title)) {
-            title = context.getString(R.string.no_title);
-        }
-        views.setTextViewText(R.id.itemTitle, title);
-
-        // Set date
-        String dateStr = reminder.getDate();
-        String displayDate = dateStr;
-        try {
-            Date date = dateFormat.parse(dateStr);
-            String today = dateFormat.format(new Date());
-            if (date != null) {
-                if (dateStr.equals(today)) {
-                    displayDate = context.getString(R.string.today);
-                } else {
-                    displayDate = displayDateFormat.format(date);
-                }
-            }
-        } catch (Exception e) {
-            // Use original date string
-        }
-        views.setTextViewText(R.id.itemDate, displayDate);
-
-        // Set time
-        String timeStr = "";
-        if (!TextUtils.isEmpty(reminder.getStartTime())) {
-            timeStr = reminder.getStartTime();
-            if (!TextUtils.isEmpty(reminder.getEndTime())) {
-                timeStr += " - " + reminder.getEndTime();
-            }
-        }
-        views.setTextViewText(R.id.itemTime, timeStr);
+        views.setTextViewText(R.id.itemTitle, row.title);
+        views.setTextViewText(R.id.itemDate, row.date);
+        views.setTextViewText(R.id.itemTime, row.time);
 
         // Set click intent
         Intent fillInIntent = new Intent();
-        fillInIntent.putExtra(ReminderWidgetProvider.EXTRA_REMINDER_ID, reminder.getId());
+        fillInIntent.putExtra(ReminderWidgetProvider.EXTRA_REMINDER_ID, row.reminderId);
         views.setOnClickFillInIntent(android.R.id.content, fillInIntent);
 
         return views;
@@ -115,8 +85,8 @@ public class ReminderWidgetFactory implements RemoteViewsService.RemoteViewsFact
 
     @Override
     public long getItemId(int position) {
-        if (position >= 0 && position < reminders.size()) {
-            return reminders.get(position).getId().hashCode();
+        if (position >= 0 && position < rows.size()) {
+            return rows.get(position).reminderId.hashCode();
         }
         return position;
     }
@@ -126,4 +96,3 @@ public class ReminderWidgetFactory implements RemoteViewsService.RemoteViewsFact
         return true;
     }
 }
-
@@ -3,11 +3,16 @@ package com.example.myapplication;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.util.Log;
 import android.widget.RemoteViews;
+import java.util.HashSet;
+import java.util.Set;
 
 public class ReminderWidgetProvider extends AppWidgetProvider {
+    private static final String TAG = "ReminderWidgetProvider";
     private static final String ACTION_ADD_REMINDER = "com.example.myapplication.ACTION_ADD_REMINDER";
     private static final String ACTION_OPEN_APP = "com.example.myapplication.ACTION_OPEN_APP";
     private static final String ACTION_CLICK_REMINDER = "com.example.myapplication.ACTION_CLICK_REMINDER";
@@ -15,9 +20,44 @@ public class ReminderWidgetProvider extends AppWidgetProvider {
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        // Only the frame is set here, list rows come from the widget's query snapshot and are refreshed by ReminderChangeBus
         for (int appWidgetId : appWidgetIds) {
             updateAppWidget(context, appWidgetManager, appWidgetId);
         }
+        // The "Today" rows have to move at midnight even if the app is never opened
+        DayBoundary.schedule(context);
+    }
+
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        // Forget the removed widgets' queries, and their snapshots once no other widget shows them
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        ReminderRepository.getInstance(appContext).getExecutor().execute(() -> {
+            try {
+                Set<WidgetQuery> unused = new HashSet<>();
+                Set<Integer> deleted = new HashSet<>();
+                for (int appWidgetId : appWidgetIds) {
+                    unused.add(WidgetQuery.load(appContext, appWidgetId));
+                    deleted.add(appWidgetId);
+                    WidgetQuery.delete(appContext, appWidgetId);
+                }
+                int[] remaining = AppWidgetManager.getInstance(appContext)
+                        .getAppWidgetIds(new ComponentName(appContext, ReminderWidgetProvider.class));
+                for (int appWidgetId : remaining) {
+                    if (!deleted.contains(appWidgetId)) {
+                        unused.remove(WidgetQuery.load(appContext, appWidgetId));
+                    }
+                }
+                for (WidgetQuery query : unused) {
+                    WidgetSnapshot.discard(appContext, query);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to clean up deleted widgets", e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
     }
 
     @Override
@@ -40,16 +80,8 @@ public class ReminderWidgetProvider extends AppWidgetProvider {
             Intent remindersIntent = new Intent(context, RemindersListActivity.class);
             remindersIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
             context.startActivity(remindersIntent);
-        } else if (AppWidgetManager.ACTION_APPWIDGET_UPDATE.equals(action)) {
-            // Update all widgets
-            int[] appWidgetIds = intent.getIntArrayExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS);
-            if (appWidgetIds != null) {
-                AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-                for (int appWidgetId : appWidgetIds) {
-                    updateAppWidget(context, appWidgetManager, appWidgetId);
-                }
-            }
         }
+        // ACTION_APPWIDGET_UPDATE is already routed to onUpdate by super.onReceive
     }
 
     static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
@@ -101,9 +133,6 @@ public class ReminderWidgetProvider extends AppWidgetProvider {
         );
         views.setOnClickPendingIntent(R.id.widgetTitle, titlePendingIntent);
         
-        // Notify the RemoteViewsService to refresh the list data
-        appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetId, R.id.remindersList);
-        
         appWidgetManager.updateAppWidget(appWidgetId, views);
     }
 }
@@ -2,13 +2,13 @@ package com.example.myapplication;
 
 import android.annotation.SuppressLint;
 import android.app.TimePickerDialog;
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Intent;
 import androidx.appcompat.app.AlertDialog;
 import android.content.Context;
 import android.os.Bundle;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
@@ -37,13 +37,29 @@ import java.util.Locale;
 
 public class RemindersListActivity extends AppCompatActivity {
     private static final String TAG = "RemindersListActivity";
+    private static final int HISTORY_PAGE_SIZE = 30;
+    // Load the next history page once the last visible row is this close to the end
+    private static final int HISTORY_PREFETCH_DISTANCE = 10;
+    private static final int SEARCH_LIMIT = 100;
+    // Type-ahead waits for a short pause in typing before querying
+    private static final long SEARCH_DEBOUNCE_MILLIS = 150;
     private RecyclerView remindersRecyclerView;
     private TextView emptyRemindersText;
     private MaterialButton historyButton;
     private MaterialButton clearHistoryButton;
+    private TextInputEditText searchEdit;
     private ReminderManager reminderManager;
     private ReminderAdapter reminderAdapter;
     private boolean showingHistory = false;
+    private final List<Reminder> historyItems = new ArrayList<>();
+    private ReminderPage.Cursor historyCursor;
+    private boolean historyLoading = false;
+    // Bumped on every history reload so pages from an older load are dropped
+    private int historyGeneration = 0;
+    private String searchQuery = "";
+    // Bumped on every load so results for an older query are dropped
+    private int searchGeneration = 0;
+    private final Runnable searchRunnable = this::loadReminders;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -78,9 +94,10 @@ public class RemindersListActivity extends AppCompatActivity {
             emptyRemindersText = findViewById(R.id.emptyRemindersText);
             historyButton = findViewById(R.id.historyButton);
             clearHistoryButton = findViewById(R.id.clearHistoryButton);
+            searchEdit = findViewById(R.id.searchEdit);
 
             reminderManager = new ReminderManager(this);
-            reminderAdapter = new ReminderAdapter(new ArrayList<>(), new ReminderAdapter.OnReminderClickListener() {
+            reminderAdapter = new ReminderAdapter(this, new ReminderAdapter.OnReminderClickListener() {
                 @Override
                 public void onEditClick(Reminder reminder) {
                     if (reminder != null && !reminder.isCompleted()) {
@@ -95,41 +112,36 @@ public class RemindersListActivity extends AppCompatActivity {
 
                 @Override
                 public void onCompleteClick(Reminder reminder) {
-                    // Cancel alarm if notification is enabled
-                    if (reminder.isEnableNotification()) {
-                        AlarmHelper.cancelAlarm(RemindersListActivity.this, reminder);
-                    }
-                    reminderManager.markAsCompleted(reminder.getId());
-                    loadReminders();
-                    updateWidgets();
+                    // The manager cancels the alarm once the reminder is marked completed
+                    reminderManager.markAsCompletedAsync(reminder.getId(), RemindersListActivity.this::loadReminders);
                 }
 
                 @Override
                 public void onRestoreClick(Reminder reminder) {
-                    reminderManager.restoreReminder(reminder.getId());
-                    // Restore alarm if notification is enabled
-                    Reminder restoredReminder = null;
-                    for (Reminder r : reminderManager.getAllReminders()) {
-                        if (r != null && reminder.getId().equals(r.getId())) {
-                            restoredReminder = r;
-                            break;
-                        }
-                    }
-                    if (restoredReminder != null && restoredReminder.isEnableNotification() && !restoredReminder.getStartTime().isEmpty()) {
-                        boolean alarmSet = AlarmHelper.setAlarm(RemindersListActivity.this, restoredReminder);
-                        if (!alarmSet) {
-                            String reminderDateTime = restoredReminder.getDate() + " " + restoredReminder.getStartTime();
+                    // The alarm is set again by the manager, after the reminder is restored
+                    reminderManager.restoreReminderAsync(reminder.getId(), alarmSet -> {
+                        if (Boolean.FALSE.equals(alarmSet) && reminder.isEnableNotification() && !reminder.getStartTime().isEmpty()) {
+                            String reminderDateTime = reminder.getDate() + " " + reminder.getStartTime();
                             Toast.makeText(RemindersListActivity.this, getString(R.string.reminder_time_past_detail, reminderDateTime), Toast.LENGTH_LONG).show();
                         }
-                    }
-                    Toast.makeText(RemindersListActivity.this, getString(R.string.reminder_restored), Toast.LENGTH_SHORT).show();
-                    loadReminders();
-                    updateWidgets();
+                        Toast.makeText(RemindersListActivity.this, getString(R.string.reminder_restored), Toast.LENGTH_SHORT).show();
+                        loadReminders();
+                    });
                 }
             });
 
-            remindersRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+            LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+            remindersRecyclerView.setLayoutManager(layoutManager);
             remindersRecyclerView.setAdapter(reminderAdapter);
+            remindersRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                    if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                            >= reminderAdapter.getItemCount() - HISTORY_PREFETCH_DISTANCE) {
+                        loadMoreHistory();
+                    }
+                }
+            });
 
             if (historyButton != null) {
                 historyButton.setOnClickListener(v -> toggleHistoryView());
@@ -139,6 +151,30 @@ public class RemindersListActivity extends AppCompatActivity {
                 clearHistoryButton.setOnClickListener(v -> showClearHistoryConfirmDialog());
             }
 
+            if (searchEdit != null) {
+                searchEdit.setOnFocusChangeListener((v, hasFocus) -> {
+                    if (hasFocus) {
+                        reminderManager.prepareSearchAsync();
+                    }
+                });
+                searchEdit.addTextChangedListener(new TextWatcher() {
+                    @Override
+                    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                    }
+
+                    @Override
+                    public void onTextChanged(CharSequence s, int start, int before, int count) {
+                    }
+
+                    @Override
+                    public void afterTextChanged(Editable s) {
+                        searchQuery = s.toString().trim();
+                        searchEdit.removeCallbacks(searchRunnable);
+                        searchEdit.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MILLIS);
+                    }
+                });
+            }
+
             loadReminders();
         } catch (Exception e) {
             Log.e(TAG, "Failed to initialize RemindersListActivity", e);
@@ -156,11 +192,92 @@ public class RemindersListActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
-    @SuppressLint("SetTextI18n")
     private void loadReminders() {
-        List<Reminder> reminders;
+        int generation = ++searchGeneration;
+        if (!searchQuery.isEmpty()) {
+            searchReminders(generation);
+            return;
+        }
+        if (showingHistory) {
+            loadHistory();
+            return;
+        }
+        // Query in the background and render on the main thread
+        reminderManager.getActiveRemindersAsync(reminders -> {
+            // Drop results for a mode the user has already left
+            if (generation == searchGeneration && !showingHistory && !isFinishing() && !isDestroyed()) {
+                showReminders(reminders != null ? reminders : new ArrayList<>());
+            }
+        });
+    }
+
+    /**
+     * Matches for the search box in the current mode (active or history), best first; not paged
+     */
+    private void searchReminders(int generation) {
+        boolean history = showingHistory;
+        reminderManager.searchRemindersAsync(searchQuery, history, SEARCH_LIMIT, reminders -> {
+            if (generation != searchGeneration || history != showingHistory || isFinishing() || isDestroyed()) {
+                return;
+            }
+            showReminders(reminders != null ? reminders : new ArrayList<>());
+        });
+    }
+
+    /**
+     * (Re)load history from the newest entry, keeping at least as many rows as are already shown
+     */
+    private void loadHistory() {
+        int limit = Math.max(HISTORY_PAGE_SIZE, historyItems.size());
+        int generation = ++historyGeneration;
+        historyLoading = true;
+        reminderManager.getCompletedRemindersPageAsync(null, limit, page -> {
+            if (!isCurrentHistoryLoad(generation)) {
+                return;
+            }
+            historyLoading = false;
+            historyItems.clear();
+            historyCursor = null;
+            if (page != null) {
+                historyItems.addAll(page.getReminders());
+                historyCursor = page.getNextCursor();
+            }
+            showReminders(new ArrayList<>(historyItems));
+        });
+    }
+
+    /**
+     * Append the next history page when the user scrolls near the end
+     */
+    private void loadMoreHistory() {
+        if (!showingHistory || historyLoading || historyCursor == null || !searchQuery.isEmpty()) {
+            return;
+        }
+        int generation = historyGeneration;
+        historyLoading = true;
+        reminderManager.getCompletedRemindersPageAsync(historyCursor, HISTORY_PAGE_SIZE, page -> {
+            if (!isCurrentHistoryLoad(generation)) {
+                return;
+            }
+            historyLoading = false;
+            if (page == null) {
+                // Keep the cursor, the next scroll retries
+                return;
+            }
+            historyItems.addAll(page.getReminders());
+            historyCursor = page.getNextCursor();
+            reminderAdapter.updateReminders(new ArrayList<>(historyItems));
+        });
+    }
+
+    private boolean isCurrentHistoryLoad(int generation) {
+        return generation == historyGeneration && showingHistory && searchQuery.isEmpty()
+                && !isFinishing() && !isDestroyed();
+    }
+
+    @SuppressLint("SetTextI18n")
+    private void showReminders(List<Reminder> reminders) {
         if (showingHistory) {
-            reminders = reminderManager.getCompletedReminders();
             if (getSupportActionBar() != null) {
                 getSupportActionBar().setTitle(getString(R.string.history));
             }
@@ -171,7 +288,6 @@ public class RemindersListActivity extends AppCompatActivity {
                 clearHistoryButton.setVisibility(reminders.isEmpty() ? View.GONE : View.VISIBLE);
             }
         } else {
-            reminders = reminderManager.getActiveReminders();
             if (getSupportActionBar() != null) {
                 getSupportActionBar().setTitle(getString(R.string.all_reminders));
             }
@@ -187,7 +303,11 @@ public class RemindersListActivity extends AppCompatActivity {
         if (reminders.isEmpty()) {
             emptyRemindersText.setVisibility(View.VISIBLE);
             remindersRecyclerView.setVisibility(View.GONE);
-            emptyRemindersText.setText(showingHistory ? getString(R.string.no_history_reminders) : getString(R.string.no_reminders));
+            if (!searchQuery.isEmpty()) {
+                emptyRemindersText.setText(getString(R.string.no_search_results));
+            } else {
+                emptyRemindersText.setText(showingHistory ? getString(R.string.no_history_reminders) : getString(R.string.no_reminders));
+            }
         } else {
             emptyRemindersText.setVisibility(View.GONE);
             remindersRecyclerView.setVisibility(View.VISIBLE);
@@ -196,6 +316,9 @@ public class RemindersListActivity extends AppCompatActivity {
 
     private void toggleHistoryView() {
         showingHistory = !showingHistory;
+        // Opening history again starts from the first page
+        historyItems.clear();
+        historyCursor = null;
         loadReminders();
     }
 
@@ -299,37 +422,30 @@ public class RemindersListActivity extends AppCompatActivity {
                         }
                     }
 
-                    // Cancel old alarm if exists
-                    if (finalReminder.isEnableNotification()) {
-                        AlarmHelper.cancelAlarm(RemindersListActivity.this, finalReminder);
-                    }
-                    
-                    finalReminder.setTitle(title);
-                    finalReminder.setContent(content);
-                    finalReminder.setStartTime(startTime);
-                    finalReminder.setEndTime(endTime);
-                    finalReminder.setTimestamp(System.currentTimeMillis());
-                    finalReminder.setEnableNotification(enableNotification);
-                    finalReminder.setNotificationMinutesBefore(notificationMinutesBefore);
-                    Reminder reminderToSave = finalReminder;
-                    
-                    reminderManager.saveReminder(reminderToSave);
+                    // Edit a copy: finalReminder is the instance the list is showing, and the list's diff
+                    // has to see the old values to rebind the row
+                    Reminder reminderToSave = new Reminder(finalReminder);
+                    reminderToSave.setTitle(title);
+                    reminderToSave.setContent(content);
+                    reminderToSave.setStartTime(startTime);
+                    reminderToSave.setEndTime(endTime);
+                    reminderToSave.setTimestamp(System.currentTimeMillis());
+                    reminderToSave.setEnableNotification(enableNotification);
+                    reminderToSave.setNotificationMinutesBefore(notificationMinutesBefore);
                     
-                    // Set alarm if notification is enabled
-                    if (enableNotification && !startTime.isEmpty()) {
-                        boolean alarmSet = AlarmHelper.setAlarm(RemindersListActivity.this, reminderToSave);
-                        if (!alarmSet) {
+                    // The old alarm is replaced by the manager once the edit has been saved
+                    reminderManager.saveReminderAsync(reminderToSave, alarmSet -> {
+                        if (Boolean.FALSE.equals(alarmSet) && enableNotification && !startTime.isEmpty()) {
                             // Alarm time is in the past
                             String reminderDateTime = reminderToSave.getDate() + " " + startTime;
                             Toast.makeText(RemindersListActivity.this, getString(R.string.reminder_time_past_detail, reminderDateTime), Toast.LENGTH_LONG).show();
                         }
-                    }
+                        loadReminders();
+                    });
                     
                     // Hide keyboard before dismissing dialog
                     hideKeyboard(dialogView);
                     
-                    loadReminders();
-                    updateWidgets();
                     dialog.dismiss();
                 });
             }
@@ -359,20 +475,14 @@ public class RemindersListActivity extends AppCompatActivity {
 
         CharSequence currentTimeSeq = timeEdit.getText();
         String currentTime = currentTimeSeq != null ? currentTimeSeq.toString() : "";
-        if (!currentTime.isEmpty()) {
-            try {
-                String[] parts = currentTime.split(":");
-                if (parts.length == 2) {
-                    hour = Integer.parseInt(parts[0]);
-                    minute = Integer.parseInt(parts[1]);
-                }
-            } catch (Exception e) {
-                // Failed to parse time, using default values
-            }
+        int currentMinute = ReminderDates.parseMinuteOfDay(currentTime);
+        if (currentMinute != ReminderDates.INVALID_MINUTE) {
+            hour = currentMinute / 60;
+            minute = currentMinute % 60;
         }
 
         TimePickerDialog timePickerDialog = new TimePickerDialog(this, (view, hourOfDay, minuteOfHour) -> {
-            String time = String.format(Locale.getDefault(), "%02d:%02d", hourOfDay, minuteOfHour);
+            String time = ReminderDates.formatMinuteOfDay(hourOfDay * 60 + minuteOfHour);
             timeEdit.setText(time);
         }, hour, minute, true);
 
@@ -411,66 +521,66 @@ public class RemindersListActivity extends AppCompatActivity {
     }
 
     private void showDeleteConfirmDialog(Reminder reminder) {
+        if (!showingHistory && Recurrence.seriesIdOf(reminder.getId()) != null) {
+            showDeleteOccurrenceDialog(reminder);
+            return;
+        }
         MaterialAlertDialogBuilder builder = new MaterialAlertDialogBuilder(this, R.style.CustomDialogTheme)
                 .setTitle(getString(R.string.confirm_delete))
                 .setMessage(getString(R.string.confirm_delete_message))
                 .setPositiveButton(getString(R.string.delete), (dialog, which) -> {
-                    // Cancel alarm if notification is enabled
-                    if (reminder.isEnableNotification()) {
-                        AlarmHelper.cancelAlarm(RemindersListActivity.this, reminder);
-                    }
-                    
+                    // The manager cancels the alarm once the reminder is gone.
                     // If in history view, permanently delete; otherwise mark as deleted
+                    Runnable onDeleted = this::loadReminders;
                     if (showingHistory) {
-                        reminderManager.permanentlyDeleteReminder(reminder.getId());
+                        reminderManager.permanentlyDeleteReminderAsync(reminder.getId(), onDeleted);
                     } else {
-                        reminderManager.deleteReminder(reminder.getId());
+                        reminderManager.deleteReminderAsync(reminder.getId(), onDeleted);
                     }
-                    loadReminders();
-                    updateWidgets();
-                    updateWidgets();
                 })
                 .setNegativeButton(getString(R.string.cancel), null);
         builder.show();
     }
 
-    private void showClearHistoryConfirmDialog() {
-        List<Reminder> completedReminders = reminderManager.getCompletedReminders();
-        if (completedReminders.isEmpty()) {
-            Toast.makeText(this, getString(R.string.no_history_reminders), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        MaterialAlertDialogBuilder builder = new MaterialAlertDialogBuilder(this, R.style.CustomDialogTheme)
-                .setTitle(getString(R.string.clear_all_history))
-                .setMessage(getString(R.string.clear_all_history_message))
-                .setPositiveButton(getString(R.string.clear_all), (dialog, which) -> {
-                    // Cancel alarms for all completed reminders before clearing
-                    for (Reminder reminder : completedReminders) {
-                        if (reminder != null && reminder.isEnableNotification()) {
-                            AlarmHelper.cancelAlarm(RemindersListActivity.this, reminder);
-                        }
-                    }
-                    // Permanently delete all completed reminders
-                    reminderManager.clearAllCompletedReminders();
-                    Toast.makeText(RemindersListActivity.this, getString(R.string.all_history_cleared), Toast.LENGTH_SHORT).show();
-                    loadReminders();
-                    updateWidgets();
-                })
-                .setNegativeButton(getString(R.string.cancel), null);
-        builder.show();
+    /**
+     * Delete one occurrence of a repeating reminder, or the whole series
+     */
+    private void showDeleteOccurrenceDialog(Reminder occurrence) {
+        Runnable onDeleted = this::loadReminders;
+        new MaterialAlertDialogBuilder(this, R.style.CustomDialogTheme)
+                .setTitle(getString(R.string.confirm_delete))
+                .setMessage(getString(R.string.confirm_delete_recurring_message))
+                .setPositiveButton(getString(R.string.delete_this_occurrence), (dialog, which) ->
+                        reminderManager.deleteReminderAsync(occurrence.getId(), onDeleted))
+                .setNeutralButton(getString(R.string.delete_all_occurrences), (dialog, which) ->
+                        reminderManager.deleteSeriesAsync(occurrence.getId(), onDeleted))
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show();
     }
 
-    private void updateWidgets() {
-        Intent intent = new Intent(this, ReminderWidgetProvider.class);
-        intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-        int[] ids = AppWidgetManager.getInstance(this).getAppWidgetIds(
-            new ComponentName(this, ReminderWidgetProvider.class)
-        );
-        if (ids.length > 0) {
-            intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
-            sendBroadcast(intent);
-        }
+    private void showClearHistoryConfirmDialog() {
+        // A single row is enough to know whether there is anything to clear
+        reminderManager.getCompletedRemindersPageAsync(null, 1, page -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            if (page == null || page.getReminders().isEmpty()) {
+                Toast.makeText(this, getString(R.string.no_history_reminders), Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            MaterialAlertDialogBuilder builder = new MaterialAlertDialogBuilder(this, R.style.CustomDialogTheme)
+                    .setTitle(getString(R.string.clear_all_history))
+                    .setMessage(getString(R.string.clear_all_history_message))
+                    .setPositiveButton(getString(R.string.clear_all), (dialog, which) -> {
+                        // Permanently delete all completed reminders in one commit,
+                        // the batch cancels their alarms and refreshes the widgets once
+                        reminderManager.batch(ReminderBatch::clearHistory, this::loadReminders);
+                        Toast.makeText(RemindersListActivity.this, getString(R.string.all_history_cleared), Toast.LENGTH_SHORT).show();
+                    })
+                    .setNegativeButton(getString(R.string.cancel), null);
+            builder.show();
+        });
     }
 
 }
@@ -0,0 +1,53 @@
+package com.example.myapplication;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+/**
+ * Registers the reminder alarms again after a reboot, and moves them when the clock or time zone changes.
+ * Only the alarms that differ from the record are touched; after a reboot that is every upcoming one.
+ * Also receives the midnight alarm of {@link DayBoundary}, and re-arms it after any of these events.
+ */
+public class RescheduleReceiver extends BroadcastReceiver {
+    private static final String TAG = "RescheduleReceiver";
+
+    @Override
+    public void onReceive(@NonNull Context context, @NonNull Intent intent) {
+        if (intent == null || context == null) {
+            Log.e(TAG, "Intent or Context is null");
+            return;
+        }
+
+        String action = intent.getAction();
+        long receivedAt = SystemClock.elapsedRealtime();
+        Context appContext = context.getApplicationContext();
+        if (DayBoundary.ACTION_DAY_CHANGED.equals(action)) {
+            PendingResult pendingResult = goAsync();
+            DayBoundary.update(appContext, () -> {
+                pendingResult.finish();
+                Log.d(TAG, action + " handled in " + (SystemClock.elapsedRealtime() - receivedAt) + " ms");
+            });
+            return;
+        }
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action)
+                && !Intent.ACTION_TIME_CHANGED.equals(action)
+                && !Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            return;
+        }
+
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+            AlarmScheduler.onClockChanged(appContext);
+        }
+
+        // Loading the store and registering alarms happen on the repository thread
+        PendingResult pendingResult = goAsync();
+        AlarmScheduler.reconcile(appContext, () -> DayBoundary.update(appContext, () -> {
+            pendingResult.finish();
+            Log.d(TAG, action + " handled in " + (SystemClock.elapsedRealtime() - receivedAt) + " ms");
+        }));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.myapplication;
+
+import android.util.Log;
+import java.util.Objects;
+
+/**
+ * One entry of the {@link AlarmScheduler} record: when the alarm fires and a version stamp of the
+ * reminder it was set for. Stored as "triggerAt:stamp" in a single preference value, so the record
+ * stays small however many alarms are registered.
+ * The stamp also travels in the alarm intent, together with the reminder as JSON ({@link #payload()}),
+ * so a receiver can tell the alarm is still current and build the notification without loading the
+ * reminder store.
+ */
+final class ScheduledAlarm {
+    private static final String TAG = "ScheduledAlarm";
+    private static final ReminderTypeAdapter ADAPTER = new ReminderTypeAdapter();
+
+    final long triggerAt;
+    final long stamp;
+    // Only known for alarms about to be set, entries read back from the record have none
+    private final Reminder reminder;
+
+    private ScheduledAlarm(long triggerAt, long stamp, Reminder reminder) {
+        this.triggerAt = triggerAt;
+        this.stamp = stamp;
+        this.reminder = reminder;
+    }
+
+    static ScheduledAlarm of(Reminder reminder, long triggerAt) {
+        return new ScheduledAlarm(triggerAt, stampOf(reminder, triggerAt), reminder);
+    }
+
+    /**
+     * Changes whenever the trigger time or anything shown in the notification changes
+     */
+    static long stampOf(Reminder reminder, long triggerAt) {
+        int contentHash = Objects.hash(reminder.getTitle(), reminder.getContent(), reminder.getDate(),
+                reminder.getStartTime(), reminder.getEndTime());
+        return triggerAt * 31 + contentHash;
+    }
+
+    /**
+     * @return the entry, or null if the value is not a record entry
+     */
+    static ScheduledAlarm decode(Object value) {
+        if (!(value instanceof String)) {
+            return null;
+        }
+        String encoded = (String) value;
+        int colon = encoded.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        try {
+            return new ScheduledAlarm(Long.parseLong(encoded.substring(0, colon)),
+                    Long.parseLong(encoded.substring(colon + 1)), null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    String encode() {
+        return triggerAt + ":" + stamp;
+    }
+
+    /**
+     * The reminder as JSON for the alarm intent, or null if the entry has no reminder
+     */
+    String payload() {
+        return reminder != null ? ADAPTER.toJson(reminder) : null;
+    }
+
+    /**
+     * Reminder carried by an alarm intent, or null if there is none or it cannot be read
+     */
+    static Reminder readPayload(String payload) {
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+        try {
+            return ADAPTER.fromJson(payload);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read scheduled reminder", e);
+            return null;
+        }
+    }
+}
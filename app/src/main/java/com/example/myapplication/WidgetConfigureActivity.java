@@ -0,0 +1,152 @@
+package com.example.myapplication;
+
+import android.app.DatePickerDialog;
+import android.appwidget.AppWidgetManager;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.RadioGroup;
+import android.widget.TextView;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Lets the user pick what a widget lists: all upcoming reminders, today, the next 7 days or a date range,
+ * and how many rows. Shown when the widget is placed (where the launcher asks for it) and on reconfigure.
+ */
+public class WidgetConfigureActivity extends AppCompatActivity {
+    private int appWidgetId = AppWidgetManager.INVALID_APPWIDGET_ID;
+    private int rangeFromDay;
+    private int rangeToDay;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        // Backing out of the first configuration must not leave a widget behind
+        setResult(RESULT_CANCELED);
+
+        Intent intent = getIntent();
+        if (intent != null) {
+            appWidgetId = intent.getIntExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID);
+        }
+        if (appWidgetId == AppWidgetManager.INVALID_APPWIDGET_ID) {
+            finish();
+            return;
+        }
+
+        // A stored query that cannot be read falls back to the default, anything else is a bug and should crash
+        showConfigureDialog(WidgetQuery.load(this, appWidgetId));
+    }
+
+    private void showConfigureDialog(WidgetQuery current) {
+        View dialogView = getLayoutInflater().inflate(R.layout.dialog_widget_config, null);
+        RadioGroup rangeGroup = dialogView.findViewById(R.id.widgetRangeGroup);
+        RadioGroup rowsGroup = dialogView.findViewById(R.id.widgetRowsGroup);
+        TextView rangeDates = dialogView.findViewById(R.id.widgetRangeDates);
+
+        int today = ReminderDates.todayEpochDay();
+        rangeFromDay = current.type == WidgetQuery.Type.RANGE ? current.fromDay : today;
+        rangeToDay = current.type == WidgetQuery.Type.RANGE ? current.toDay : today + WidgetQuery.NEXT_DAYS - 1;
+
+        rangeGroup.check(rangeButtonId(current.type));
+        rowsGroup.check(current.maxRows <= 10 ? R.id.widgetRows10
+                : current.maxRows <= 20 ? R.id.widgetRows20 : R.id.widgetRows50);
+        showRange(rangeDates, rangeGroup.getCheckedRadioButtonId() == R.id.widgetRangeCustom);
+
+        rangeGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            boolean custom = checkedId == R.id.widgetRangeCustom;
+            showRange(rangeDates, custom);
+            if (custom) {
+                pickRange(rangeDates);
+            }
+        });
+        rangeDates.setOnClickListener(v -> pickRange(rangeDates));
+
+        AlertDialog dialog = new MaterialAlertDialogBuilder(this)
+                .setTitle(getString(R.string.widget_configure_title))
+                .setView(dialogView)
+                .setPositiveButton(getString(R.string.save), (d, which) ->
+                        save(queryFor(rangeGroup.getCheckedRadioButtonId(), rowsGroup.getCheckedRadioButtonId())))
+                .setNegativeButton(getString(R.string.cancel), (d, which) -> finish())
+                .create();
+        dialog.setOnCancelListener(d -> finish());
+        dialog.show();
+    }
+
+    private void pickRange(TextView rangeDates) {
+        // Two pickers in a row: first day, then last day
+        LocalDate from = LocalDate.ofEpochDay(rangeFromDay);
+        DatePickerDialog fromPicker = new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            rangeFromDay = (int) LocalDate.of(year, month + 1, dayOfMonth).toEpochDay();
+            if (rangeToDay < rangeFromDay) {
+                rangeToDay = rangeFromDay;
+            }
+            showRange(rangeDates, true);
+
+            LocalDate to = LocalDate.ofEpochDay(rangeToDay);
+            DatePickerDialog toPicker = new DatePickerDialog(this, (view1, year1, month1, dayOfMonth1) -> {
+                rangeToDay = Math.max(rangeFromDay, (int) LocalDate.of(year1, month1 + 1, dayOfMonth1).toEpochDay());
+                showRange(rangeDates, true);
+            }, to.getYear(), to.getMonthValue() - 1, to.getDayOfMonth());
+            toPicker.getDatePicker().setMinDate(ReminderDates.toEpochMillis(rangeFromDay, 0));
+            toPicker.show();
+        }, from.getYear(), from.getMonthValue() - 1, from.getDayOfMonth());
+        fromPicker.show();
+    }
+
+    private void showRange(TextView rangeDates, boolean visible) {
+        rangeDates.setVisibility(visible ? View.VISIBLE : View.GONE);
+        if (visible) {
+            Locale locale = Locale.getDefault();
+            rangeDates.setText(getString(R.string.time_range,
+                    ReminderDates.formatDay(rangeFromDay, ReminderDates.DayStyle.NUMERIC_MONTH_DAY, locale),
+                    ReminderDates.formatDay(rangeToDay, ReminderDates.DayStyle.NUMERIC_MONTH_DAY, locale)));
+        }
+    }
+
+    private static int rangeButtonId(WidgetQuery.Type type) {
+        switch (type) {
+            case TODAY:
+                return R.id.widgetRangeToday;
+            case NEXT_7_DAYS:
+                return R.id.widgetRangeNextDays;
+            case RANGE:
+                return R.id.widgetRangeCustom;
+            default:
+                return R.id.widgetRangeUpcoming;
+        }
+    }
+
+    private WidgetQuery queryFor(int rangeButtonId, int rowsButtonId) {
+        int maxRows = rowsButtonId == R.id.widgetRows10 ? 10
+                : rowsButtonId == R.id.widgetRows20 ? 20 : WidgetSnapshot.MAX_ROWS;
+        WidgetQuery.Type type;
+        if (rangeButtonId == R.id.widgetRangeToday) {
+            type = WidgetQuery.Type.TODAY;
+        } else if (rangeButtonId == R.id.widgetRangeNextDays) {
+            type = WidgetQuery.Type.NEXT_7_DAYS;
+        } else if (rangeButtonId == R.id.widgetRangeCustom) {
+            type = WidgetQuery.Type.RANGE;
+        } else {
+            type = WidgetQuery.Type.UPCOMING;
+        }
+        return new WidgetQuery(type, rangeFromDay, rangeToDay, maxRows);
+    }
+
+    private void save(WidgetQuery query) {
+        WidgetQuery.save(this, appWidgetId, query);
+
+        // The factory picks up the new query on its next load
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(this);
+        ReminderWidgetProvider.updateAppWidget(this, appWidgetManager, appWidgetId);
+        appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetId, R.id.remindersList);
+
+        Intent result = new Intent();
+        result.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+        setResult(RESULT_OK, result);
+        finish();
+    }
+}
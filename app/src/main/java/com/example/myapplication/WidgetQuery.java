@@ -0,0 +1,142 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * What one home screen widget lists: a day range and a row limit, saved per widget id.
+ * Widgets with equal queries share one cached snapshot.
+ */
+final class WidgetQuery {
+    private static final String PREFS_NAME = "widget_queries";
+    private static final String KEY_TYPE = "type_";
+    private static final String KEY_FROM = "from_";
+    private static final String KEY_TO = "to_";
+    private static final String KEY_MAX_ROWS = "max_rows_";
+    static final int NEXT_DAYS = 7;
+
+    enum Type {
+        // Today first, then overdue, then later days (the original widget list)
+        UPCOMING,
+        TODAY,
+        NEXT_7_DAYS,
+        RANGE
+    }
+
+    static final WidgetQuery DEFAULT = new WidgetQuery(Type.UPCOMING, 0, 0, WidgetSnapshot.MAX_ROWS);
+
+    final Type type;
+    // Epoch days, only used by RANGE
+    final int fromDay;
+    final int toDay;
+    final int maxRows;
+
+    WidgetQuery(Type type, int fromDay, int toDay, int maxRows) {
+        this.type = type;
+        this.fromDay = type == Type.RANGE ? Math.min(fromDay, toDay) : 0;
+        this.toDay = type == Type.RANGE ? Math.max(fromDay, toDay) : 0;
+        this.maxRows = Math.max(1, Math.min(maxRows, WidgetSnapshot.MAX_ROWS));
+    }
+
+    static WidgetQuery load(Context context, int appWidgetId) {
+        SharedPreferences prefs = getPrefs(context);
+        String typeName = prefs.getString(KEY_TYPE + appWidgetId, null);
+        if (typeName == null) {
+            return DEFAULT;
+        }
+        try {
+            return new WidgetQuery(Type.valueOf(typeName),
+                    prefs.getInt(KEY_FROM + appWidgetId, 0),
+                    prefs.getInt(KEY_TO + appWidgetId, 0),
+                    prefs.getInt(KEY_MAX_ROWS + appWidgetId, WidgetSnapshot.MAX_ROWS));
+        } catch (IllegalArgumentException e) {
+            return DEFAULT;
+        }
+    }
+
+    static void save(Context context, int appWidgetId, WidgetQuery query) {
+        getPrefs(context).edit()
+                .putString(KEY_TYPE + appWidgetId, query.type.name())
+                .putInt(KEY_FROM + appWidgetId, query.fromDay)
+                .putInt(KEY_TO + appWidgetId, query.toDay)
+                .putInt(KEY_MAX_ROWS + appWidgetId, query.maxRows)
+                .apply();
+    }
+
+    static void delete(Context context, int appWidgetId) {
+        getPrefs(context).edit()
+                .remove(KEY_TYPE + appWidgetId)
+                .remove(KEY_FROM + appWidgetId)
+                .remove(KEY_TO + appWidgetId)
+                .remove(KEY_MAX_ROWS + appWidgetId)
+                .apply();
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * The reminders to list, read from the repository range index
+     */
+    List<Reminder> run(ReminderRepository repository, int today) {
+        if (type == Type.UPCOMING) {
+            return repository.getActiveTodayFirst(today, maxRows);
+        }
+        return repository.getActiveBetween(firstDay(today), lastDay(today), maxRows);
+    }
+
+    /**
+     * Repository version of the last change that can affect this query's result
+     */
+    long lastChange(ReminderRepository repository, int today) {
+        if (type == Type.UPCOMING) {
+            // Open ended, any change counts
+            return repository.getVersion();
+        }
+        return repository.getLastChange(firstDay(today), lastDay(today));
+    }
+
+    private int firstDay(int today) {
+        return type == Type.RANGE ? fromDay : today;
+    }
+
+    private int lastDay(int today) {
+        switch (type) {
+            case TODAY:
+                return today;
+            case NEXT_7_DAYS:
+                return today + NEXT_DAYS - 1;
+            default:
+                return toDay;
+        }
+    }
+
+    /**
+     * Stable name for this query, used for the snapshot file
+     */
+    String key() {
+        String key = type.name().toLowerCase(Locale.ROOT) + "_" + maxRows;
+        return type == Type.RANGE ? key + "_" + fromDay + "_" + toDay : key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WidgetQuery)) {
+            return false;
+        }
+        WidgetQuery other = (WidgetQuery) o;
+        return type == other.type && fromDay == other.fromDay && toDay == other.toDay && maxRows == other.maxRows;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, fromDay, toDay, maxRows);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.AtomicFile;
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The rows shown by home screen widgets, already formatted, one snapshot per {@link WidgetQuery}.
+ * Rebuilt on the repository thread when reminders in the query's days change and saved next to the store,
+ * so a widget reads ready-made strings and a cold process does not have to load every reminder.
+ * A snapshot that is missing or from another day is rebuilt by {@link #get} on the calling thread
+ * (the widget's binder thread), since there are no rows worth showing until it is done.
+ * The version only moves when the rows differ, which lets the widget skip reloads.
+ */
+final class WidgetSnapshot {
+    private static final String TAG = "WidgetSnapshot";
+    private static final String FILE_PREFIX = "widget_snapshot_";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final int FORMAT_VERSION = 1;
+    static final int MAX_ROWS = 50;
+    // A widget row shows one line, longer titles are cut so rows stay small
+    private static final int MAX_TITLE_LENGTH = 200;
+
+    // Shared by every widget showing the same query
+    private static final Map<WidgetQuery, WidgetSnapshot> current = new HashMap<>();
+    // Repository version each in-memory snapshot was built from
+    private static final Map<WidgetQuery, Long> builtFromVersion = new HashMap<>();
+
+    final long version;
+    final int day;
+    final String locale;
+    final List<Row> rows;
+
+    static final class Row {
+        final String reminderId;
+        final String title;
+        final String date;
+        final String time;
+
+        Row(String reminderId, String title, String date, String time) {
+            this.reminderId = reminderId;
+            this.title = title;
+            this.date = date;
+            this.time = time;
+        }
+
+        boolean sameAs(Row other) {
+            return reminderId.equals(other.reminderId) && title.equals(other.title)
+                    && date.equals(other.date) && time.equals(other.time);
+        }
+    }
+
+    private WidgetSnapshot(long version, int day, String locale, List<Row> rows) {
+        this.version = version;
+        this.day = day;
+        this.locale = locale;
+        this.rows = rows;
+    }
+
+    /**
+     * Rows for a query, from memory or the saved file; rebuilt only if there is none or it is from another day.
+     * That rebuild runs on the calling thread and may load the store, so never call this on the main thread.
+     */
+    static synchronized WidgetSnapshot get(Context context, WidgetQuery query) {
+        WidgetSnapshot snapshot = current.get(query);
+        if (snapshot == null) {
+            snapshot = read(context, query);
+            if (snapshot != null) {
+                current.put(query, snapshot);
+            }
+        }
+        if (snapshot == null || !isFor(snapshot, ReminderDates.todayEpochDay(), Locale.getDefault())) {
+            refresh(context, query);
+        }
+        return current.get(query);
+    }
+
+    /**
+     * Rebuild a query's rows if reminders in its days changed since the last build, and save them if they differ.
+     * @return true if the rows changed
+     */
+    static synchronized boolean refresh(Context context, WidgetQuery query) {
+        ReminderRepository repository = ReminderRepository.getInstance(context);
+        int today = ReminderDates.todayEpochDay();
+        Locale locale = Locale.getDefault();
+        WidgetSnapshot snapshot = current.get(query);
+        Long builtFrom = builtFromVersion.get(query);
+        if (snapshot != null && builtFrom != null && isFor(snapshot, today, locale)
+                && query.lastChange(repository, today) <= builtFrom) {
+            return false;
+        }
+        if (snapshot == null) {
+            snapshot = read(context, query);
+        }
+
+        // Read before the query, a change in between only causes one extra rebuild
+        long repositoryVersion = repository.getVersion();
+        List<Row> rows = buildRows(context, query.run(repository, today), today, locale);
+        builtFromVersion.put(query, repositoryVersion);
+        if (snapshot != null && isFor(snapshot, today, locale) && sameRows(snapshot.rows, rows)) {
+            current.put(query, snapshot);
+            return false;
+        }
+        long version = snapshot != null ? snapshot.version + 1 : 1;
+        snapshot = new WidgetSnapshot(version, today, locale.toLanguageTag(), Collections.unmodifiableList(rows));
+        current.put(query, snapshot);
+        write(context, query, snapshot);
+        return true;
+    }
+
+    /**
+     * Drop a query no widget shows any more, in memory and on disk
+     */
+    static synchronized void discard(Context context, WidgetQuery query) {
+        current.remove(query);
+        builtFromVersion.remove(query);
+        getFile(context, query).delete();
+    }
+
+    private static boolean isFor(WidgetSnapshot snapshot, int day, Locale locale) {
+        return snapshot.day == day && snapshot.locale.equals(locale.toLanguageTag());
+    }
+
+    private static List<Row> buildRows(Context context, List<Reminder> reminders, int today, Locale locale) {
+        String todayLabel = context.getString(R.string.today);
+        String noTitle = context.getString(R.string.no_title);
+        List<Row> rows = new ArrayList<>(reminders.size());
+        for (Reminder reminder : reminders) {
+            String title = reminder.getTitle();
+            if (TextUtils.isEmpty(title)) {
+                title = reminder.getContent();
+            }
+            if (TextUtils.isEmpty(title)) {
+                title = noTitle;
+            } else if (title.length() > MAX_TITLE_LENGTH) {
+                title = title.substring(0, MAX_TITLE_LENGTH);
+            }
+
+            int epochDay = reminder.getEpochDay();
+            String date = reminder.getDate() != null ? reminder.getDate() : "";
+            if (epochDay != ReminderDates.INVALID_DAY) {
+                date = epochDay == today
+                        ? todayLabel
+                        : ReminderDates.formatDay(epochDay, ReminderDates.DayStyle.NUMERIC_MONTH_DAY, locale);
+            }
+
+            String time = "";
+            if (!TextUtils.isEmpty(reminder.getStartTime())) {
+                time = reminder.getStartTime();
+                if (!TextUtils.isEmpty(reminder.getEndTime())) {
+                    time += " - " + reminder.getEndTime();
+                }
+            }
+            rows.add(new Row(reminder.getId(), title, date, time));
+        }
+        return rows;
+    }
+
+    private static boolean sameRows(List<Row> a, List<Row> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).sameAs(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AtomicFile getFile(Context context, WidgetQuery query) {
+        return new AtomicFile(new File(context.getFilesDir(), FILE_PREFIX + query.key() + FILE_SUFFIX));
+    }
+
+    private static WidgetSnapshot read(Context context, WidgetQuery query) {
+        AtomicFile file = getFile(context, query);
+        if (!file.getBaseFile().exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long version = in.readLong();
+            int day = in.readInt();
+            String locale = in.readUTF();
+            int count = in.readInt();
+            List<Row> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new Row(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            return new WidgetSnapshot(version, day, locale, Collections.unmodifiableList(rows));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read widget snapshot", e);
+            return null;
+        }
+    }
+
+    private static void write(Context context, WidgetQuery query, WidgetSnapshot snapshot) {
+        AtomicFile file = getFile(context, query);
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(snapshot.version);
+            data.writeInt(snapshot.day);
+            data.writeUTF(snapshot.locale);
+            data.writeInt(snapshot.rows.size());
+            for (Row row : snapshot.rows) {
+                data.writeUTF(row.reminderId);
+                data.writeUTF(row.title);
+                data.writeUTF(row.date);
+                data.writeUTF(row.time);
+            }
+            data.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write widget snapshot", e);
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+}
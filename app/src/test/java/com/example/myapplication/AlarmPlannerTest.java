@@ -0,0 +1,134 @@
+package com.example.myapplication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AlarmPlannerTest {
+    private static final int DAY = ReminderDates.parseEpochDay("2026-11-03");
+    // 09:00 on DAY, when the alarm under test fires
+    private static final long NOW = ReminderDates.toEpochMillis(DAY, 9 * 60);
+    private static final long WINDOW = 60_000L;
+    private static final int MAX_ALARMS = 400;
+
+    private ReminderRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new ReminderRepository(null);
+        add("missed", "08:58");
+        add("nine", "09:00");
+        add("nine-one", "09:01");
+        add("nine-five", "09:05");
+    }
+
+    private void add(String id, String startTime) {
+        Reminder reminder = new Reminder(id, ReminderDates.formatEpochDay(DAY), id, "", startTime, "", 1);
+        reminder.setEnableNotification(true);
+        reminder.setNotificationMinutesBefore(0);
+        repository.put(reminder);
+    }
+
+    private AlarmPlanner plannerAt(long millis) {
+        return new AlarmPlanner(Clock.fixed(Instant.ofEpochMilli(millis), ZoneId.systemDefault()), repository);
+    }
+
+    private static long at(String time) {
+        return ReminderDates.toEpochMillis(DAY, ReminderDates.parseMinuteOfDay(time));
+    }
+
+    private static List<String> ids(List<Reminder> reminders) {
+        List<String> ids = new ArrayList<>();
+        for (Reminder reminder : reminders) {
+            ids.add(reminder.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void chainedDeliveryTakesWhatWasMissedAndTheWindow() {
+        AlarmPlanner.Delivery delivery = plannerAt(NOW).deliverChained(NOW - 10 * 60_000L,
+                Collections.emptyMap(), WINDOW, null);
+
+        assertEquals(Arrays.asList("missed", "nine", "nine-one"), ids(delivery.due));
+        // Only now is covered, the 09:01 reminder went out ahead of its time and is noted instead
+        assertEquals(NOW, delivery.deliveredThrough);
+        assertEquals(Collections.singletonMap("nine-one", at("09:01")), delivery.early);
+    }
+
+    @Test
+    public void chainArmsTheNextReminderAfterADelivery() {
+        AlarmPlanner planner = plannerAt(NOW);
+        AlarmPlanner.Delivery delivery = planner.deliverChained(NOW - 10 * 60_000L, Collections.emptyMap(),
+                WINDOW, null);
+
+        AlarmPlanner.Plan plan = planner.plan(true, delivery.deliveredThrough, delivery.early, MAX_ALARMS);
+
+        assertEquals(at("09:05"), plan.chainAt);
+        assertTrue(plan.alarms.isEmpty());
+    }
+
+    @Test
+    public void chainedQueueStartsAfterTheDeliveredPosition() {
+        AlarmQueue queue = plannerAt(NOW).chainedQueue(at("09:01"), Collections.emptyMap(), 0);
+
+        assertEquals(1, queue.size());
+        assertEquals(at("09:05"), queue.nextTriggerAt());
+    }
+
+    @Test
+    public void leftoverPerReminderAlarmIsDeliveredInChainedMode() {
+        AlarmPlanner.Delivery delivery = plannerAt(NOW).deliverChained(NOW, Collections.emptyMap(), WINDOW,
+                "nine-five");
+
+        assertEquals(Arrays.asList("nine-five", "nine-one"), ids(delivery.due));
+    }
+
+    @Test
+    public void firedAlarmTakesItsWindowAndLeavesTheRestArmed() {
+        Map<String, ScheduledAlarm> record = plannerAt(NOW - 3_600_000L)
+                .plan(false, 0, Collections.emptyMap(), MAX_ALARMS).alarms;
+        AlarmPlanner planner = plannerAt(NOW);
+
+        AlarmPlanner.Delivery delivery = planner.deliverFired(record, "nine", record.get("nine").stamp, null, WINDOW);
+
+        assertEquals(Arrays.asList("nine", "nine-one"), ids(delivery.due));
+        assertEquals(Arrays.asList("nine", "nine-one"), delivery.taken);
+        assertEquals(Collections.singletonMap("nine-one", at("09:01")), delivery.early);
+        // The next pass arms neither what has fired nor what went out early
+        AlarmPlanner.Plan plan = planner.plan(false, 0, delivery.early, MAX_ALARMS);
+        assertEquals(Arrays.asList("nine-five"), new ArrayList<>(plan.alarms.keySet()));
+    }
+
+    @Test
+    public void firedAlarmWithAStaleStampIsDropped() {
+        Map<String, ScheduledAlarm> record = plannerAt(NOW - 3_600_000L)
+                .plan(false, 0, Collections.emptyMap(), MAX_ALARMS).alarms;
+
+        AlarmPlanner.Delivery delivery = plannerAt(NOW).deliverFired(record, "nine", record.get("nine").stamp + 1,
+                null, 0);
+
+        assertTrue(delivery.due.isEmpty());
+        assertTrue(delivery.taken.isEmpty());
+    }
+
+    @Test
+    public void planKeepsTheEarliestAlarmsUnderTheLimit() {
+        AlarmPlanner.Plan plan = plannerAt(NOW - 3_600_000L).plan(false, 0, Collections.emptyMap(), 2);
+
+        assertEquals(Arrays.asList("missed", "nine"), new ArrayList<>(plan.alarms.keySet()));
+        assertEquals(at("08:58"), plan.alarms.get("missed").triggerAt);
+        assertTrue(plan.truncated);
+        assertEquals(-1, plan.chainAt);
+    }
+}
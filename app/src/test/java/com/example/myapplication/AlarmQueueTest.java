@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class AlarmQueueTest {
+    private static final long NOW = 1_760_000_000_000L;
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+
+    @Test
+    public void emptyQueueHasNoNextTrigger() {
+        AlarmQueue queue = new AlarmQueue(CLOCK, 0);
+
+        assertEquals(-1, queue.nextTriggerAt());
+        assertTrue(queue.pollDue(60_000).isEmpty());
+    }
+
+    @Test
+    public void headIsEarliestTriggerWhateverTheInsertOrder() {
+        AlarmQueue queue = new AlarmQueue(CLOCK, 0);
+        queue.schedule("late", NOW + 3_600_000);
+        queue.schedule("soon", NOW + 60_000);
+        queue.schedule("middle", NOW + 600_000);
+
+        assertEquals(NOW + 60_000, queue.nextTriggerAt());
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void pollDueHandsOutTheWindowEarliestFirst() {
+        AlarmQueue queue = new AlarmQueue(CLOCK, NOW - 3_600_000);
+        queue.schedule("next-hour", NOW + 3_600_000);
+        queue.schedule("in-window", NOW + 30_000);
+        queue.schedule("missed", NOW - 120_000);
+        queue.schedule("now", NOW);
+        queue.schedule("window-edge", NOW + 60_000);
+
+        assertEquals(Arrays.asList("missed", "now", "in-window", "window-edge"), queue.pollDue(60_000));
+        assertEquals(NOW + 3_600_000, queue.nextTriggerAt());
+        // Only now is covered, in-window reminders were handed out ahead of their time
+        assertEquals(NOW, queue.getDeliveredThrough());
+    }
+
+    @Test
+    public void sameTriggerTimeIsOrderedById() {
+        AlarmQueue queue = new AlarmQueue(CLOCK, 0);
+        queue.schedule("b", NOW);
+        queue.schedule("a", NOW);
+        queue.schedule("c", NOW);
+
+        assertEquals(Arrays.asList("a", "b", "c"), queue.pollDue(0));
+    }
+
+    @Test
+    public void alreadyDeliveredTimesAreIgnored() {
+        AlarmQueue queue = new AlarmQueue(CLOCK, NOW + 60_000);
+        queue.schedule("delivered", NOW + 30_000);
+        queue.schedule("edge", NOW + 60_000);
+        queue.schedule(null, NOW + 120_000);
+        queue.schedule("pending", NOW + 120_000);
+
+        assertEquals(1, queue.size());
+        assertEquals(NOW + 120_000, queue.nextTriggerAt());
+    }
+
+    @Test
+    public void deliveredThroughNeverMovesBack() {
+        AlarmQueue queue = new AlarmQueue(CLOCK, NOW + 600_000);
+
+        queue.pollDue(60_000);
+
+        assertEquals(NOW + 600_000, queue.getDeliveredThrough());
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.myapplication;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.content.res.Resources;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM micro-benchmarks behind the numbers quoted in commit messages. They print, they do not assert,
+ * and are skipped unless run with -Pbenchmarks (./gradlew testDebugUnitTest -Pbenchmarks).
+ * Desktop JVM numbers only show relative cost; they say nothing about a device.
+ */
+public class PerformanceBenchmarkTest {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    // Keeps results reachable so the JIT cannot drop the measured work
+    private static Object sink;
+
+    @Before
+    public void onlyWhenAsked() {
+        assumeTrue("benchmarks are run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+    }
+
+    /**
+     * Streaming JSON save and load of the reminder store format (ReminderTypeAdapter)
+     */
+    @Test
+    public void jsonStore() throws IOException {
+        ReminderTypeAdapter adapter = new ReminderTypeAdapter();
+        for (int count : new int[]{1_000, 10_000}) {
+            List<Reminder> reminders = reminders(count);
+            StringWriter saved = new StringWriter();
+            writeJson(adapter, reminders, saved);
+            String json = saved.toString();
+            System.out.printf(Locale.ROOT, "json: %d reminders, %d KB%n", count, json.length() / 1024);
+
+            measure("json save, " + count + " reminders", 1, () -> writeJson(adapter, reminders, Writer.nullWriter()));
+            measure("json load, " + count + " reminders", 1, () -> sink = readJson(adapter, json));
+        }
+    }
+
+    /**
+     * Binary snapshot save and load (ReminderCodec), the format the store uses now
+     */
+    @Test
+    public void binarySnapshot() throws IOException {
+        for (int count : new int[]{1_000, 10_000}) {
+            List<Reminder> reminders = reminders(count);
+            ByteArrayOutputStream saved = new ByteArrayOutputStream();
+            ReminderCodec.writeSnapshot(saved, reminders);
+            byte[] snapshot = saved.toByteArray();
+            System.out.printf(Locale.ROOT, "binary: %d reminders, %d KB%n", count, snapshot.length / 1024);
+
+            measure("binary save, " + count + " reminders", 1,
+                    () -> ReminderCodec.writeSnapshot(OutputStream.nullOutputStream(), reminders));
+            measure("binary load, " + count + " reminders", 1, () -> {
+                Map<String, Reminder> loaded = new HashMap<>();
+                ReminderCodec.readSnapshot(new ByteArrayInputStream(snapshot), snapshot.length, loaded);
+                sink = loaded;
+            });
+        }
+    }
+
+    /**
+     * What a fired per-reminder alarm reads: the reminder from the intent payload and the record entries
+     * (ScheduledAlarm), against loading the store snapshot it would otherwise need
+     */
+    @Test
+    public void alarmDelivery() throws IOException {
+        List<Reminder> reminders = reminders(400);
+        String payload = ScheduledAlarm.of(reminders.get(0), 1_760_000_000_000L).payload();
+        List<String> record = new ArrayList<>();
+        for (Reminder reminder : reminders) {
+            record.add(ScheduledAlarm.of(reminder, 1_760_000_000_000L).encode());
+        }
+
+        measure("alarm payload read", 1, () -> sink = ScheduledAlarm.readPayload(payload));
+        measure("alarm record decode, 400 entries", 1, () -> {
+            for (String entry : record) {
+                sink = ScheduledAlarm.decode(entry);
+            }
+        });
+        for (int count : new int[]{1_000, 10_000, 50_000}) {
+            ByteArrayOutputStream saved = new ByteArrayOutputStream();
+            ReminderCodec.writeSnapshot(saved, reminders(count));
+            byte[] snapshot = saved.toByteArray();
+            measure("store load, " + count + " reminders", 1, () -> {
+                Map<String, Reminder> loaded = new HashMap<>();
+                ReminderCodec.readSnapshot(new ByteArrayInputStream(snapshot), snapshot.length, loaded);
+                sink = loaded;
+            });
+        }
+    }
+
+    /**
+     * Building a list row's display model, which is all the formatting a bind used to do per row
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void reminderRowModel() {
+        // Only getString is called, which returns null with the default-value android.jar
+        Resources resources = new Resources(null, null, null);
+        List<Reminder> reminders = reminders(100_000);
+
+        measure("row model build, per row", reminders.size(), () -> sink = ReminderItem.fromAll(resources, reminders));
+    }
+
+    /**
+     * Turning a stored date into a "MMM dd, yyyy" label: SimpleDateFormat made per call, one shared
+     * SimpleDateFormat (not safe across threads), and ReminderDates
+     */
+    @Test
+    public void dateLabel() {
+        int count = 200_000;
+        int firstDay = ReminderDates.parseEpochDay("2020-01-01");
+        String[] dates = new String[count];
+        for (int i = 0; i < count; i++) {
+            dates[i] = ReminderDates.formatEpochDay(firstDay + i % 3650);
+        }
+        SimpleDateFormat sharedInput = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        SimpleDateFormat sharedOutput = new SimpleDateFormat("MMM dd, yyyy", Locale.US);
+
+        measure("date label, SimpleDateFormat per call", count, () -> {
+            for (String date : dates) {
+                Date parsed = new SimpleDateFormat("yyyy-MM-dd", Locale.US).parse(date);
+                sink = new SimpleDateFormat("MMM dd, yyyy", Locale.US).format(parsed);
+            }
+        });
+        measure("date label, shared SimpleDateFormat", count, () -> {
+            for (String date : dates) {
+                sink = sharedOutput.format(sharedInput.parse(date));
+            }
+        });
+        measure("date label, ReminderDates", count, () -> {
+            for (String date : dates) {
+                sink = ReminderDates.formatDay(ReminderDates.parseEpochDay(date), ReminderDates.DayStyle.MEDIUM, Locale.US);
+            }
+        });
+    }
+
+    /**
+     * Writing the main screen clock line for one tick
+     */
+    @Test
+    public void clockLine() {
+        ClockTicker.Tick tick = new ClockTicker.Tick();
+        StringBuilder line = new StringBuilder(8);
+        int updates = 100_000;
+
+        measure("clock line update", updates, () -> {
+            for (int i = 0; i < updates; i++) {
+                tick.minuteOfDay = i % (24 * 60);
+                line.setLength(0);
+                ClockTicker.appendTime(line, tick, false);
+            }
+            sink = line;
+        });
+    }
+
+    /**
+     * Search over 50k reminders with 15 words each: index build, re-indexing an edit and queries
+     */
+    @Test
+    public void search() {
+        Random random = new Random(5);
+        String[] vocabulary = new String[5_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 3 + random.nextInt(7); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        List<Reminder> reminders = reminders(50_000);
+        for (Reminder reminder : reminders) {
+            reminder.setTitle(words(random, vocabulary, 5));
+            reminder.setContent(words(random, vocabulary, 10));
+        }
+        reminders.get(0).setTitle("quarterly zymurgy review");
+        int today = ReminderDates.parseEpochDay("2026-07-01");
+
+        measure("search index build, 50000 reminders", 1, () -> {
+            ReminderSearchIndex index = new ReminderSearchIndex();
+            for (Reminder reminder : reminders) {
+                index.add(reminder);
+            }
+            sink = index;
+        });
+        ReminderSearchIndex index = new ReminderSearchIndex();
+        for (Reminder reminder : reminders) {
+            index.add(reminder);
+        }
+        List<Reminder> edited = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Reminder reminder = new Reminder(reminders.get(i));
+            reminder.setTitle(words(random, vocabulary, 5));
+            edited.add(reminder);
+        }
+        measure("search index update, per reminder", edited.size(), () -> {
+            for (Reminder reminder : edited) {
+                index.add(reminder);
+            }
+        });
+
+        ReminderRepository repository = load(reminders);
+        repository.prepareSearch();
+        // Two words known to occur together, in a title and a content
+        String twoWords = reminders.get(1).getTitle().split(" ")[0] + " " + reminders.get(1).getContent().split(" ")[0];
+        System.out.printf(Locale.ROOT, "search hits: rare word 1, two words %d, prefix \"a\" %d%n",
+                repository.search(twoWords, false, today, Integer.MAX_VALUE).size(),
+                repository.search("a", false, today, Integer.MAX_VALUE).size());
+        measure("search, rare word", 1, () -> sink = repository.search("zymurgy", false, today, 50));
+        measure("search, two words", 1, () -> sink = repository.search(twoWords, false, today, 50));
+        measure("search, one-letter prefix", 1, () -> sink = repository.search("a", false, today, 50));
+    }
+
+    /**
+     * 200 daily series against the same reminders copied out for a year:
+     * snapshot size, repository load and the queries behind the widget, a day view and alarms
+     */
+    @Test
+    public void recurringSeries() throws IOException {
+        int startDay = ReminderDates.parseEpochDay("2026-01-01");
+        int today = startDay + 290;
+        List<Reminder> series = new ArrayList<>();
+        List<Reminder> copies = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            String time = String.format(Locale.ROOT, "%02d:%02d", 7 + random.nextInt(12), random.nextInt(60));
+            Reminder reminder = reminder(UUID.randomUUID().toString(), startDay, "Series " + i, time);
+            reminder.setRecurrence(new Recurrence(Recurrence.Frequency.DAILY, 1, 0, ReminderDates.INVALID_DAY));
+            series.add(reminder);
+            for (int day = 0; day < 365; day++) {
+                copies.add(reminder(UUID.randomUUID().toString(), startDay + day, "Series " + i, time));
+            }
+        }
+
+        for (List<Reminder> set : Arrays.asList(copies, series)) {
+            String name = set == copies ? "copies" : "series";
+            ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+            ReminderCodec.writeSnapshot(snapshot, set);
+            System.out.printf(Locale.ROOT, "%s: %d records, snapshot %d KB%n", name, set.size(), snapshot.size() / 1024);
+
+            measure(name + ": load", 1, () -> sink = load(set));
+            ReminderRepository repository = load(set);
+            measure(name + ": widget query (50 rows)", 1, () -> sink = repository.getActiveTodayFirst(today, 50));
+            measure(name + ": day query", 1, () -> sink = repository.getActiveOnDay(today));
+            // The query reconcile runs in per-reminder mode, from the start of today
+            long now = ReminderDates.toEpochMillis(today, 0);
+            measure(name + ": alarm scan (400)", 1, () -> sink = AlarmPlanner.upcomingAlarms(repository, today, now,
+                    Collections.emptyMap(), 401));
+        }
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    /**
+     * Print the median time and the mean allocation per operation of a piece of work doing ops operations
+     */
+    private static void measure(String name, int ops, Work work) {
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                work.run();
+            }
+            long[] nanos = new long[ROUNDS];
+            long bytesBefore = allocatedBytes();
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                work.run();
+                nanos[i] = System.nanoTime() - start;
+            }
+            long bytes = allocatedBytes() - bytesBefore;
+            Arrays.sort(nanos);
+            System.out.printf(Locale.ROOT, "%-40s %12.1f ns/op %12d B/op%n", name,
+                    (double) nanos[ROUNDS / 2] / ops, bytesBefore >= 0 ? bytes / ROUNDS / ops : -1);
+        } catch (Exception e) {
+            throw new AssertionError(name, e);
+        }
+    }
+
+    /**
+     * Bytes allocated by this thread so far, or -1 where the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static ReminderRepository load(List<Reminder> reminders) {
+        ReminderRepository repository = new ReminderRepository(null);
+        for (Reminder reminder : reminders) {
+            repository.put(reminder);
+        }
+        return repository;
+    }
+
+    private static List<Reminder> reminders(int count) {
+        Random random = new Random(0);
+        int firstDay = ReminderDates.parseEpochDay("2026-01-01");
+        List<Reminder> reminders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String time = String.format(Locale.ROOT, "%02d:%02d", random.nextInt(24), random.nextInt(60));
+            reminders.add(reminder(UUID.randomUUID().toString(), firstDay + random.nextInt(365), "Reminder " + i, time));
+        }
+        return reminders;
+    }
+
+    private static String words(Random random, String[] vocabulary, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private static Reminder reminder(String id, int day, String title, String time) {
+        Reminder reminder = new Reminder(id, ReminderDates.formatEpochDay(day), title, "Notes for " + title,
+                time, time, day);
+        reminder.setEnableNotification(true);
+        return reminder;
+    }
+
+    private static void writeJson(ReminderTypeAdapter adapter, List<Reminder> reminders, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginArray();
+        for (Reminder reminder : reminders) {
+            adapter.write(writer, reminder);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+
+    private static List<Reminder> readJson(ReminderTypeAdapter adapter, String json) throws IOException {
+        List<Reminder> reminders = new ArrayList<>();
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reminders.add(adapter.read(reader));
+        }
+        reader.endArray();
+        return reminders;
+    }
+}
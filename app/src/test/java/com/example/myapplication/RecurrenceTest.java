@@ -0,0 +1,220 @@
+package com.example.myapplication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class RecurrenceTest {
+    private static final int NO_END = ReminderDates.INVALID_DAY;
+
+    private static int day(String date) {
+        return ReminderDates.parseEpochDay(date);
+    }
+
+    /**
+     * The first count occurrences on from or later, as dates
+     */
+    private static List<String> occurrences(Recurrence rule, String start, String from, int count) {
+        List<String> dates = new ArrayList<>();
+        int startDay = day(start);
+        int next = rule.next(startDay, day(from));
+        while (next != ReminderDates.INVALID_DAY && dates.size() < count) {
+            dates.add(ReminderDates.formatEpochDay(next));
+            next = rule.next(startDay, next + 1);
+        }
+        return dates;
+    }
+
+    @Test
+    public void weekdayOfMatchesTheCalendar() {
+        for (int d = day("2026-01-01"); d < day("2027-01-01"); d++) {
+            assertEquals(LocalDate.ofEpochDay(d).getDayOfWeek().getValue() - 1, Recurrence.weekdayOf(d));
+        }
+    }
+
+    @Test
+    public void monthlyOn31stSkipsShortMonths() {
+        Recurrence monthly = new Recurrence(Recurrence.Frequency.MONTHLY, 1, 0, NO_END);
+
+        assertEquals(Arrays.asList("2026-01-31", "2026-03-31", "2026-05-31", "2026-07-31", "2026-08-31"),
+                occurrences(monthly, "2026-01-31", "2026-01-01", 5));
+    }
+
+    @Test
+    public void monthlyOn30thAnd29thSkipOnlyFebruary() {
+        Recurrence monthly = new Recurrence(Recurrence.Frequency.MONTHLY, 1, 0, NO_END);
+
+        assertEquals(Arrays.asList("2027-01-30", "2027-03-30"), occurrences(monthly, "2026-12-30", "2027-01-01", 2));
+        assertEquals(Arrays.asList("2027-01-29", "2027-03-29"), occurrences(monthly, "2026-12-29", "2027-01-01", 2));
+        assertEquals(Arrays.asList("2028-01-29", "2028-02-29"), occurrences(monthly, "2026-12-29", "2028-01-01", 2));
+    }
+
+    @Test
+    public void monthlyOn31stWithIntervalLandsOnLongMonthsOnly() {
+        // Every 2 months from January: Jan, Mar, May, Jul, Sep (30 days), Nov (30 days), Jan
+        Recurrence everyOther = new Recurrence(Recurrence.Frequency.MONTHLY, 2, 0, NO_END);
+
+        assertEquals(Arrays.asList("2026-01-31", "2026-03-31", "2026-05-31", "2026-07-31", "2027-01-31"),
+                occurrences(everyOther, "2026-01-31", "2026-01-01", 5));
+    }
+
+    @Test
+    public void february29thEveryTwelveMonthsWaitsForLeapYears() {
+        Recurrence yearly = new Recurrence(Recurrence.Frequency.MONTHLY, 12, 0, NO_END);
+
+        assertEquals(Arrays.asList("2028-02-29", "2032-02-29"), occurrences(yearly, "2024-02-29", "2024-03-01", 2));
+        // 2100 is not a leap year
+        assertEquals(Arrays.asList("2096-02-29", "2104-02-29"), occurrences(yearly, "2024-02-29", "2096-01-01", 2));
+    }
+
+    @Test
+    public void february29thEvery300MonthsNeedsSixteenSteps() {
+        // The longest search the step limit has to cover: 2100 to 2375 are not leap years, 2400 is
+        Recurrence rule = new Recurrence(Recurrence.Frequency.MONTHLY, 300, 0, NO_END);
+
+        assertEquals(Arrays.asList("2000-02-29", "2400-02-29"), occurrences(rule, "2000-02-29", "2000-01-01", 2));
+    }
+
+    @Test
+    public void weekdayMaskWithIntervalSkipsOffWeeks() {
+        // Monday, Wednesday and Friday every other week, starting on a Wednesday
+        int mask = Recurrence.MONDAY | Recurrence.MONDAY << 2 | Recurrence.MONDAY << 4;
+        Recurrence rule = new Recurrence(Recurrence.Frequency.WEEKLY, 2, mask, NO_END);
+
+        assertEquals(Arrays.asList("2026-10-21", "2026-10-23", "2026-11-02", "2026-11-04", "2026-11-06", "2026-11-16"),
+                occurrences(rule, "2026-10-21", "2026-10-01", 6));
+        // Asking from inside an off week jumps to the next week in the cycle
+        assertEquals(Arrays.asList("2026-11-02"), occurrences(rule, "2026-10-21", "2026-10-27", 1));
+    }
+
+    @Test
+    public void weeklyWithoutMaskUsesTheStartWeekday() {
+        Recurrence rule = new Recurrence(Recurrence.Frequency.WEEKLY, 3, 0, NO_END);
+
+        assertEquals(Arrays.asList("2026-10-18", "2026-11-08", "2026-11-29"),
+                occurrences(rule, "2026-10-18", "2026-10-18", 3));
+    }
+
+    @Test
+    public void untilDayIsTheLastPossibleOccurrence() {
+        Recurrence rule = new Recurrence(Recurrence.Frequency.DAILY, 2, 0, day("2026-10-24"));
+
+        assertEquals(Arrays.asList("2026-10-18", "2026-10-20", "2026-10-22", "2026-10-24"),
+                occurrences(rule, "2026-10-18", "2026-10-18", 10));
+        assertEquals(ReminderDates.INVALID_DAY, rule.next(day("2026-10-18"), day("2026-10-25")));
+    }
+
+    @Test
+    public void limitedToTurnsACountIntoAnUntilDay() {
+        Recurrence weekdays = new Recurrence(Recurrence.Frequency.WEEKLY, 1, Recurrence.WEEKDAYS, NO_END);
+
+        Recurrence limited = weekdays.limitedTo(day("2026-10-17"), 6);
+
+        assertEquals(day("2026-10-26"), limited.getUntilDay());
+        assertEquals(6, occurrences(limited, "2026-10-17", "2026-10-17", 10).size());
+    }
+
+    @Test
+    public void excludedDaysAreSkipped() {
+        Recurrence daily = new Recurrence(Recurrence.Frequency.DAILY, 1, 0, NO_END)
+                .excluding(day("2026-10-20"))
+                .excluding(day("2026-10-19"))
+                .excluding(day("2026-10-20"));
+
+        assertEquals(Arrays.asList("2026-10-18", "2026-10-21"), occurrences(daily, "2026-10-18", "2026-10-18", 2));
+        assertEquals(2, daily.getExcludedDays().length);
+        assertFalse(daily.occursOn(day("2026-10-18"), day("2026-10-19")));
+        assertTrue(daily.occursOn(day("2026-10-18"), day("2026-10-21")));
+    }
+
+    @Test
+    public void restoreSortsExcludedDays() {
+        Recurrence restored = Recurrence.restore(Recurrence.Frequency.DAILY, 1, 0, NO_END,
+                new int[]{day("2026-10-21"), day("2026-10-19")});
+        Recurrence built = new Recurrence(Recurrence.Frequency.DAILY, 1, 0, NO_END)
+                .excluding(day("2026-10-19"))
+                .excluding(day("2026-10-21"));
+
+        assertEquals(built, restored);
+        assertEquals(built.hashCode(), restored.hashCode());
+    }
+
+    @Test
+    public void occurrenceIdRoundTrip() {
+        String seriesId = "3f2b7c1e-0c4a-4f51-9d7e-8a1b2c3d4e5f";
+        int day = day("2026-10-18");
+
+        String occurrenceId = Recurrence.occurrenceId(seriesId, day);
+
+        assertEquals(seriesId + "@2026-10-18", occurrenceId);
+        assertEquals(seriesId, Recurrence.seriesIdOf(occurrenceId));
+        assertEquals(day, Recurrence.occurrenceDayOf(occurrenceId));
+        // A series id that itself contains the separator still splits at the last one
+        assertEquals("a@b", Recurrence.seriesIdOf(Recurrence.occurrenceId("a@b", day)));
+    }
+
+    @Test
+    public void otherIdsAreNotOccurrences() {
+        assertNull(Recurrence.seriesIdOf(null));
+        assertNull(Recurrence.seriesIdOf("plain-id"));
+        assertNull(Recurrence.seriesIdOf("mail@example.com"));
+        assertNull(Recurrence.seriesIdOf("@2026-10-18"));
+        assertEquals(ReminderDates.INVALID_DAY, Recurrence.occurrenceDayOf("plain-id"));
+    }
+
+    @Test
+    public void nextMatchesBruteForce() {
+        Random random = new Random(7);
+        for (int i = 0; i < 3000; i++) {
+            Recurrence.Frequency frequency = Recurrence.Frequency.values()[random.nextInt(3)];
+            int start = day("2020-01-01") + random.nextInt(2000);
+            Recurrence rule = new Recurrence(frequency, 1 + random.nextInt(4),
+                    random.nextBoolean() ? 0 : 1 + random.nextInt(127),
+                    random.nextBoolean() ? NO_END : start + random.nextInt(900));
+            for (int k = random.nextInt(4); k > 0; k--) {
+                rule = rule.excluding(start + random.nextInt(400));
+            }
+            int from = start - 50 + random.nextInt(700);
+
+            int expected = ReminderDates.INVALID_DAY;
+            for (int d = Math.max(from, start); d < start + 4000; d++) {
+                if (matches(rule, start, d)) {
+                    expected = d;
+                    break;
+                }
+            }
+            assertEquals(rule + " from " + from, expected, rule.next(start, from));
+        }
+    }
+
+    /**
+     * Whether the rule occurs on day, straight from its definition
+     */
+    private static boolean matches(Recurrence rule, int start, int day) {
+        if (day < start || (rule.getUntilDay() != NO_END && day > rule.getUntilDay())
+                || Arrays.binarySearch(rule.getExcludedDays(), day) >= 0) {
+            return false;
+        }
+        switch (rule.getFrequency()) {
+            case DAILY:
+                return (day - start) % rule.getInterval() == 0;
+            case WEEKLY:
+                int mask = rule.getWeekdays() != 0 ? rule.getWeekdays() : Recurrence.MONDAY << Recurrence.weekdayOf(start);
+                int weeks = (day - Recurrence.weekdayOf(day) - (start - Recurrence.weekdayOf(start))) / 7;
+                return weeks % rule.getInterval() == 0 && (mask >> Recurrence.weekdayOf(day) & 1) == 1;
+            default:
+                LocalDate first = LocalDate.ofEpochDay(start);
+                LocalDate date = LocalDate.ofEpochDay(day);
+                int months = (date.getYear() - first.getYear()) * 12 + date.getMonthValue() - first.getMonthValue();
+                return months % rule.getInterval() == 0 && date.getDayOfMonth() == first.getDayOfMonth();
+        }
+    }
+}
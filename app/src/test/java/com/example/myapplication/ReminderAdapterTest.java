@@ -0,0 +1,63 @@
+package com.example.myapplication;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.res.Resources;
+import androidx.recyclerview.widget.DiffUtil;
+import org.junit.Test;
+
+public class ReminderAdapterTest {
+    private static final DiffUtil.ItemCallback<ReminderItem> DIFF = ReminderAdapter.DIFF_CALLBACK;
+    // Only getString is called, which returns null with the default-value android.jar
+    @SuppressWarnings("deprecation")
+    private static final Resources RESOURCES = new Resources(null, null, null);
+
+    private static Reminder reminder() {
+        return new Reminder("a", "2026-10-20", "Dentist", "Bring the forms", "10:00", "11:00", 1);
+    }
+
+    private static ReminderItem item(Reminder reminder) {
+        return ReminderItem.from(RESOURCES, reminder);
+    }
+
+    @Test
+    public void unchangedRowIsTheSame() {
+        Reminder reminder = reminder();
+        Reminder copy = new Reminder(reminder);
+        // Only the edit time changed, the row shows nothing of it
+        copy.setTimestamp(2);
+
+        assertTrue(DIFF.areItemsTheSame(item(reminder), item(copy)));
+        assertTrue(DIFF.areContentsTheSame(item(reminder), item(copy)));
+    }
+
+    @Test
+    public void editedRowIsRebound() {
+        Reminder reminder = reminder();
+        Reminder edited = new Reminder(reminder);
+        edited.setTitle("Dentist at noon");
+        Reminder completed = new Reminder(reminder);
+        completed.setCompleted(true);
+
+        assertFalse(DIFF.areContentsTheSame(item(reminder), item(edited)));
+        assertFalse(DIFF.areContentsTheSame(item(reminder), item(completed)));
+    }
+
+    @Test
+    public void reminderChangedInPlaceIsStillRebound() {
+        Reminder reminder = reminder();
+        ReminderItem shown = item(reminder);
+        // The old row's text was formatted when it was built, so editing the instance does not hide the change
+        reminder.setContent("Forms are online now");
+
+        assertFalse(DIFF.areContentsTheSame(shown, item(reminder)));
+    }
+
+    @Test
+    public void otherReminderIsNotTheSameItem() {
+        Reminder other = new Reminder("b", "2026-10-20", "Dentist", "Bring the forms", "10:00", "11:00", 1);
+
+        assertFalse(DIFF.areItemsTheSame(item(reminder()), item(other)));
+    }
+}
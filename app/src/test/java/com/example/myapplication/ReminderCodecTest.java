@@ -0,0 +1,266 @@
+package com.example.myapplication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReminderCodecTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Reminder reminder(String id, String date, String title) {
+        Reminder reminder = new Reminder(id, date, title, "content of " + title, "09:30", "10:00", 42);
+        reminder.setEnableNotification(true);
+        reminder.setNotificationMinutesBefore(15);
+        return reminder;
+    }
+
+    @Test
+    public void snapshotRoundTripKeepsEveryField() throws IOException {
+        Reminder uuid = reminder(UUID.randomUUID().toString(), "2026-10-18", "Standup");
+        uuid.setCompleted(true);
+        Reminder raw = new Reminder("plain-id", "not a date", "Odd", null, "9:5", "", 7);
+        raw.setDeleted(true);
+        Reminder series = reminder(UUID.randomUUID().toString(), "2026-10-19", "Gym");
+        series.setRecurrence(new Recurrence(Recurrence.Frequency.WEEKLY, 2, 0b10101, ReminderDates.INVALID_DAY)
+                .excluding(ReminderDates.parseEpochDay("2026-11-02")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReminderCodec.writeSnapshot(out, Arrays.asList(uuid, raw, series));
+        Map<String, Reminder> read = new LinkedHashMap<>();
+        ReminderCodec.readSnapshot(new ByteArrayInputStream(out.toByteArray()), out.size(), read);
+
+        assertEquals(3, read.size());
+        assertSameFields(uuid, read.get(uuid.getId()));
+        assertSameFields(raw, read.get(raw.getId()));
+        assertSameFields(series, read.get(series.getId()));
+        assertNull(read.get(uuid.getId()).getRecurrence());
+    }
+
+    @Test
+    public void damagedSnapshotFailsItsChecksum() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReminderCodec.writeSnapshot(out, Arrays.asList(reminder("a", "2026-10-18", "Standup")));
+        byte[] snapshot = out.toByteArray();
+        // Flip a byte of the title, the file still parses but its CRC no longer matches
+        int title = new String(snapshot, StandardCharsets.ISO_8859_1).indexOf("Standup");
+        snapshot[title] ^= 0x20;
+
+        assertThrows(IOException.class, () -> ReminderCodec.readSnapshot(new ByteArrayInputStream(snapshot),
+                snapshot.length, new LinkedHashMap<>()));
+    }
+
+    @Test
+    public void hugeSnapshotCountIsRejectedWithoutAllocating() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReminderCodec.writeSnapshot(out, new ArrayList<>());
+        // Magic and version, then a string count of about 2 GB
+        byte[] damaged = Arrays.copyOf(out.toByteArray(), 10);
+        byte[] count = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        System.arraycopy(count, 0, damaged, 5, count.length);
+
+        assertThrows(IOException.class, () -> ReminderCodec.readSnapshot(new ByteArrayInputStream(damaged),
+                damaged.length, new LinkedHashMap<>()));
+    }
+
+    @Test
+    public void journalRoundTrip() throws IOException {
+        byte[] journal = journal(reminder("a", "2026-10-18", "A"), reminder("b", "2026-10-19", "B"));
+        journal = append(journal, removeFrame("a"));
+
+        Map<String, Reminder> read = new LinkedHashMap<>();
+        ReminderCodec.JournalScan scan = replay(journal, read);
+
+        assertEquals(3, scan.entries);
+        assertEquals(journal.length, scan.validLength);
+        assertEquals(Arrays.asList("b"), new ArrayList<>(read.keySet()));
+    }
+
+    @Test
+    public void tornTailStopsAtLastGoodFrame() throws IOException {
+        byte[] good = journal(reminder("a", "2026-10-18", "A"));
+        byte[] full = append(good, putFrame(reminder("b", "2026-10-19", "B")));
+        for (int cut = good.length + 1; cut < full.length; cut++) {
+            Map<String, Reminder> read = new LinkedHashMap<>();
+            ReminderCodec.JournalScan scan = replay(Arrays.copyOf(full, cut), read);
+            assertEquals("cut at " + cut, 1, scan.entries);
+            assertEquals("cut at " + cut, good.length, scan.validLength);
+        }
+    }
+
+    @Test
+    public void damagedFrameStopsReplay() throws IOException {
+        byte[] good = journal(reminder("a", "2026-10-18", "A"));
+        byte[] full = append(good, putFrame(reminder("b", "2026-10-19", "B")));
+        full = append(full, putFrame(reminder("c", "2026-10-20", "C")));
+        // Flip a payload byte of the second frame, its CRC no longer matches
+        full[good.length + 4] ^= 0x55;
+
+        Map<String, Reminder> read = new LinkedHashMap<>();
+        ReminderCodec.JournalScan scan = replay(full, read);
+
+        assertEquals(1, scan.entries);
+        assertEquals(good.length, scan.validLength);
+    }
+
+    @Test
+    public void hugeLengthIsTreatedAsDamageWithoutAllocating() throws IOException {
+        byte[] good = journal(reminder("a", "2026-10-18", "A"));
+        // Op, then a length varint of about 2 GB
+        byte[] damaged = append(good, new byte[]{ReminderCodec.OP_PUT, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07});
+
+        ReminderCodec.JournalScan scan = replay(damaged, new LinkedHashMap<>());
+
+        assertEquals(1, scan.entries);
+        assertEquals(good.length, scan.validLength);
+    }
+
+    @Test
+    public void tornHeaderCountsAsEmptyJournal() throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        ReminderCodec.writeJournalHeader(header);
+        byte[] torn = Arrays.copyOf(header.toByteArray(), 2);
+
+        ReminderCodec.JournalScan scan = replay(torn, new LinkedHashMap<>());
+
+        assertEquals(0, scan.entries);
+        assertEquals(0, scan.validLength);
+        assertEquals(0, replay(new byte[]{1, 2, 3, 4, 5, 6}, new LinkedHashMap<>()).validLength);
+    }
+
+    @Test
+    public void appendAfterRepairedTornTailIsReadBack() throws IOException {
+        File file = folder.newFile("journal.bin");
+        byte[] good = journal(reminder("a", "2026-10-18", "A"));
+        byte[] torn = append(good, Arrays.copyOf(putFrame(reminder("b", "2026-10-19", "B")), 9));
+        write(file, torn, false);
+
+        // What ReminderStore does on load: replay, then cut the file back to the last good frame
+        ReminderCodec.JournalScan scan = replay(file, new LinkedHashMap<>());
+        ReminderStore.truncate(file, scan.validLength);
+        write(file, putFrame(reminder("c", "2026-10-20", "C")), true);
+
+        Map<String, Reminder> read = new LinkedHashMap<>();
+        scan = replay(file, read);
+        assertEquals(2, scan.entries);
+        assertEquals(file.length(), scan.validLength);
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(read.keySet()));
+    }
+
+    @Test
+    public void truncateToZeroDeletesTheFile() throws IOException {
+        File file = folder.newFile("journal.bin");
+        write(file, new byte[]{1, 2, 3}, false);
+
+        ReminderStore.truncate(file, 0);
+
+        assertTrue(!file.exists());
+    }
+
+    @Test
+    public void setAsideKeepsEveryUnreadableCopy() throws IOException {
+        File file = folder.newFile("snapshot.bin");
+        write(file, new byte[]{1}, false);
+        ReminderStore.setAside(file);
+        write(file, new byte[]{2}, false);
+
+        ReminderStore.setAside(file);
+
+        assertTrue(!file.exists());
+        assertArrayEquals(new byte[]{1}, Files.readAllBytes(new File(folder.getRoot(), "snapshot.bin.unreadable").toPath()));
+        assertArrayEquals(new byte[]{2}, Files.readAllBytes(new File(folder.getRoot(), "snapshot.bin.unreadable.1").toPath()));
+    }
+
+    private static void assertSameFields(Reminder expected, Reminder actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getContent(), actual.getContent());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.isCompleted(), actual.isCompleted());
+        assertEquals(expected.isDeleted(), actual.isDeleted());
+        assertEquals(expected.isEnableNotification(), actual.isEnableNotification());
+        assertEquals(expected.getNotificationMinutesBefore(), actual.getNotificationMinutesBefore());
+        assertEquals(expected.getRecurrence(), actual.getRecurrence());
+    }
+
+    private static byte[] journal(Reminder... reminders) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReminderCodec.writeJournalHeader(out);
+        for (Reminder reminder : reminders) {
+            ReminderCodec.writeJournalPut(out, reminder);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] putFrame(Reminder reminder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReminderCodec.writeJournalPut(out, reminder);
+        return out.toByteArray();
+    }
+
+    private static byte[] removeFrame(String id) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReminderCodec.writeJournalRemove(out, id);
+        return out.toByteArray();
+    }
+
+    private static byte[] append(byte[] first, byte[] second) {
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private static ReminderCodec.JournalScan replay(byte[] journal, Map<String, Reminder> into) throws IOException {
+        return ReminderCodec.readJournal(new ByteArrayInputStream(journal), journal.length, visitor(into));
+    }
+
+    private static ReminderCodec.JournalScan replay(File file, Map<String, Reminder> into) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return ReminderCodec.readJournal(in, file.length(), visitor(into));
+        }
+    }
+
+    private static ReminderCodec.JournalVisitor visitor(Map<String, Reminder> into) {
+        return new ReminderCodec.JournalVisitor() {
+            @Override
+            public void onPut(Reminder reminder) {
+                into.put(reminder.getId(), reminder);
+            }
+
+            @Override
+            public void onRemove(String reminderId) {
+                into.remove(reminderId);
+            }
+        };
+    }
+
+    private static void write(File file, byte[] bytes, boolean append) throws IOException {
+        try (OutputStream out = new FileOutputStream(file, append)) {
+            out.write(bytes);
+        }
+    }
+}
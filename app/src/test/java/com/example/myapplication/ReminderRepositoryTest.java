@@ -0,0 +1,267 @@
+package com.example.myapplication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReminderRepositoryTest {
+    private static final String SERIES_ID = "series";
+    // A Tuesday
+    private static final int TODAY = ReminderDates.parseEpochDay("2026-10-20");
+
+    private ReminderRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new ReminderRepository(null);
+        // Standup every weekday from Sunday 2026-10-18
+        Reminder series = new Reminder(SERIES_ID, "2026-10-18", "Standup", "daily sync", "09:30", "09:45", 1);
+        series.setRecurrence(new Recurrence(Recurrence.Frequency.WEEKLY, 1, Recurrence.WEEKDAYS,
+                ReminderDates.INVALID_DAY));
+        repository.put(series);
+        repository.put(new Reminder("plain", "2026-10-20", "Dentist", "", "10:00", "11:00", 2));
+    }
+
+    private static String occurrence(int day) {
+        return Recurrence.occurrenceId(SERIES_ID, day);
+    }
+
+    private static List<String> ids(List<Reminder> reminders) {
+        List<String> ids = new ArrayList<>();
+        for (Reminder reminder : reminders) {
+            ids.add(reminder.getId());
+        }
+        return ids;
+    }
+
+    private int[] excludedDays() {
+        return repository.getById(SERIES_ID).getRecurrence().getExcludedDays();
+    }
+
+    @Test
+    public void occurrenceIdsResolveWithoutBeingStored() {
+        Reminder occurrence = repository.getById(occurrence(TODAY));
+
+        assertNotNull(occurrence);
+        assertEquals("2026-10-20", occurrence.getDate());
+        assertEquals("Standup", occurrence.getTitle());
+        // Saturday is not in the rule, and neither is anything before the start
+        assertNull(repository.getById(occurrence(TODAY + 4)));
+        assertNull(repository.getById(occurrence(TODAY - 3)));
+        assertEquals(Arrays.asList(occurrence(TODAY), "plain"), ids(repository.getActiveOnDay(TODAY)));
+    }
+
+    @Test
+    public void completingAnOccurrenceDetachesItsDay() {
+        assertTrue(repository.update(occurrence(TODAY), reminder -> reminder.setCompleted(true)));
+
+        assertArrayEquals(new int[]{TODAY}, excludedDays());
+        assertEquals(Arrays.asList("plain"), ids(repository.getActiveOnDay(TODAY)));
+        assertEquals(Arrays.asList(occurrence(TODAY)), ids(repository.getHistory()));
+        // The stored occurrence keeps its id and is no longer part of the series
+        Reminder detached = repository.getById(occurrence(TODAY));
+        assertTrue(detached.isCompleted());
+        assertNull(detached.getRecurrence());
+        // Other days are untouched
+        assertEquals(Arrays.asList(occurrence(TODAY + 1)), ids(repository.getActiveOnDay(TODAY + 1)));
+    }
+
+    @Test
+    public void editingAnOccurrenceKeepsItOnItsOwn() {
+        Reminder edited = repository.getById(occurrence(TODAY + 1));
+        edited.setTitle("Moved standup");
+        edited.setStartTime("08:00");
+        repository.put(edited);
+
+        List<Reminder> wednesday = repository.getActiveOnDay(TODAY + 1);
+        assertEquals(1, wednesday.size());
+        assertEquals("Moved standup", wednesday.get(0).getTitle());
+        assertEquals(occurrence(TODAY + 1), wednesday.get(0).getId());
+        assertArrayEquals(new int[]{TODAY + 1}, excludedDays());
+
+        // A second edit changes the stored occurrence, the series is not touched again
+        edited.setTitle("Moved again");
+        repository.put(edited);
+        assertEquals("Moved again", repository.getById(occurrence(TODAY + 1)).getTitle());
+        assertArrayEquals(new int[]{TODAY + 1}, excludedDays());
+    }
+
+    @Test
+    public void removingAnOccurrenceOnlyExcludesItsDay() {
+        repository.remove(occurrence(TODAY));
+
+        assertNull(repository.getById(occurrence(TODAY)));
+        assertArrayEquals(new int[]{TODAY}, excludedDays());
+        assertTrue(repository.getHistory().isEmpty());
+        assertEquals(Arrays.asList("plain"), ids(repository.getActiveOnDay(TODAY)));
+    }
+
+    @Test
+    public void idsThatAreNotOccurrencesAreNotDetached() {
+        // Saturday is not a day of the series
+        assertFalse(repository.update(occurrence(TODAY + 4), reminder -> reminder.setCompleted(true)));
+        assertFalse(repository.update(SERIES_ID + "@not-a-date", reminder -> reminder.setCompleted(true)));
+        repository.remove(occurrence(TODAY - 3));
+
+        assertEquals(0, excludedDays().length);
+    }
+
+    @Test
+    public void deletedSeriesHasNoOccurrences() {
+        repository.update(SERIES_ID, reminder -> reminder.setDeleted(true));
+
+        assertNull(repository.getById(occurrence(TODAY)));
+        assertEquals(Arrays.asList("plain"), ids(repository.getActiveOnDay(TODAY)));
+        assertFalse(repository.update(occurrence(TODAY + 1), reminder -> reminder.setCompleted(true)));
+    }
+
+    @Test
+    public void nextAlarmComesFromTheFirstMatchingOccurrence() {
+        repository.update(occurrence(TODAY + 2), reminder -> reminder.setCompleted(true));
+
+        List<Reminder> upcoming = repository.getActiveFrom(TODAY,
+                reminder -> reminder.getEpochDay() >= TODAY + 2, 10);
+
+        // Thursday is completed, so the series is next on Friday; a series adds one occurrence only
+        assertEquals(Arrays.asList(occurrence(TODAY + 3)), ids(upcoming));
+    }
+
+    @Test
+    public void nextOccurrenceKeepsAnAlarmAfterOneIsDetached() {
+        Reminder series = repository.getById(SERIES_ID);
+        series.setEnableNotification(true);
+        repository.put(series);
+        // Monday morning, before the first occurrence of the week
+        long now = ReminderDates.toEpochMillis(TODAY - 1, 8 * 60);
+
+        repository.update(occurrence(TODAY - 1), reminder -> reminder.setCompleted(true));
+        repository.remove(occurrence(TODAY));
+
+        List<Reminder> alarms = AlarmPlanner.upcomingAlarms(repository, TODAY - 1, now,
+                Collections.emptyMap(), 400);
+        // The series moves on to Wednesday; the plain reminder has no notification
+        assertEquals(Arrays.asList(occurrence(TODAY + 1)), ids(alarms));
+    }
+
+    @Test
+    public void alarmCapKeepsTheEarliestTriggersNotTheEarliestStarts() {
+        int day = TODAY + 10;
+        String date = ReminderDates.formatEpochDay(day);
+        Reminder[] reminders = {
+                new Reminder("ten", date, "Ten", "", "10:00", "10:30", 3),
+                new Reminder("eleven", date, "Eleven", "", "11:00", "11:30", 4),
+                new Reminder("noon", date, "Noon", "", "12:00", "12:30", 5),
+        };
+        for (Reminder reminder : reminders) {
+            reminder.setEnableNotification(true);
+            repository.put(reminder);
+        }
+        // Starts last, but its alarm fires at 09:00
+        Reminder noon = repository.getById("noon");
+        noon.setNotificationMinutesBefore(180);
+        repository.put(noon);
+
+        List<Reminder> alarms = AlarmPlanner.upcomingAlarms(repository, day,
+                ReminderDates.toEpochMillis(day, 0), Collections.emptyMap(), 2);
+
+        assertEquals(Arrays.asList("noon", "ten"), ids(alarms));
+    }
+
+    @Test
+    public void rangedWalkStopsAtTheLastDay() {
+        assertEquals(Arrays.asList(occurrence(TODAY), "plain"),
+                ids(repository.getActiveFrom(TODAY, TODAY + 1, null, 10)));
+        // The weekend has no standup, and Monday's is past the range
+        assertTrue(repository.getActiveFrom(TODAY + 4, TODAY + 5, null, 10).isEmpty());
+    }
+
+    @Test
+    public void alarmCapReachesLeadsFromTheNextDay() {
+        int day = TODAY + 10;
+        String date = ReminderDates.formatEpochDay(day);
+        Reminder[] reminders = {
+                new Reminder("ten", date, "Ten", "", "10:00", "10:30", 3),
+                new Reminder("eleven", date, "Eleven", "", "11:00", "11:30", 4),
+                new Reminder("early", ReminderDates.formatEpochDay(day + 1), "Early", "", "00:30", "01:00", 5),
+        };
+        for (Reminder reminder : reminders) {
+            reminder.setEnableNotification(true);
+            repository.put(reminder);
+        }
+        // A full day of notice fires at 00:30 the day before
+        Reminder early = repository.getById("early");
+        early.setNotificationMinutesBefore(AlarmHelper.MAX_MINUTES_BEFORE);
+        repository.put(early);
+
+        List<Reminder> alarms = AlarmPlanner.upcomingAlarms(repository, day,
+                ReminderDates.toEpochMillis(day, 0), Collections.emptyMap(), 2);
+
+        assertEquals(Arrays.asList("early", "ten"), ids(alarms));
+    }
+
+    @Test
+    public void chainedQueueStopsAfterTheEarliestTrigger() {
+        int day = TODAY + 10;
+        String date = ReminderDates.formatEpochDay(day);
+        Reminder[] reminders = {
+                new Reminder("ten", date, "Ten", "", "10:00", "10:30", 3),
+                new Reminder("early", ReminderDates.formatEpochDay(day + 1), "Early", "", "00:30", "01:00", 4),
+                new Reminder("later", ReminderDates.formatEpochDay(day + 5), "Later", "", "10:00", "10:30", 5),
+        };
+        for (Reminder reminder : reminders) {
+            reminder.setEnableNotification(true);
+            repository.put(reminder);
+        }
+        // A full day of notice fires at 00:30 the day before, ahead of "ten"
+        Reminder early = repository.getById("early");
+        early.setNotificationMinutesBefore(AlarmHelper.MAX_MINUTES_BEFORE);
+        repository.put(early);
+        long deliveredThrough = ReminderDates.toEpochMillis(day, 0);
+
+        List<Reminder> alarms = AlarmPlanner.chainedAlarms(repository, day, deliveredThrough,
+                Collections.emptyMap(), deliveredThrough);
+        AlarmQueue queue = new AlarmQueue(Clock.fixed(Instant.ofEpochMilli(deliveredThrough), ZoneId.systemDefault()),
+                deliveredThrough);
+        for (Reminder reminder : alarms) {
+            queue.schedule(reminder.getId(), AlarmHelper.getTriggerAtMillis(reminder));
+        }
+
+        // "later" fires days after the head, so the walk never reaches it
+        assertEquals(2, queue.size());
+        assertEquals(AlarmHelper.getTriggerAtMillis(early), queue.nextTriggerAt());
+        assertEquals(Arrays.asList("early"), queue.pollDue(60 * 60_000L));
+    }
+
+    @Test
+    public void searchKeepsTheBestHitsUpToTheLimit() {
+        String[][] reminders = {
+                // id, date, title, content
+                {"content-only", "2026-10-20", "Call", "dentist"},
+                {"title-far", "2026-12-01", "Dentist", ""},
+                {"title-near", "2026-10-21", "Dentist", ""},
+                {"prefix", "2026-10-20", "Dentistry", ""},
+        };
+        for (String[] fields : reminders) {
+            repository.put(new Reminder(fields[0], fields[1], fields[2], fields[3], "12:00", "13:00", 9));
+        }
+
+        // Whole-word title hits first, the nearer one ahead; "plain" is a title hit dated today
+        assertEquals(Arrays.asList("plain", "title-near", "title-far"),
+                ids(repository.search("dentist", false, TODAY, 3)));
+        assertEquals(Arrays.asList("plain", "title-near", "title-far", "prefix", "content-only"),
+                ids(repository.search("dentist", false, TODAY, 10)));
+    }
+}